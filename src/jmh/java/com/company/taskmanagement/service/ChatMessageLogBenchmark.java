@@ -0,0 +1,130 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.ChatMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Сравнение кольцевого буфера ChatMessageLog с прежним хранилищем
+ * на CopyOnWriteArrayList при 8/32/128 параллельных отправителях.
+ *
+ * Запуск: mvn -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatMessageLogBenchmark {
+
+    private static final int MAX_MESSAGES = 500;
+
+    @Param({"ringBuffer", "copyOnWrite"})
+    public String store;
+
+    private MessageStore messages;
+    private final AtomicLong ids = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        messages = "ringBuffer".equals(store) ? new RingBufferStore() : new CopyOnWriteStore();
+        // Буфер заполнен, как в работающем чате
+        for (int i = 0; i < MAX_MESSAGES; i++) {
+            messages.save(newMessage());
+        }
+    }
+
+    @Benchmark
+    public ChatMessage send() {
+        return messages.save(newMessage());
+    }
+
+    @Benchmark
+    public List<ChatMessage> pollAfterId() {
+        // Клиент, отстающий на несколько сообщений
+        return messages.afterId(ids.get() - 5);
+    }
+
+    private ChatMessage newMessage() {
+        ChatMessage message = new ChatMessage();
+        message.setId(ids.incrementAndGet());
+        message.setText("benchmark");
+        return message;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{8, 32, 128}) {
+            Options options = new OptionsBuilder()
+                    .include(ChatMessageLogBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+    interface MessageStore {
+        ChatMessage save(ChatMessage message);
+
+        List<ChatMessage> afterId(long afterId);
+    }
+
+    static class RingBufferStore implements MessageStore {
+        private final ChatMessageLog log = new ChatMessageLog(MAX_MESSAGES);
+
+        @Override
+        public ChatMessage save(ChatMessage message) {
+            log.append(message);
+            return message;
+        }
+
+        @Override
+        public List<ChatMessage> afterId(long afterId) {
+            return log.readAfterId(afterId);
+        }
+    }
+
+    // Прежняя реализация ChatService: копирование массива при add и remove(0), линейные проходы
+    static class CopyOnWriteStore implements MessageStore {
+        private final List<ChatMessage> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public ChatMessage save(ChatMessage message) {
+            boolean exists = messages.stream()
+                    .anyMatch(m -> m.getId() != null && m.getId().equals(message.getId()));
+            if (!exists) {
+                messages.add(message);
+                if (messages.size() > MAX_MESSAGES) {
+                    messages.remove(0);
+                }
+            }
+            return message;
+        }
+
+        @Override
+        public List<ChatMessage> afterId(long afterId) {
+            return messages.stream()
+                    .filter(m -> m.getId() != null && m.getId() > afterId)
+                    .collect(Collectors.toList());
+        }
+    }
+}
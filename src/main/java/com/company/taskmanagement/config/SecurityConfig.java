@@ -68,6 +68,7 @@ public class SecurityConfig {
                         .requestMatchers("/tasks/create").hasRole("ADMIN")
                         .requestMatchers("/chat").hasAnyRole("USER", "ADMIN") // Добавили чат
                         .requestMatchers("/api/chat/**").hasAnyRole("USER", "ADMIN") // API чата
+                        .requestMatchers("/api/tasks/**").hasAnyRole("USER", "ADMIN") // REST API задач
                         .anyRequest().authenticated()
                 )
                 .formLogin(form -> form
@@ -1,8 +1,11 @@
 package com.company.taskmanagement.controller;
 
 import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.service.ArchiveService;
+import com.company.taskmanagement.service.TaskListCache;
 import com.company.taskmanagement.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +17,31 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private TaskListCache taskListCache;
+
+    /**
+     * Метрики последнего прогона автоархивации
+     */
+    @GetMapping("/archive/auto-run")
+    @ResponseBody
+    public ResponseEntity<ArchiveService.AutoArchiveRun> lastAutoArchiveRun() {
+        ArchiveService.AutoArchiveRun run = archiveService.getLastAutoArchiveRun();
+        return run != null ? ResponseEntity.ok(run) : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Метрики кэша списков задач
+     */
+    @GetMapping("/cache/task-lists")
+    @ResponseBody
+    public TaskListCache.CacheStats taskListCacheStats() {
+        return taskListCache.getStats();
+    }
+
     @GetMapping("/users")
     public String usersManagement(Model model) {
         model.addAttribute("users", userService.getAllUsers());
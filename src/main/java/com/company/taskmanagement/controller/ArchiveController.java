@@ -3,6 +3,8 @@ package com.company.taskmanagement.controller;
 import com.company.taskmanagement.model.ProjectTask;
 import com.company.taskmanagement.model.User;
 import com.company.taskmanagement.service.ArchiveService;
+import com.company.taskmanagement.service.ColdArchiveService;
+import com.company.taskmanagement.service.KeysetPage;
 import com.company.taskmanagement.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -21,6 +23,9 @@ public class ArchiveController {
     @Autowired
     private ArchiveService archiveService;
 
+    @Autowired
+    private ColdArchiveService coldArchiveService;
+
     @Autowired
     private UserService userService;
 
@@ -30,25 +35,33 @@ public class ArchiveController {
     @GetMapping
     public String showArchive(@RequestParam(required = false) String success,
                               @RequestParam(required = false) String error,
+                              @RequestParam(required = false) Long after,
+                              @RequestParam(defaultValue = "" + ArchiveService.DEFAULT_PAGE_SIZE) int size,
                               Model model) {
         try {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             String username = auth.getName();
             User user = userService.getUserByUsername(username).orElse(null);
 
-            List<ProjectTask> archivedTasks;
+            KeysetPage<ProjectTask> page;
+            long archivedTotal;
 
             if (user != null && user.getRole().equals("ADMIN")) {
                 // Админ видит все архивные задачи
-                archivedTasks = archiveService.getArchivedTasks();
+                page = archiveService.getArchivedTasksPage(after, size);
+                archivedTotal = archiveService.getArchivedTasksCount();
             } else if (user != null) {
                 // Обычный пользователь видит только свои архивные задачи
-                archivedTasks = archiveService.getUserArchivedTasks(user.getId());
+                page = archiveService.getUserArchivedTasksPage(user.getId(), after, size);
+                archivedTotal = archiveService.getUserArchivedTasksCount(user.getId());
             } else {
-                archivedTasks = List.of();
+                page = new KeysetPage<>(List.of(), null, size);
+                archivedTotal = 0;
             }
 
-            model.addAttribute("archivedTasks", archivedTasks);
+            model.addAttribute("archivedTasks", page.getContent());
+            model.addAttribute("archivedTotal", archivedTotal);
+            model.addAttribute("page", page);
 
             // Сообщения
             if (success != null) {
@@ -65,6 +78,41 @@ public class ArchiveController {
         }
     }
 
+    /**
+     * Просмотр задачи холодного архива (только чтение)
+     */
+    @GetMapping("/cold/{id}")
+    public String viewColdTask(@PathVariable Long id, Model model) {
+        try {
+            ProjectTask task = coldArchiveService.getTask(id).orElse(null);
+            if (task == null) {
+                return "redirect:/archive?error=not_found";
+            }
+
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User currentUser = userService.getUserByUsername(auth.getName()).orElse(null);
+
+            if (currentUser == null) {
+                return "redirect:/login";
+            }
+
+            if (currentUser.getRole().equals("USER")) {
+                boolean hasAccess = task.getAssignees().stream()
+                        .anyMatch(user -> user.getId().equals(currentUser.getId()));
+
+                if (!hasAccess) {
+                    return "redirect:/archive?error=access_denied";
+                }
+            }
+
+            model.addAttribute("task", task);
+            return "view-task";
+
+        } catch (Exception e) {
+            return "redirect:/archive?error=load";
+        }
+    }
+
     /**
      * Архивировать задачу
      */
@@ -129,6 +177,8 @@ public class ArchiveController {
             case "unarchive": return "Ошибка восстановления задачи!";
             case "delete": return "Ошибка удаления задачи!";
             case "not_found": return "Задача не найдена или не в архиве!";
+            case "access_denied": return "Доступ запрещен!";
+            case "load": return "Ошибка загрузки задачи!";
             default: return "Произошла ошибка!";
         }
     }
@@ -1,10 +1,8 @@
 package com.company.taskmanagement.controller;
 
-import com.company.taskmanagement.model.ProjectTask;
 import com.company.taskmanagement.model.User;
-import com.company.taskmanagement.service.ProjectTaskService;
+import com.company.taskmanagement.service.DashboardStatisticsService;
 import com.company.taskmanagement.service.UserService;
-import com.company.taskmanagement.service.ArchiveService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -12,8 +10,6 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
-import java.util.List;
-
 @Controller
 public class AuthController {
 
@@ -21,10 +17,7 @@ public class AuthController {
     private UserService userService;
 
     @Autowired
-    private ProjectTaskService taskService;
-
-    @Autowired
-    private ArchiveService archiveService;
+    private DashboardStatisticsService dashboardStatisticsService;
 
     @GetMapping("/chat")
     public String chatPage(Model model, Authentication authentication) {
@@ -65,45 +58,22 @@ public class AuthController {
 
             model.addAttribute("currentUser", currentUser);
 
+            // Все числа считаются групповыми COUNT в БД
+            DashboardStatisticsService.DashboardStatistics stats =
+                    dashboardStatisticsService.getStatisticsFor(currentUser);
+
             if (currentUser.getRole().equals("ADMIN")) {
                 // Для администратора
-                model.addAttribute("totalUsers", userService.getAllUsers().size());
-                model.addAttribute("totalTasks", taskService.getAllTasks().size());
-
-                // Получаем реальные данные о задачах
-                List<ProjectTask> allTasks = taskService.getAllTasks();
-                long activeTasksCount = allTasks.stream()
-                        .filter(task -> !task.isArchived())
-                        .count();
-                long archivedTasksCount = allTasks.stream()
-                        .filter(task -> task.isArchived())
-                        .count();
-
-                model.addAttribute("totalActiveTasks", activeTasksCount);
-                model.addAttribute("totalArchivedTasks", archivedTasksCount);
-
+                model.addAttribute("totalUsers", stats.getTotalUsers());
+                model.addAttribute("totalTasks", stats.getTotalTasks());
             } else {
                 // Для обычного пользователя
-                List<ProjectTask> userTasks = taskService.getTasksByUser(currentUser);
-                List<ProjectTask> userActiveTasks = archiveService.getUserActiveTasks(currentUser.getId());
-                List<ProjectTask> userArchivedTasks = archiveService.getUserArchivedTasks(currentUser.getId());
-
-                model.addAttribute("userTasks", userTasks);
-                model.addAttribute("userActiveTasks", userActiveTasks);
-                model.addAttribute("userArchivedTasks", userArchivedTasks);
-
-                long completedTasks = userTasks.stream()
-                        .filter(task -> task.getStatus() == ProjectTask.TaskStatus.COMPLETED)
-                        .count();
-                long pendingTasks = userTasks.stream()
-                        .filter(task -> task.getStatus() == ProjectTask.TaskStatus.PENDING)
-                        .count();
-
-                model.addAttribute("completedTasks", completedTasks);
-                model.addAttribute("pendingTasks", pendingTasks);
-                model.addAttribute("totalActiveTasks", userActiveTasks.size());
-                model.addAttribute("totalArchivedTasks", userArchivedTasks.size());
+                model.addAttribute("userTasksCount", stats.getTotalTasks());
+                model.addAttribute("completedTasks", stats.getCompletedTasks());
+                model.addAttribute("pendingTasks", stats.getPendingTasks());
             }
+            model.addAttribute("totalActiveTasks", stats.getActiveTasks());
+            model.addAttribute("totalArchivedTasks", stats.getArchivedTasks());
 
             return "dashboard";
         } catch (Exception e) {
@@ -1,28 +1,33 @@
 package com.company.taskmanagement.controller;
 
 import com.company.taskmanagement.model.ChatMessage;
+import com.company.taskmanagement.model.StoredBlob;
+import com.company.taskmanagement.model.ReactionDelta;
+import com.company.taskmanagement.service.BlobStore;
+import com.company.taskmanagement.service.ChatEventBroadcaster;
 import com.company.taskmanagement.service.ChatService;
+import com.company.taskmanagement.service.FileDownloadService;
+import com.company.taskmanagement.service.FileStorageService;
+import com.company.taskmanagement.service.MultipartStreamParser;
+import com.company.taskmanagement.service.UploadInspector;
 import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/chat")
@@ -31,6 +36,15 @@ public class ChatController {
     @Autowired
     private ChatService chatService;
 
+    @Autowired
+    private ChatEventBroadcaster chatEventBroadcaster;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private BlobStore blobStore;
+
     private final String FILE_UPLOAD_DIR = "chat-uploads";
 
     // Создаем директорию при инициализации
@@ -60,6 +74,25 @@ public class ChatController {
         return chatService.getRecentMessages(limit);
     }
 
+    // Push-канал новых сообщений и реакций; пропуски после переподключения клиент догружает через afterId
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Authentication authentication) {
+        chatService.userConnected(authentication.getName());
+        return chatEventBroadcaster.subscribe(authentication.getName());
+    }
+
+    // Клиент периодически подтверждает, что чат открыт; в ответ - число пользователей онлайн
+    @PostMapping("/heartbeat")
+    public int heartbeat(Authentication authentication) {
+        chatService.userConnected(authentication.getName());
+        return chatService.getOnlineUsersCount();
+    }
+
+    @GetMapping("/stream-stats")
+    public ChatEventBroadcaster.BroadcasterStats getStreamStats() {
+        return chatEventBroadcaster.getStats();
+    }
+
     @PostMapping("/send")
     public ChatMessage sendMessage(@RequestParam String text, Authentication authentication) {
         try {
@@ -67,8 +100,10 @@ public class ChatController {
             System.out.println("From: " + authentication.getName());
             System.out.println("Text: " + text);
 
+            chatService.userConnected(authentication.getName());
+
+            // ID присваивает ChatService
             ChatMessage message = new ChatMessage();
-            message.setId(System.currentTimeMillis());
             message.setSender(authentication.getName());
             message.setText(text);
             message.setTimestamp(LocalDateTime.now());
@@ -85,61 +120,57 @@ public class ChatController {
         }
     }
 
+    // Тело multipart читается потоком прямо в хранилище, без временного файла контейнера.
+    // CSRF-токен передается заголовком X-CSRF-TOKEN: чтение параметра разобрало бы тело заранее
     @PostMapping("/upload-file")
-    public ChatMessage uploadFile(
-            @RequestParam("file") MultipartFile file,
-            Authentication authentication) {
+    public ChatMessage uploadFile(HttpServletRequest request, Authentication authentication) {
 
         try {
             System.out.println("=== FILE UPLOAD STARTED ===");
-            System.out.println("File name: " + file.getOriginalFilename());
-            System.out.println("File size: " + file.getSize());
-            System.out.println("Content type: " + file.getContentType());
 
-            if (file.isEmpty()) {
-                System.err.println("File is empty");
-                return ChatMessage.error("Файл пустой");
+            String boundary = MultipartStreamParser.boundaryOf(request.getContentType());
+            if (boundary == null) {
+                return ChatMessage.error("Ожидается multipart/form-data");
             }
 
-            if (file.getSize() > 10 * 1024 * 1024) {
-                System.err.println("File too large: " + file.getSize());
-                return ChatMessage.error("Размер файла превышает 10MB");
+            MultipartStreamParser parser = new MultipartStreamParser(request.getInputStream(), boundary);
+            MultipartStreamParser.Part part;
+            while ((part = parser.next()) != null) {
+                if ("file".equals(part.getName()) && part.getFilename() != null) {
+                    break;
+                }
             }
-
-            // Проверяем и создаем директорию
-            Path uploadPath = Paths.get(FILE_UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-                System.out.println("Created upload directory");
+            if (part == null || part.getFilename().isBlank()) {
+                System.err.println("File is empty");
+                return ChatMessage.error("Файл пустой");
             }
 
-            // Генерируем уникальное имя файла
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = getFileExtension(originalFilename);
-            String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
+            String originalFilename = part.getFilename();
+            System.out.println("File name: " + originalFilename);
 
-            Path targetLocation = uploadPath.resolve(uniqueFilename);
-            System.out.println("Saving file to: " + targetLocation.toAbsolutePath());
-
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-
-            // Проверяем что файл сохранился
-            if (!Files.exists(targetLocation)) {
-                throw new IOException("File was not saved properly");
+            // Размер, SHA-256 и сигнатура считаются за один проход записи;
+            // повторная отправка того же файла не занимает место
+            UploadInspector inspector = new UploadInspector(part.getInputStream(), FileStorageService.MAX_FILE_SIZE);
+            StoredBlob blob = blobStore.store(inspector);
+            if (blob.getSize() == 0) {
+                blobStore.release(blob.getSha256());
+                System.err.println("File is empty");
+                return ChatMessage.error("Файл пустой");
             }
+            String contentType = inspector.resolveContentType(part.getContentType());
+            long fileSize = blob.getSize();
+            System.out.println("File saved successfully. Size: " + fileSize + ", type: " + contentType + ", blob: " + blob.getSha256());
 
-            long fileSize = Files.size(targetLocation);
-            System.out.println("File saved successfully. Size: " + fileSize);
-
-            // Создаем сообщение с файлом
+            // Создаем сообщение с файлом: ссылка /api/chat/files/<id сообщения> появится с присвоением id
             ChatMessage fileMessage = ChatMessage.file(
                     authentication.getName(),
                     originalFilename,
-                    "/api/chat/download/" + uniqueFilename,
+                    null,
                     fileSize,
-                    file.getContentType()
+                    contentType
             );
-            fileMessage.setId(System.currentTimeMillis());
+            // Ссылку на blob держит сообщение: ее снимает журнал чата, когда сообщение удаляется
+            fileMessage.setBlobHash(blob.getSha256());
             fileMessage.setTimestamp(LocalDateTime.now());
 
             ChatMessage savedMessage = chatService.saveMessage(fileMessage);
@@ -149,7 +180,6 @@ public class ChatController {
 
         } catch (IOException e) {
             System.err.println("File upload error: " + e.getMessage());
-            e.printStackTrace();
             return ChatMessage.error("Ошибка загрузки файла: " + e.getMessage());
         } catch (Exception e) {
             System.err.println("Unexpected error during file upload: " + e.getMessage());
@@ -158,49 +188,46 @@ public class ChatController {
         }
     }
 
-    @GetMapping("/download/{filename}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String filename) {
-        try {
-            System.out.println("Download requested for file: " + filename);
-
-            Path filePath = Paths.get(FILE_UPLOAD_DIR).resolve(filename).normalize();
-            System.out.println("Resolved file path: " + filePath.toAbsolutePath());
-
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (!resource.exists()) {
-                System.err.println("File not found: " + filePath.toAbsolutePath());
-                return ResponseEntity.notFound().build();
-            }
-
-            if (!resource.isReadable()) {
-                System.err.println("File is not readable: " + filePath.toAbsolutePath());
-                return ResponseEntity.status(500).build();
-            }
+    // Файл сообщения: имя и MIME-тип из сообщения, содержимое - из хранилища по хэшу
+    @GetMapping("/files/{messageId}")
+    public void downloadMessageFile(@PathVariable Long messageId,
+                                    HttpServletRequest request,
+                                    HttpServletResponse response) throws IOException {
+        ChatMessage fileMessage = chatService.getFileMessage(messageId);
+        if (fileMessage == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        fileDownloadService.serve(blobStore.pathFor(fileMessage.getBlobHash()), fileMessage.getFileType(),
+                fileMessage.getFileName(), request, response);
+    }
 
-            // Определяем Content-Type
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                contentType = "application/octet-stream";
+    // Ссылки из сообщений, отправленных до ссылок по id сообщения
+    @GetMapping("/download/{filename}")
+    public void downloadFile(@PathVariable String filename,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        Path filePath;
+        if (BlobStore.isHash(filename)) {
+            filePath = blobStore.pathFor(filename);
+        } else {
+            // Файлы, загруженные до хранилища по содержимому
+            Path uploadPath = Paths.get(FILE_UPLOAD_DIR).toAbsolutePath().normalize();
+            filePath = uploadPath.resolve(filename).normalize();
+            if (!filePath.startsWith(uploadPath)) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
             }
-
-            System.out.println("File download successful. Content-Type: " + contentType);
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=\"" + resource.getFilename() + "\"")
-                    .body(resource);
-
-        } catch (Exception e) {
-            System.err.println("File download error: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.notFound().build();
         }
+
+        // Имя в ссылке не связано с конкретным сообщением (одинаковые файлы хранятся один раз):
+        // тип определяется по файлу, исходное имя задает атрибут download в чате
+        String contentType = Files.exists(filePath) ? Files.probeContentType(filePath) : null;
+        fileDownloadService.serve(filePath, contentType, filename, request, response);
     }
 
     @PostMapping("/react/{messageId}")
-    public ChatMessage addReaction(
+    public ReactionDelta addReaction(
             @PathVariable Long messageId,
             @RequestParam String emoji,
             Authentication authentication) {
@@ -210,7 +237,7 @@ public class ChatController {
     }
 
     @DeleteMapping("/react/{messageId}")
-    public ChatMessage removeReaction(
+    public ReactionDelta removeReaction(
             @PathVariable Long messageId,
             @RequestParam String emoji,
             Authentication authentication) {
@@ -219,6 +246,12 @@ public class ChatController {
         return chatService.removeReaction(messageId, emoji, authentication.getName());
     }
 
+    // Реакции текущего пользователя, чтобы после загрузки страницы подсветить поставленные
+    @GetMapping("/my-reactions")
+    public Map<Long, List<String>> getMyReactions(Authentication authentication) {
+        return chatService.getUserReactions(authentication.getName());
+    }
+
     @GetMapping("/emojis")
     public Set<String> getAvailableEmojis() {
         return chatService.getAvailableEmojis();
@@ -228,11 +261,4 @@ public class ChatController {
     public List<String> getOnlineUsers() {
         return chatService.getOnlineUsers();
     }
-
-    private String getFileExtension(String filename) {
-        if (filename == null || !filename.contains(".")) {
-            return "";
-        }
-        return filename.substring(filename.lastIndexOf("."));
-    }
-}
\ No newline at end of file
+}
@@ -1,22 +1,36 @@
 package com.company.taskmanagement.controller;
 
+import com.company.taskmanagement.model.FileAttachment;
+import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.service.BlobStore;
+import com.company.taskmanagement.service.ColdArchiveService;
+import com.company.taskmanagement.service.FileDownloadService;
 import com.company.taskmanagement.service.FileStorageService;
+import com.company.taskmanagement.service.MultipartStreamParser;
+import com.company.taskmanagement.service.ProjectTaskService;
+import com.company.taskmanagement.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.IOException;
-import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/files")
@@ -25,24 +39,141 @@ public class FileController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ProjectTaskService projectTaskService;
+
+    @Autowired
+    private ColdArchiveService coldArchiveService;
+
+    @Autowired
+    private UserService userService;
+
+    // Потоковая загрузка обходит max-request-size, поэтому число частей ограничено отдельно
+    @Value("${file.upload.max-parts:20}")
+    private int maxParts;
+
     @GetMapping("/download/{fileId}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable Long fileId) {
+    public void downloadFile(@PathVariable Long fileId,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        FileAttachment attachment;
+        try {
+            attachment = fileStorageService.getFile(fileId);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // Тип файла сохранен при загрузке, повторно не определяется
+        fileDownloadService.serve(Paths.get(attachment.getFilePath()), attachment.getContentType(),
+                attachment.getOriginalFilename(), request, response);
+    }
+
+    /**
+     * Скачивание вложения задачи из холодного архива. Строк file_attachments у таких задач нет,
+     * файл находится по хэшу blob из payload записи архива
+     */
+    @GetMapping("/cold/{taskId}/{fileId}")
+    public void downloadColdFile(@PathVariable Long taskId,
+                                 @PathVariable Long fileId,
+                                 Authentication authentication,
+                                 HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        ProjectTask task = coldArchiveService.getTask(taskId).orElse(null);
+        if (task == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Доступ как к просмотру задачи: администратор или исполнитель
+        User user = userService.getUserByUsername(authentication.getName()).orElse(null);
+        boolean hasAccess = user != null && ("ADMIN".equals(user.getRole())
+                || task.getAssignees().stream().anyMatch(assignee -> assignee.getId().equals(user.getId())));
+        if (!hasAccess) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        FileAttachment attachment = task.getAttachments().stream()
+                .filter(file -> fileId.equals(file.getId()))
+                .findFirst().orElse(null);
+        if (attachment == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        fileDownloadService.serve(attachment.getBlobHash() != null
+                        ? blobStore.pathFor(attachment.getBlobHash())
+                        : Paths.get(attachment.getFilePath()),
+                attachment.getContentType(), attachment.getOriginalFilename(), request, response);
+    }
+
+    /**
+     * Потоковая загрузка вложений: части multipart пишутся сразу в хранилище,
+     * без буферизации тела запроса во временные файлы контейнера.
+     * CSRF-токен передается заголовком X-CSRF-TOKEN
+     */
+    @PostMapping("/upload-stream/{taskId}")
+    @ResponseBody
+    public ResponseEntity<?> uploadStream(@PathVariable Long taskId, HttpServletRequest request,
+                                          Authentication authentication) {
+        // Права проверяются до чтения тела: прикреплять файлы может исполнитель задачи или администратор
+        User user = userService.getUserByUsername(authentication.getName()).orElse(null);
+        if (!projectTaskService.canEdit(taskId, user)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Доступ запрещен"));
+        }
+
+        String boundary = MultipartStreamParser.boundaryOf(request.getContentType());
+        if (boundary == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Ожидается multipart/form-data"));
+        }
+
+        List<Map<String, Object>> uploaded = new ArrayList<>();
         try {
-            var attachment = fileStorageService.getFile(fileId);
-            Path filePath = Paths.get(attachment.getFilePath());
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                        .header(HttpHeaders.CONTENT_DISPOSITION,
-                                "attachment; filename=\"" + attachment.getOriginalFilename() + "\"")
-                        .body(resource);
+            MultipartStreamParser parser = new MultipartStreamParser(request.getInputStream(), boundary);
+            MultipartStreamParser.Part part;
+            int parts = 0;
+            while ((part = parser.next()) != null) {
+                if (++parts > maxParts) {
+                    return ResponseEntity.badRequest().body(Map.of(
+                            "error", "Слишком много частей в запросе (не больше " + maxParts + ")",
+                            "uploaded", uploaded));
+                }
+                // Пустое поле выбора файла браузер присылает с filename=""
+                if (part.getFilename() == null || part.getFilename().isEmpty()) {
+                    continue;
+                }
+                FileAttachment attachment = fileStorageService.storeStreamForTask(
+                        taskId, part.getFilename(), part.getContentType(), part.getInputStream());
+                System.out.println("✅ Файл загружен потоком: " + attachment.getOriginalFilename() +
+                        " (" + attachment.getFileSize() + " байт)");
+
+                Map<String, Object> info = new LinkedHashMap<>();
+                info.put("id", attachment.getId());
+                info.put("originalFilename", attachment.getOriginalFilename());
+                info.put("fileSize", attachment.getFileSize());
+                info.put("contentType", attachment.getContentType());
+                info.put("sha256", attachment.getBlobHash());
+                uploaded.add(info);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            System.err.println("❌ Ошибка потоковой загрузки: " + e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage(), "uploaded", uploaded));
         }
-        return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(uploaded);
+    }
+
+    // Экономия места от хранения одинаковых файлов один раз
+    @GetMapping("/storage-stats")
+    @ResponseBody
+    public BlobStore.DedupStats getStorageStats() {
+        return blobStore.getStats();
     }
 
     @PostMapping("/delete/{fileId}")
@@ -4,9 +4,14 @@ import com.company.taskmanagement.model.ProjectTask;
 import com.company.taskmanagement.model.User;
 import com.company.taskmanagement.service.ArchiveService;
 import com.company.taskmanagement.service.FileStorageService;
+import com.company.taskmanagement.service.KeysetPage;
 import com.company.taskmanagement.service.ProjectTaskService;
 import com.company.taskmanagement.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -18,8 +23,11 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/tasks")
@@ -85,7 +93,7 @@ public class ProjectTaskController {
             if (files != null && !files.isEmpty()) {
                 for (MultipartFile file : files) {
                     if (file != null && !file.isEmpty()) {
-                        fileStorageService.storeFileForTask(file, savedTask.getId());
+                        fileStorageService.storeFileForTask(file, savedTask);
                         fileCount++;
                     }
                 }
@@ -106,6 +114,8 @@ public class ProjectTaskController {
     @GetMapping
     public String tasks(@RequestParam(required = false) String success,
                         @RequestParam(required = false) String error,
+                        @RequestParam(required = false) Long after,
+                        @RequestParam(defaultValue = "" + ArchiveService.DEFAULT_PAGE_SIZE) int size,
                         Model model) {
         try {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -113,11 +123,14 @@ public class ProjectTaskController {
             User user = userService.getUserByUsername(username).orElse(null);
 
             if (user != null) {
+                KeysetPage<ProjectTask> page;
                 if (user.getRole().equals("ADMIN")) {
-                    model.addAttribute("tasks", archiveService.getActiveTasks());
+                    page = archiveService.getActiveTasksPage(after, size);
                 } else {
-                    model.addAttribute("tasks", archiveService.getUserActiveTasks(user.getId()));
+                    page = archiveService.getUserActiveTasksPage(user.getId(), after, size);
                 }
+                model.addAttribute("tasks", page.getContent());
+                model.addAttribute("page", page);
             }
 
             if (success != null) {
@@ -175,8 +188,11 @@ public class ProjectTaskController {
                              @RequestParam String priority,
                              @RequestParam(required = false) String dueDate,
                              @RequestParam(required = false) Set<Long> userIds,
+                             @RequestParam(required = false) Long version,
                              @RequestParam(value = "newFiles", required = false) List<MultipartFile> newFiles,
                              @RequestParam(value = "deleteFiles", required = false) List<Long> filesToDelete,
+                             Model model,
+                             HttpServletResponse response,
                              RedirectAttributes redirectAttributes) {
 
         try {
@@ -208,8 +224,8 @@ public class ProjectTaskController {
                 existingTask.setDueDate(null);
             }
 
-            // Update task
-            ProjectTask updatedTask = projectTaskService.updateTask(id, existingTask);
+            // Update task (version from the form: the task must not have changed since it was opened)
+            ProjectTask updatedTask = projectTaskService.updateTask(id, version, existingTask);
 
             // Handle file deletion
             int deletedFilesCount = 0;
@@ -229,7 +245,7 @@ public class ProjectTaskController {
             if (newFiles != null && !newFiles.isEmpty()) {
                 for (MultipartFile file : newFiles) {
                     if (file != null && !file.isEmpty()) {
-                        fileStorageService.storeFileForTask(file, updatedTask.getId());
+                        fileStorageService.storeFileForTask(file, updatedTask);
                         newFilesCount++;
                     }
                 }
@@ -247,12 +263,71 @@ public class ProjectTaskController {
             redirectAttributes.addFlashAttribute("successMessage", successMessage);
             return "redirect:/tasks?success=updated";
 
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Показываем текущее состояние задачи с новой версией, правки пользователя не сохранены
+            response.setStatus(HttpStatus.CONFLICT.value());
+            model.addAttribute("task", projectTaskService.getTaskById(id).orElse(null));
+            model.addAttribute("users", userService.getAllUsers());
+            model.addAttribute("errorMessage",
+                    "Задачу уже изменил другой пользователь. Проверьте текущие данные и повторите правку.");
+            return "update-task";
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Error updating task: " + e.getMessage());
             return "redirect:/tasks/update/" + id;
         }
     }
 
+    /**
+     * Частичное обновление задачи (JSON). version - версия, которую видел клиент;
+     * если задачу уже изменили, ответ 409 с текущей версией
+     */
+    @PatchMapping("/{id}")
+    @ResponseBody
+    public ResponseEntity<?> patchTask(@PathVariable Long id,
+                                       @RequestParam long version,
+                                       @RequestBody ProjectTaskService.TaskPatch patch) {
+        try {
+            ProjectTask task = projectTaskService.getTaskById(id).orElse(null);
+            if (task == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Задача не найдена"));
+            }
+            if (!canEdit(task)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Доступ запрещен"));
+            }
+
+            ProjectTask updated = projectTaskService.patchTask(id, version, patch);
+            return ResponseEntity.ok(toJson(updated));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            Map<String, Object> conflict = new LinkedHashMap<>();
+            conflict.put("error", "Задачу уже изменил другой пользователь");
+            projectTaskService.getTaskById(id).ifPresent(current -> conflict.put("currentVersion", current.getVersion()));
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(conflict);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Пользователь правит только свои задачи, администратор - любые
+    private boolean canEdit(ProjectTask task) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        User currentUser = auth != null ? userService.getUserByUsername(auth.getName()).orElse(null) : null;
+        return projectTaskService.canEdit(task.getId(), currentUser);
+    }
+
+    private Map<String, Object> toJson(ProjectTask task) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", task.getId());
+        json.put("version", task.getVersion());
+        json.put("title", task.getTitle());
+        json.put("description", task.getDescription());
+        json.put("status", task.getStatus());
+        json.put("priority", task.getPriority());
+        json.put("dueDate", task.getDueDate());
+        json.put("completedDate", task.getCompletedDate());
+        json.put("assigneeIds", task.getAssignees().stream().map(User::getId).collect(Collectors.toSet()));
+        return json;
+    }
+
     @PostMapping("/delete/{id}")
     public String deleteTask(@PathVariable Long id) {
         try {
@@ -296,7 +371,8 @@ public class ProjectTaskController {
     @GetMapping("/view/{id}")
     public String viewTask(@PathVariable Long id, Model model) {
         try {
-            ProjectTask task = projectTaskService.getTaskById(id).orElse(null);
+            // Исполнители и файлы загружаются одним запросом
+            ProjectTask task = projectTaskService.getTaskWithDetails(id).orElse(null);
             if (task == null) {
                 return "redirect:/tasks?error=not_found";
             }
@@ -318,11 +394,6 @@ public class ProjectTaskController {
                 }
             }
 
-            // Загружаем файлы для задачи
-            var attachments = fileStorageService.getTaskFiles(id);
-            task.getAttachments().clear();
-            task.getAttachments().addAll(attachments);
-
             model.addAttribute("task", task);
             return "view-task";
 
@@ -12,7 +12,9 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 
 @Controller
@@ -61,19 +63,7 @@ public class ReportController {
             byte[] excelContent = reportService.generateExcelReport(startDate, endDate, userId);
 
             // ФИКС: Улучшенное имя файла
-            String filename;
-            if (userId != null) {
-                var user = userService.getUserById(userId);
-                if (user.isPresent()) {
-                    filename = "отчет_" + user.get().getUsername() + "_" +
-                            startDate + "_по_" + endDate + ".csv";
-                } else {
-                    filename = "отчет_пользователя_" + userId + "_" +
-                            startDate + "_по_" + endDate + ".csv";
-                }
-            } else {
-                filename = "отчет_всех_пользователей_" + startDate + "_по_" + endDate + ".csv";
-            }
+            String filename = buildReportFilename(startDate, endDate, userId);
 
             // ФИКС: Правильные заголовки для CSV
             return ResponseEntity.ok()
@@ -88,6 +78,34 @@ public class ReportController {
         }
     }
 
+    /**
+     * Потоковое скачивание отчета в формате CSV.
+     * Строки пишутся в ответ по мере чтения из БД, файл целиком в памяти не собирается.
+     */
+    @GetMapping("/download-csv")
+    public ResponseEntity<StreamingResponseBody> downloadCsvReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long userId) {
+
+        // Валидация дат до начала потоковой передачи
+        if (startDate.isAfter(endDate)) {
+            return textError("Дата начала не может быть позже даты окончания");
+        }
+
+        if (endDate.isAfter(LocalDate.now())) {
+            return textError("Дата окончания не может быть в будущем");
+        }
+
+        String filename = buildReportFilename(startDate, endDate, userId);
+        StreamingResponseBody body = out -> reportService.writeCsvReport(out, startDate, endDate, userId);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .header(HttpHeaders.CONTENT_TYPE, "text/csv; charset=UTF-8")
+                .body(body);
+    }
+
     /**
      * Быстрый отчет за последние 7 дней
      */
@@ -95,7 +113,7 @@ public class ReportController {
     public String lastWeekReport() {
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusDays(7);
-        return "redirect:/admin/reports/download-excel?startDate=" + startDate + "&endDate=" + endDate;
+        return "redirect:/admin/reports/download-csv?startDate=" + startDate + "&endDate=" + endDate;
     }
 
     /**
@@ -105,6 +123,26 @@ public class ReportController {
     public String lastMonthReport() {
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusDays(30);
-        return "redirect:/admin/reports/download-excel?startDate=" + startDate + "&endDate=" + endDate;
+        return "redirect:/admin/reports/download-csv?startDate=" + startDate + "&endDate=" + endDate;
+    }
+
+    private String buildReportFilename(LocalDate startDate, LocalDate endDate, Long userId) {
+        if (userId != null) {
+            var user = userService.getUserById(userId);
+            if (user.isPresent()) {
+                return "отчет_" + user.get().getUsername() + "_" +
+                        startDate + "_по_" + endDate + ".csv";
+            }
+            return "отчет_пользователя_" + userId + "_" +
+                    startDate + "_по_" + endDate + ".csv";
+        }
+        return "отчет_всех_пользователей_" + startDate + "_по_" + endDate + ".csv";
+    }
+
+    private ResponseEntity<StreamingResponseBody> textError(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.badRequest()
+                .header(HttpHeaders.CONTENT_TYPE, "text/plain; charset=UTF-8")
+                .body(out -> out.write(bytes));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.company.taskmanagement.controller;
+
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.repository.TaskVersionRow;
+import com.company.taskmanagement.service.ArchiveService;
+import com.company.taskmanagement.service.KeysetPage;
+import com.company.taskmanagement.service.TaskApiService;
+import com.company.taskmanagement.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+
+/**
+ * REST API задач для интеграций. Ответы содержат ETag: клиент повторяет запрос
+ * с If-None-Match и получает 304, пока задачи не изменились
+ */
+@RestController
+@RequestMapping("/api/tasks")
+public class TaskApiController {
+
+    @Autowired
+    private TaskApiService taskApiService;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Страница задач (keyset по id). Пользователь видит только свои задачи,
+     * администратор - все или задачи исполнителя assigneeId
+     */
+    @GetMapping
+    public ResponseEntity<?> getTasks(@RequestParam(defaultValue = "false") boolean archived,
+                                      @RequestParam(required = false) ProjectTask.TaskStatus status,
+                                      @RequestParam(required = false) ProjectTask.TaskPriority priority,
+                                      @RequestParam(required = false) Long assigneeId,
+                                      @RequestParam(required = false) Long after,
+                                      @RequestParam(defaultValue = "" + ArchiveService.DEFAULT_PAGE_SIZE) int size,
+                                      Authentication authentication,
+                                      WebRequest request) {
+        User user = userService.getUserByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Long assignee = "ADMIN".equals(user.getRole()) ? assigneeId : user.getId();
+
+        KeysetPage<TaskVersionRow> versions = taskApiService.findPage(archived, status, priority, assignee, after, size);
+        String etag = taskApiService.pageETag(versions);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(taskApiService.load(versions));
+    }
+
+    /**
+     * Одна задача
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getTask(@PathVariable Long id, Authentication authentication, WebRequest request) {
+        User user = userService.getUserByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        TaskApiService.TaskSummary task = taskApiService.getTask(id).orElse(null);
+        if (task == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Задача не найдена"));
+        }
+        if (!"ADMIN".equals(user.getRole()) && !task.getAssigneeIds().contains(user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Доступ запрещен"));
+        }
+
+        String etag = taskApiService.taskETag(task);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(task);
+    }
+}
@@ -0,0 +1,79 @@
+package com.company.taskmanagement.controller;
+
+import com.company.taskmanagement.service.MultipartStreamParser;
+import com.company.taskmanagement.service.TaskImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+@RequestMapping("/admin/tasks/import")
+@PreAuthorize("hasRole('ADMIN')")
+public class TaskImportController {
+
+    @Autowired
+    private TaskImportService taskImportService;
+
+    /**
+     * Запуск импорта: multipart с частью tasks (CSV или JSON) и необязательной attachments (zip).
+     * Тело читается потоком, архив не ограничен лимитом multipart контейнера;
+     * CSRF-токен передается заголовком X-CSRF-TOKEN
+     */
+    @PostMapping
+    @ResponseBody
+    public ResponseEntity<?> startImport(HttpServletRequest request) {
+        String boundary = MultipartStreamParser.boundaryOf(request.getContentType());
+        if (boundary == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Ожидается multipart/form-data"));
+        }
+
+        List<TaskImportService.ImportRow> rows = null;
+        Path archive = null;
+        try {
+            MultipartStreamParser parser = new MultipartStreamParser(request.getInputStream(), boundary);
+            MultipartStreamParser.Part part;
+            while ((part = parser.next()) != null) {
+                if ("tasks".equals(part.getName())) {
+                    rows = taskImportService.parseRows(part.getFilename(), part.getInputStream());
+                } else if ("attachments".equals(part.getName()) && part.getFilename() != null
+                        && !part.getFilename().isEmpty() && archive == null) {
+                    archive = taskImportService.saveArchive(part.getInputStream());
+                }
+            }
+            if (rows == null || rows.isEmpty()) {
+                taskImportService.deleteArchive(archive);
+                return ResponseEntity.badRequest().body(Map.of("error", "Файл задач пустой или не передан"));
+            }
+
+            TaskImportService.ImportJob job = taskImportService.submit(rows, archive);
+            return ResponseEntity.accepted().body(job);
+
+        } catch (IOException | IllegalArgumentException e) {
+            taskImportService.deleteArchive(archive);
+            System.err.println("❌ Ошибка запуска импорта: " + e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", "Ошибка чтения файла импорта: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Прогресс задания импорта
+     */
+    @GetMapping("/{jobId}")
+    @ResponseBody
+    public ResponseEntity<TaskImportService.ImportJob> getImportJob(@PathVariable String jobId) {
+        TaskImportService.ImportJob job = taskImportService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+}
@@ -1,6 +1,7 @@
 package com.company.taskmanagement.controller;
 
 import com.company.taskmanagement.service.TelegramGroupNotificationService;
+import com.company.taskmanagement.service.TelegramNotificationDispatcher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +14,9 @@ public class TelegramGroupController {
     @Autowired
     private TelegramGroupNotificationService telegramService;
 
+    @Autowired
+    private TelegramNotificationDispatcher notificationDispatcher;
+
     @Value("${telegram.bot.group-id:}")
     private String groupChatId;
 
@@ -67,4 +71,12 @@ public class TelegramGroupController {
             return ResponseEntity.badRequest().body("❌ Ошибка: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Метрики асинхронной очереди уведомлений (глубина очереди, задержка доставки)
+     */
+    @GetMapping("/queue-stats")
+    public TelegramNotificationDispatcher.DispatcherStats getQueueStats() {
+        return notificationDispatcher.getStats();
+    }
+}
@@ -0,0 +1,128 @@
+package com.company.taskmanagement.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Задача в холодном архиве: давно архивированные задачи переносятся сюда из tasks.
+ * Поля для списков и фильтров хранятся колонками, описание и метаданные
+ * вложений - одним сжатым блоком payload (формат в ColdArchiveService)
+ */
+@Entity
+@Table(name = "archived_tasks", indexes = {
+        @Index(name = "idx_archived_tasks_month", columnList = "archive_month")
+})
+public class ArchivedTask {
+
+    // id исходной задачи: последовательность tasks_seq его повторно не выдаст
+    @Id
+    private Long id;
+
+    // Месяц архивации в виде yyyyMM - ключ для выборок и очистки по месяцам
+    @Column(name = "archive_month", nullable = false)
+    private int archiveMonth;
+
+    @Column(nullable = false, length = 255)
+    private String title;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ProjectTask.TaskStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ProjectTask.TaskPriority priority;
+
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDate createdAt;
+
+    @Column(name = "completed_date")
+    private LocalDate completedDate;
+
+    @Column(name = "archived_date", nullable = false)
+    private LocalDate archivedDate;
+
+    @Column(name = "moved_at", nullable = false)
+    private LocalDateTime movedAt;
+
+    // Только id исполнителей: строка пользователя не нужна для хранения
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "archived_task_assignees",
+            joinColumns = @JoinColumn(name = "task_id"),
+            indexes = @Index(name = "idx_archived_task_assignees_user", columnList = "user_id"))
+    @Column(name = "user_id", nullable = false)
+    private Set<Long> assigneeIds = new HashSet<>();
+
+    // Описание, дата смены статуса и вложения: gzip JSON
+    @Lob
+    @Column(name = "payload", nullable = false, length = 16_777_215)
+    private byte[] payload;
+
+    public ArchivedTask() {
+        this.movedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Ключ месяца архивации для даты
+     */
+    public static int monthOf(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    // Геттеры и сеттеры
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public int getArchiveMonth() { return archiveMonth; }
+    public void setArchiveMonth(int archiveMonth) { this.archiveMonth = archiveMonth; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public ProjectTask.TaskStatus getStatus() { return status; }
+    public void setStatus(ProjectTask.TaskStatus status) { this.status = status; }
+
+    public ProjectTask.TaskPriority getPriority() { return priority; }
+    public void setPriority(ProjectTask.TaskPriority priority) { this.priority = priority; }
+
+    public LocalDate getDueDate() { return dueDate; }
+    public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
+
+    public LocalDate getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDate createdAt) { this.createdAt = createdAt; }
+
+    public LocalDate getCompletedDate() { return completedDate; }
+    public void setCompletedDate(LocalDate completedDate) { this.completedDate = completedDate; }
+
+    public LocalDate getArchivedDate() { return archivedDate; }
+    public void setArchivedDate(LocalDate archivedDate) { this.archivedDate = archivedDate; }
+
+    public LocalDateTime getMovedAt() { return movedAt; }
+    public void setMovedAt(LocalDateTime movedAt) { this.movedAt = movedAt; }
+
+    public Set<Long> getAssigneeIds() { return assigneeIds; }
+    public void setAssigneeIds(Set<Long> assigneeIds) { this.assigneeIds = assigneeIds; }
+
+    public byte[] getPayload() { return payload; }
+    public void setPayload(byte[] payload) { this.payload = payload; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ArchivedTask that = (ArchivedTask) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
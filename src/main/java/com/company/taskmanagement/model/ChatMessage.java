@@ -1,8 +1,8 @@
 package com.company.taskmanagement.model;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.Map;
 
 public class ChatMessage {
     private Long id;
@@ -10,11 +10,13 @@ public class ChatMessage {
     private String text;
     private LocalDateTime timestamp;
     private MessageType type = MessageType.MESSAGE;
-    private Set<String> reactions = new HashSet<>();
+    private final MessageReactions reactions = new MessageReactions();
     private String fileName;
     private String fileUrl;
     private Long fileSize;
     private String fileType;
+    // SHA-256 файла в хранилище по содержимому; ссылка на скачивание строится по id сообщения
+    private String blobHash;
 
     // Конструкторы
     public ChatMessage() {
@@ -78,13 +80,19 @@ public class ChatMessage {
     public MessageType getType() { return type; }
     public void setType(MessageType type) { this.type = type; }
 
-    public Set<String> getReactions() { return reactions; }
-    public void setReactions(Set<String> reactions) { this.reactions = reactions; }
+    // Для клиента: emoji -> число реакций
+    public Map<String, Integer> getReactions() { return reactions.counts(); }
 
     public String getFileName() { return fileName; }
     public void setFileName(String fileName) { this.fileName = fileName; }
 
-    public String getFileUrl() { return fileUrl; }
+    public String getFileUrl() {
+        // id выдается при добавлении в буфер, до публикации сообщения читателям
+        if (fileUrl == null && blobHash != null && id != null) {
+            return "/api/chat/files/" + id;
+        }
+        return fileUrl;
+    }
     public void setFileUrl(String fileUrl) { this.fileUrl = fileUrl; }
 
     public Long getFileSize() { return fileSize; }
@@ -93,13 +101,30 @@ public class ChatMessage {
     public String getFileType() { return fileType; }
     public void setFileType(String fileType) { this.fileType = fileType; }
 
+    public String getBlobHash() { return blobHash; }
+    public void setBlobHash(String blobHash) { this.blobHash = blobHash; }
+
     // Вспомогательные методы
-    public void addReaction(String emoji) {
-        this.reactions.add(emoji);
+    public ReactionDelta addReaction(String username, String emoji) {
+        int index = MessageReactions.indexOf(emoji);
+        if (index < 0) {
+            return null;
+        }
+        boolean changed = reactions.add(username, index);
+        return new ReactionDelta(id, emoji, reactions.count(index), true, changed);
+    }
+
+    public ReactionDelta removeReaction(String username, String emoji) {
+        int index = MessageReactions.indexOf(emoji);
+        if (index < 0) {
+            return null;
+        }
+        boolean changed = reactions.remove(username, index);
+        return new ReactionDelta(id, emoji, reactions.count(index), false, changed);
     }
 
-    public void removeReaction(String emoji) {
-        this.reactions.remove(emoji);
+    public List<String> reactionsOf(String username) {
+        return reactions.emojisOf(username);
     }
 
     public boolean isFileMessage() {
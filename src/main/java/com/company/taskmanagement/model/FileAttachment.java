@@ -7,8 +7,13 @@ import java.util.Objects;
 @Entity
 @Table(name = "file_attachments")
 public class FileAttachment {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Последовательность вместо IDENTITY, чтобы вставки вложений шли JDBC-пакетами
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_attachments_seq")
+    @SequenceGenerator(name = "file_attachments_seq", sequenceName = "file_attachments_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -26,6 +31,10 @@ public class FileAttachment {
     @Column(nullable = false)
     private String contentType;
 
+    // Ссылка на содержимое в BlobStore (null у файлов, загруженных до дедупликации)
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
     @Column(nullable = false)
     private LocalDateTime uploadedAt;
 
@@ -56,6 +65,9 @@ public class FileAttachment {
     public String getContentType() { return contentType; }
     public void setContentType(String contentType) { this.contentType = contentType; }
 
+    public String getBlobHash() { return blobHash; }
+    public void setBlobHash(String blobHash) { this.blobHash = blobHash; }
+
     public LocalDateTime getUploadedAt() { return uploadedAt; }
     public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
 
@@ -0,0 +1,104 @@
+package com.company.taskmanagement.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Реакции на сообщение чата: счетчик на каждый emoji и битовая маска
+ * реакций каждого пользователя (бит i - emoji EMOJIS[i]).
+ * Обновления - CAS по маске пользователя, счетчик меняется только тем потоком,
+ * который действительно переключил бит, поэтому повторный клик не накручивает счет.
+ */
+public class MessageReactions {
+
+    // Порядок задает номер бита в маске
+    public static final List<String> EMOJIS = List.of(
+            "👍", "👎", "❤️", "🔥", "🥳", "👀", "🚀", "🎉"
+    );
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(EMOJIS.size());
+    private final Map<String, AtomicInteger> userBits = new ConcurrentHashMap<>();
+
+    /**
+     * Номер emoji в маске или -1, если такой реакции нет
+     */
+    public static int indexOf(String emoji) {
+        return EMOJIS.indexOf(emoji);
+    }
+
+    /**
+     * Поставить реакцию. Возвращает false, если пользователь уже ставил ее.
+     */
+    public boolean add(String username, int index) {
+        int bit = 1 << index;
+        AtomicInteger bits = userBits.computeIfAbsent(username, name -> new AtomicInteger());
+        int previous = bits.getAndUpdate(value -> value | bit);
+        if ((previous & bit) != 0) {
+            return false;
+        }
+        counts.incrementAndGet(index);
+        return true;
+    }
+
+    /**
+     * Снять реакцию. Возвращает false, если ее не было.
+     */
+    public boolean remove(String username, int index) {
+        int bit = 1 << index;
+        AtomicInteger bits = userBits.get(username);
+        if (bits == null) {
+            return false;
+        }
+        int previous = bits.getAndUpdate(value -> value & ~bit);
+        if ((previous & bit) == 0) {
+            return false;
+        }
+        counts.decrementAndGet(index);
+        return true;
+    }
+
+    public int count(int index) {
+        return counts.get(index);
+    }
+
+    /**
+     * Маска реакций пользователя
+     */
+    public int bitsOf(String username) {
+        AtomicInteger bits = userBits.get(username);
+        return bits != null ? bits.get() : 0;
+    }
+
+    /**
+     * Emoji, поставленные пользователем
+     */
+    public List<String> emojisOf(String username) {
+        int bits = bitsOf(username);
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < EMOJIS.size(); i++) {
+            if ((bits & (1 << i)) != 0) {
+                result.add(EMOJIS.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ненулевые счетчики в порядке EMOJIS
+     */
+    public Map<String, Integer> counts() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int i = 0; i < EMOJIS.size(); i++) {
+            int count = counts.get(i);
+            if (count > 0) {
+                result.put(EMOJIS.get(i), count);
+            }
+        }
+        return result;
+    }
+}
@@ -1,12 +1,25 @@
 package com.company.taskmanagement.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks", indexes = {
+        // Списки и счетчики по признаку архива (InnoDB дописывает id, отсюда keyset по id)
+        @Index(name = "idx_tasks_archived_status", columnList = "is_archived, status"),
+        // Автоархивация: status = COMPLETED, не в архиве, completed_date < порога
+        @Index(name = "idx_tasks_status_archived_completed", columnList = "status, is_archived, completed_date"),
+        // Перенос в холодный архив по archived_date
+        @Index(name = "idx_tasks_archived_archived_date", columnList = "is_archived, archived_date"),
+        // Просроченные активные задачи
+        @Index(name = "idx_tasks_archived_due_date", columnList = "is_archived, due_date")
+})
+// UPDATE пишет только измененные колонки: частичные правки не затирают чужие поля
+@DynamicUpdate
 public class ProjectTask {
 
     // Enum для статусов задач
@@ -55,8 +68,13 @@ public class ProjectTask {
         }
     }
 
+    // Размер блока id, который Hibernate берет из последовательности за одно обращение
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Последовательность вместо IDENTITY: id известен до INSERT, поэтому вставки идут JDBC-пакетами
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
+    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false, length = 255)
@@ -91,12 +109,19 @@ public class ProjectTask {
     @Column(name = "status_changed_date")
     private LocalDate statusChangedDate;
 
+    // Оптимистическая блокировка: UPDATE проверяет версию, одновременные правки не затирают друг друга
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     // Множество исполнителей
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "task_assignees",
             joinColumns = @JoinColumn(name = "task_id"),
-            inverseJoinColumns = @JoinColumn(name = "user_id")
+            inverseJoinColumns = @JoinColumn(name = "user_id"),
+            // Первичный ключ (task_id, user_id) не помогает искать задачи пользователя
+            indexes = @Index(name = "idx_task_assignees_user_task", columnList = "user_id, task_id")
     )
     private Set<User> assignees = new HashSet<>();
 
@@ -104,6 +129,10 @@ public class ProjectTask {
     @OneToMany(mappedBy = "task", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private Set<FileAttachment> attachments = new HashSet<>();
 
+    // Задача прочитана из холодного архива (archived_tasks), а не из tasks
+    @Transient
+    private boolean coldStorage;
+
     // Конструкторы
     public ProjectTask() {
         this.status = TaskStatus.PENDING;
@@ -202,6 +231,14 @@ public class ProjectTask {
         this.archivedDate = archivedDate;
     }
 
+    public boolean isColdStorage() {
+        return coldStorage;
+    }
+
+    public void setColdStorage(boolean coldStorage) {
+        this.coldStorage = coldStorage;
+    }
+
     public LocalDate getCompletedDate() {
         return completedDate;
     }
@@ -218,6 +255,14 @@ public class ProjectTask {
         this.statusChangedDate = statusChangedDate;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Set<User> getAssignees() {
         return assignees;
     }
@@ -283,8 +328,8 @@ public class ProjectTask {
 
     public boolean shouldAutoArchive() {
         return isCompleted() && !archived &&
-                createdAt != null &&
-                createdAt.isBefore(LocalDate.now().minusDays(30));
+                completedDate != null &&
+                completedDate.isBefore(LocalDate.now().minusDays(30));
     }
 
     public String getStatusDisplayName() {
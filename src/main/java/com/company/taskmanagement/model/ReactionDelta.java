@@ -0,0 +1,40 @@
+package com.company.taskmanagement.model;
+
+/**
+ * Изменение одной реакции: вместо всего сообщения клиенту уходит
+ * новый счетчик emoji и признак, стоит ли реакция текущего пользователя
+ */
+public class ReactionDelta {
+    private Long messageId;
+    private String emoji;
+    private int count;
+    private boolean active;
+    private boolean changed;
+
+    public ReactionDelta() {
+    }
+
+    public ReactionDelta(Long messageId, String emoji, int count, boolean active, boolean changed) {
+        this.messageId = messageId;
+        this.emoji = emoji;
+        this.count = count;
+        this.active = active;
+        this.changed = changed;
+    }
+
+    // Геттеры и сеттеры
+    public Long getMessageId() { return messageId; }
+    public void setMessageId(Long messageId) { this.messageId = messageId; }
+
+    public String getEmoji() { return emoji; }
+    public void setEmoji(String emoji) { this.emoji = emoji; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+
+    public boolean isChanged() { return changed; }
+    public void setChanged(boolean changed) { this.changed = changed; }
+}
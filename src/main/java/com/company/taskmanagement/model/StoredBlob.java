@@ -0,0 +1,55 @@
+package com.company.taskmanagement.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "stored_blobs")
+public class StoredBlob {
+
+    // SHA-256 содержимого (hex) - один файл на диске на каждое уникальное содержимое
+    @Id
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
+    @Column(name = "blob_path", nullable = false)
+    private String blobPath;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long size;
+
+    // Сколько вложений ссылается на файл
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public StoredBlob() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public StoredBlob(String sha256, String blobPath, long size) {
+        this();
+        this.sha256 = sha256;
+        this.blobPath = blobPath;
+        this.size = size;
+        this.refCount = 1;
+    }
+
+    // Геттеры и сеттеры
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public String getBlobPath() { return blobPath; }
+    public void setBlobPath(String blobPath) { this.blobPath = blobPath; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public int getRefCount() { return refCount; }
+    public void setRefCount(int refCount) { this.refCount = refCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
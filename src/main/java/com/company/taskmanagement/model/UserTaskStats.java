@@ -0,0 +1,57 @@
+package com.company.taskmanagement.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "user_task_stats")
+public class UserTaskStats {
+
+    // Ключ - ID пользователя (одна строка счетчиков на пользователя)
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "active_tasks", nullable = false)
+    private long activeTasks;
+
+    @Column(name = "archived_tasks", nullable = false)
+    private long archivedTasks;
+
+    @Column(name = "completed_tasks", nullable = false)
+    private long completedTasks;
+
+    @Column(name = "overdue_tasks", nullable = false)
+    private long overdueTasks;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public UserTaskStats() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public UserTaskStats(Long userId) {
+        this();
+        this.userId = userId;
+    }
+
+    // Геттеры и сеттеры
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public long getActiveTasks() { return activeTasks; }
+    public void setActiveTasks(long activeTasks) { this.activeTasks = activeTasks; }
+
+    public long getArchivedTasks() { return archivedTasks; }
+    public void setArchivedTasks(long archivedTasks) { this.archivedTasks = archivedTasks; }
+
+    public long getCompletedTasks() { return completedTasks; }
+    public void setCompletedTasks(long completedTasks) { this.completedTasks = completedTasks; }
+
+    public long getOverdueTasks() { return overdueTasks; }
+    public void setOverdueTasks(long overdueTasks) { this.overdueTasks = overdueTasks; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
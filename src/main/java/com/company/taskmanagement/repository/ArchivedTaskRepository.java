@@ -0,0 +1,53 @@
+package com.company.taskmanagement.repository;
+
+import com.company.taskmanagement.model.ArchivedTask;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedTaskRepository extends JpaRepository<ArchivedTask, Long> {
+
+    // Keyset-страницы холодного архива: те же курсоры, что и у tasks
+    @Query("SELECT c.id FROM ArchivedTask c WHERE c.id > :afterId ORDER BY c.id")
+    List<Long> findPageIds(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT c.id FROM ArchivedTask c JOIN c.assigneeIds a WHERE a = :userId AND c.id > :afterId ORDER BY c.id")
+    List<Long> findPageIdsByAssigneeId(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+
+    // Отчеты: те же фильтры по датам и исполнителю, что и ProjectTaskRepository.findReportTaskIds
+    @Query("SELECT c.id FROM ArchivedTask c WHERE c.id > :afterId " +
+            "AND ((c.createdAt BETWEEN :startDate AND :endDate) " +
+            "OR (c.completedDate BETWEEN :startDate AND :endDate) " +
+            "OR (c.archivedDate BETWEEN :startDate AND :endDate)) " +
+            "AND (:userId IS NULL OR :userId MEMBER OF c.assigneeIds) " +
+            "ORDER BY c.id")
+    List<Long> findReportIds(@Param("startDate") LocalDate startDate,
+                             @Param("endDate") LocalDate endDate,
+                             @Param("userId") Long userId,
+                             @Param("afterId") Long afterId,
+                             Pageable pageable);
+
+    @Query("SELECT DISTINCT c FROM ArchivedTask c LEFT JOIN FETCH c.assigneeIds WHERE c.id IN :ids ORDER BY c.id")
+    List<ArchivedTask> findAllWithAssigneesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT c FROM ArchivedTask c LEFT JOIN FETCH c.assigneeIds ORDER BY c.id")
+    List<ArchivedTask> findAllWithAssignees();
+
+    @Query("SELECT DISTINCT c FROM ArchivedTask c LEFT JOIN FETCH c.assigneeIds WHERE c.id IN " +
+            "(SELECT c2.id FROM ArchivedTask c2 JOIN c2.assigneeIds a WHERE a = :userId) ORDER BY c.id")
+    List<ArchivedTask> findAllWithAssigneesByAssigneeId(@Param("userId") Long userId);
+
+    @Query("SELECT COUNT(c) FROM ArchivedTask c JOIN c.assigneeIds a WHERE a = :userId")
+    long countByAssigneeId(@Param("userId") Long userId);
+
+    // Вклад холодного архива в счетчики пользователей
+    @Query("SELECT a AS userId, COUNT(c) AS total FROM ArchivedTask c JOIN c.assigneeIds a GROUP BY a")
+    List<AssigneeTaskCount> countPerAssignee();
+}
@@ -0,0 +1,11 @@
+package com.company.taskmanagement.repository;
+
+/**
+ * Проекция числа задач на исполнителя
+ */
+public interface AssigneeTaskCount {
+
+    Long getUserId();
+
+    long getTotal();
+}
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,6 +24,13 @@ public interface FileAttachmentRepository extends JpaRepository<FileAttachment,
     @Query("DELETE FROM FileAttachment f WHERE f.task.id = :taskId")
     void deleteByTaskId(@Param("taskId") Long taskId);
 
+    @Query("SELECT f FROM FileAttachment f WHERE f.task.id IN :taskIds ORDER BY f.id")
+    List<FileAttachment> findByTaskIdIn(@Param("taskIds") Collection<Long> taskIds);
+
+    @Modifying
+    @Query("DELETE FROM FileAttachment f WHERE f.task.id IN :taskIds")
+    int deleteByTaskIdIn(@Param("taskIds") Collection<Long> taskIds);
+
     @Query("SELECT COUNT(f) FROM FileAttachment f WHERE f.task.id = :taskId")
     Long countByTaskId(@Param("taskId") Long taskId);
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.company.taskmanagement.repository;
+
+import com.company.taskmanagement.model.NotificationOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // Готовые к отправке записи: ожидающие или с истекшей блокировкой.
+    // SELECT ... FOR UPDATE SKIP LOCKED (lock.timeout = -2), чтобы несколько узлов
+    // разбирали очередь параллельно, не захватывая одни и те же строки
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM NotificationOutbox o WHERE " +
+            "(o.status = 'PENDING' AND o.nextAttemptAt <= :now) " +
+            "OR (o.status = 'SENDING' AND o.lockedUntil < :now) " +
+            "ORDER BY o.id")
+    List<NotificationOutbox> findClaimableForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Условный захват одной записи: обновится только если ее еще никто не забрал
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE NotificationOutbox o SET o.status = 'SENDING', " +
+            "o.lockedUntil = :lockedUntil, o.attempts = o.attempts + 1 " +
+            "WHERE o.id = :id AND o.status = 'PENDING'")
+    int claimPending(@Param("id") Long id, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE NotificationOutbox o SET o.status = 'SENT', " +
+            "o.sentAt = :sentAt, o.lockedUntil = null, o.lastError = null WHERE o.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.id IN :ids")
+    List<NotificationOutbox> findAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT COUNT(o) FROM NotificationOutbox o WHERE o.status = :status")
+    long countByStatus(@Param("status") NotificationOutbox.OutboxStatus status);
+
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.status = 'SENT' " +
+            "AND o.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -2,31 +2,48 @@ package com.company.taskmanagement.repository;
 
 import com.company.taskmanagement.model.ProjectTask;
 import com.company.taskmanagement.model.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ProjectTaskRepository extends JpaRepository<ProjectTask, Long> {
 
-    // Методы для поиска задач по исполнителям
+    // Методы для поиска задач по исполнителям (исполнители подгружаются тем же запросом)
+    @EntityGraph(attributePaths = "assignees")
     @Query("SELECT t FROM ProjectTask t JOIN t.assignees a WHERE a.id = :userId")
     List<ProjectTask> findByAssigneeId(@Param("userId") Long userId);
 
+    @EntityGraph(attributePaths = "assignees")
     @Query("SELECT t FROM ProjectTask t JOIN t.assignees a WHERE a.id = :userId AND t.archived = true")
     List<ProjectTask> findByAssigneeIdAndArchivedTrue(@Param("userId") Long userId);
 
+    @EntityGraph(attributePaths = "assignees")
     @Query("SELECT t FROM ProjectTask t JOIN t.assignees a WHERE a.id = :userId AND t.archived = false")
     List<ProjectTask> findByAssigneeIdAndArchivedFalse(@Param("userId") Long userId);
 
-
-
     // Методы для архива
+    @EntityGraph(attributePaths = "assignees")
     List<ProjectTask> findByArchivedTrue();
+
+    @EntityGraph(attributePaths = "assignees")
     List<ProjectTask> findByArchivedFalse();
 
+    // Задача со всеми связями для страницы просмотра
+    @EntityGraph(attributePaths = {"assignees", "attachments"})
+    @Query("SELECT t FROM ProjectTask t WHERE t.id = :id")
+    Optional<ProjectTask> findWithAssigneesAndAttachmentsById(@Param("id") Long id);
+
     // Методы с @Query для полного контроля
     @Query("SELECT t FROM ProjectTask t WHERE t.archived = true")
     List<ProjectTask> findByArchivedTrueWithQuery();
@@ -53,6 +70,36 @@ public interface ProjectTaskRepository extends JpaRepository<ProjectTask, Long>
     @Query("SELECT COUNT(t) FROM ProjectTask t JOIN t.assignees a WHERE a.id = :userId AND t.archived = false")
     Long countActiveTasksByUserId(@Param("userId") Long userId);
 
+    // Групповой подсчет для дашборда: все числа одним запросом
+    // Вместе с холодным архивом (archived_tasks) - одним запросом через UNION ALL
+    @Query("SELECT t.status AS status, t.archived AS archived, COUNT(t) AS total " +
+            "FROM ProjectTask t GROUP BY t.status, t.archived " +
+            "UNION ALL SELECT c.status, true, COUNT(c) FROM ArchivedTask c GROUP BY c.status")
+    List<TaskStatusCount> countGroupedByStatusAndArchived();
+
+    @Query("SELECT t.status AS status, t.archived AS archived, COUNT(t) AS total " +
+            "FROM ProjectTask t JOIN t.assignees a WHERE a.id = :userId GROUP BY t.status, t.archived " +
+            "UNION ALL SELECT c.status, true, COUNT(c) FROM ArchivedTask c JOIN c.assigneeIds ca " +
+            "WHERE ca = :userId GROUP BY c.status")
+    List<TaskStatusCount> countGroupedByStatusAndArchivedForAssignee(@Param("userId") Long userId);
+
+    // Состояние задачи в БД для инкрементального обновления user_task_stats.
+    // FlushMode COMMIT: читаем то, что уже сохранено, а не несохраненные изменения сущности
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query("SELECT t.status AS status, t.archived AS archived, t.dueDate AS dueDate, a.id AS assigneeId " +
+            "FROM ProjectTask t JOIN t.assignees a WHERE t.id = :taskId")
+    List<TaskCounterRow> findCounterRowsByTaskId(@Param("taskId") Long taskId);
+
+    // Полный пересчет счетчиков по исполнителям (сверка user_task_stats)
+    @Query("SELECT a.id AS userId, " +
+            "SUM(CASE WHEN t.archived = false THEN 1 ELSE 0 END) AS activeTasks, " +
+            "SUM(CASE WHEN t.archived = true THEN 1 ELSE 0 END) AS archivedTasks, " +
+            "SUM(CASE WHEN t.archived = false AND t.status = 'COMPLETED' THEN 1 ELSE 0 END) AS completedTasks, " +
+            "SUM(CASE WHEN t.archived = false AND t.dueDate < :today " +
+            "AND t.status <> 'COMPLETED' AND t.status <> 'CANCELLED' THEN 1 ELSE 0 END) AS overdueTasks " +
+            "FROM ProjectTask t JOIN t.assignees a GROUP BY a.id")
+    List<UserTaskCounters> countCountersPerAssignee(@Param("today") LocalDate today);
+
     // Дополнительные полезные методы
     @Query("SELECT t FROM ProjectTask t JOIN t.assignees a WHERE a.id = :userId AND t.status = :status AND t.archived = false")
     List<ProjectTask> findByAssigneeIdAndStatusAndArchivedFalse(@Param("userId") Long userId, @Param("status") String status);
@@ -66,7 +113,86 @@ public interface ProjectTaskRepository extends JpaRepository<ProjectTask, Long>
 
     @Query("SELECT t FROM ProjectTask t WHERE t.archived = false AND t.dueDate < :date")
     List<ProjectTask> findActiveTasksWithDueDateBefore(@Param("date") LocalDate date);
-    // Добавляем эти методы в существующий репозиторий:
-
 
+    // Проверка доступа: пользователь - исполнитель задачи
+    @Query("SELECT COUNT(t) > 0 FROM ProjectTask t JOIN t.assignees a WHERE t.id = :taskId AND a.id = :userId")
+    boolean isAssignee(@Param("taskId") Long taskId, @Param("userId") Long userId);
+
+    // Keyset-пагинация списков задач: следующая страница начинается после id последней записи.
+    // Выбираются только id, сами задачи с исполнителями грузятся через findAllWithAssigneesByIdIn
+    // (fetch join вместе с LIMIT заставил бы Hibernate пагинировать в памяти)
+    @Query("SELECT t.id FROM ProjectTask t WHERE t.archived = :archived AND t.id > :afterId ORDER BY t.id")
+    List<Long> findPageIdsByArchived(@Param("archived") boolean archived,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
+
+    @Query("SELECT t.id FROM ProjectTask t JOIN t.assignees a " +
+            "WHERE a.id = :userId AND t.archived = :archived AND t.id > :afterId ORDER BY t.id")
+    List<Long> findPageIdsByAssigneeIdAndArchived(@Param("userId") Long userId,
+                                                  @Param("archived") boolean archived,
+                                                  @Param("afterId") Long afterId,
+                                                  Pageable pageable);
+
+    // REST API: страница id и версий с необязательными фильтрами (null - без фильтра)
+    @Query("SELECT t.id AS id, t.version AS version FROM ProjectTask t " +
+            "WHERE t.archived = :archived AND t.id > :afterId " +
+            "AND (:status IS NULL OR t.status = :status) " +
+            "AND (:priority IS NULL OR t.priority = :priority) " +
+            "AND (:userId IS NULL OR EXISTS (SELECT 1 FROM t.assignees a WHERE a.id = :userId)) " +
+            "ORDER BY t.id")
+    List<TaskVersionRow> findApiPage(@Param("archived") boolean archived,
+                                     @Param("status") ProjectTask.TaskStatus status,
+                                     @Param("priority") ProjectTask.TaskPriority priority,
+                                     @Param("userId") Long userId,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
+
+    // Поля задач для REST API одним запросом, без загрузки сущностей
+    @Query("SELECT t.id AS id, t.title AS title, t.status AS status, t.priority AS priority, " +
+            "t.dueDate AS dueDate, t.version AS version, a.id AS assigneeId " +
+            "FROM ProjectTask t LEFT JOIN t.assignees a WHERE t.id IN :ids ORDER BY t.id")
+    List<TaskSummaryRow> findSummaryRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Методы для отчетов: фильтрация по датам и исполнителю на стороне БД, постранично по id
+    @Query("SELECT t.id FROM ProjectTask t WHERE t.id > :afterId " +
+            "AND ((t.createdAt BETWEEN :startDate AND :endDate) " +
+            "OR (t.completedDate BETWEEN :startDate AND :endDate) " +
+            "OR (t.archivedDate BETWEEN :startDate AND :endDate)) " +
+            "AND (:userId IS NULL OR EXISTS (SELECT 1 FROM t.assignees a WHERE a.id = :userId)) " +
+            "ORDER BY t.id")
+    List<Long> findReportTaskIds(@Param("startDate") LocalDate startDate,
+                                 @Param("endDate") LocalDate endDate,
+                                 @Param("userId") Long userId,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+
+    // Автоархивация порциями: id кандидатов (keyset по id), затем UPDATE только этих строк.
+    // Условия повторяются в UPDATE - задачу могли изменить между выборкой и обновлением
+    @Query("SELECT t.id FROM ProjectTask t WHERE t.status = :status AND t.archived = false " +
+            "AND t.completedDate < :threshold AND t.id > :afterId ORDER BY t.id")
+    List<Long> findAutoArchiveIds(@Param("status") ProjectTask.TaskStatus status,
+                                  @Param("threshold") LocalDate threshold,
+                                  @Param("afterId") Long afterId,
+                                  Pageable pageable);
+
+    // Массовое обновление идет мимо сущностей, поэтому версия увеличивается явно
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProjectTask t SET t.archived = true, t.archivedDate = :today, t.version = t.version + 1 " +
+            "WHERE t.id IN :ids AND t.status = :status AND t.archived = false AND t.completedDate < :threshold")
+    int archiveByIds(@Param("ids") Collection<Long> ids,
+                     @Param("status") ProjectTask.TaskStatus status,
+                     @Param("threshold") LocalDate threshold,
+                     @Param("today") LocalDate today);
+
+    // Перенос в холодный архив: давно архивированные задачи
+    @Query("SELECT t.id FROM ProjectTask t WHERE t.archived = true AND t.archivedDate < :threshold ORDER BY t.id")
+    List<Long> findColdArchiveCandidateIds(@Param("threshold") LocalDate threshold, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ProjectTask t WHERE t.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT t FROM ProjectTask t LEFT JOIN FETCH t.assignees WHERE t.id IN :ids ORDER BY t.id")
+    List<ProjectTask> findAllWithAssigneesByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.company.taskmanagement.repository;
+
+import com.company.taskmanagement.model.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    // Счетчики меняются одним UPDATE, без чтения сущности
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount + 1 WHERE b.sha256 = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    // Сразу несколько ссылок на один blob (массовый импорт)
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount + :count WHERE b.sha256 = :hash")
+    int addReferences(@Param("hash") String hash, @Param("count") int count);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1 WHERE b.sha256 = :hash AND b.refCount > 0")
+    int decrementRefCount(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredBlob b WHERE b.sha256 = :hash AND b.refCount = 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+
+    @Query("SELECT COALESCE(SUM(b.size), 0) FROM StoredBlob b")
+    long sumStoredBytes();
+
+    @Query("SELECT COALESCE(SUM(b.size * b.refCount), 0) FROM StoredBlob b")
+    long sumReferencedBytes();
+}
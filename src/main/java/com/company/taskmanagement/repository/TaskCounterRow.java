@@ -0,0 +1,20 @@
+package com.company.taskmanagement.repository;
+
+import com.company.taskmanagement.model.ProjectTask;
+
+import java.time.LocalDate;
+
+/**
+ * Проекция состояния задачи, от которого зависят счетчики user_task_stats
+ * (одна строка на исполнителя)
+ */
+public interface TaskCounterRow {
+
+    ProjectTask.TaskStatus getStatus();
+
+    boolean isArchived();
+
+    LocalDate getDueDate();
+
+    Long getAssigneeId();
+}
@@ -0,0 +1,15 @@
+package com.company.taskmanagement.repository;
+
+import com.company.taskmanagement.model.ProjectTask;
+
+/**
+ * Проекция для группового подсчета задач по статусу и признаку архива
+ */
+public interface TaskStatusCount {
+
+    ProjectTask.TaskStatus getStatus();
+
+    boolean isArchived();
+
+    long getTotal();
+}
@@ -0,0 +1,25 @@
+package com.company.taskmanagement.repository;
+
+import com.company.taskmanagement.model.ProjectTask;
+
+import java.time.LocalDate;
+
+/**
+ * Проекция задачи для REST API (одна строка на исполнителя, без сущности и ленивых коллекций)
+ */
+public interface TaskSummaryRow {
+
+    Long getId();
+
+    String getTitle();
+
+    ProjectTask.TaskStatus getStatus();
+
+    ProjectTask.TaskPriority getPriority();
+
+    LocalDate getDueDate();
+
+    long getVersion();
+
+    Long getAssigneeId();
+}
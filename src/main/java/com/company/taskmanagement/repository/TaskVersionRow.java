@@ -0,0 +1,11 @@
+package com.company.taskmanagement.repository;
+
+/**
+ * Id и версия задачи: по ним строится ETag страницы до загрузки самих задач
+ */
+public interface TaskVersionRow {
+
+    Long getId();
+
+    long getVersion();
+}
@@ -0,0 +1,17 @@
+package com.company.taskmanagement.repository;
+
+/**
+ * Проекция счетчиков задач пользователя
+ */
+public interface UserTaskCounters {
+
+    Long getUserId();
+
+    long getActiveTasks();
+
+    long getArchivedTasks();
+
+    long getCompletedTasks();
+
+    long getOverdueTasks();
+}
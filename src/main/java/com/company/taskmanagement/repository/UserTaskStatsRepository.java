@@ -0,0 +1,33 @@
+package com.company.taskmanagement.repository;
+
+import com.company.taskmanagement.model.UserTaskStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface UserTaskStatsRepository extends JpaRepository<UserTaskStats, Long> {
+
+    // Чтение по первичному ключу без загрузки сущности в контекст
+    @Query("SELECT s.userId AS userId, s.activeTasks AS activeTasks, s.archivedTasks AS archivedTasks, " +
+            "s.completedTasks AS completedTasks, s.overdueTasks AS overdueTasks " +
+            "FROM UserTaskStats s WHERE s.userId = :userId")
+    Optional<UserTaskCounters> findCountersByUserId(@Param("userId") Long userId);
+
+    // Атомарное приращение счетчиков (параллельные изменения задач не теряют обновлений)
+    @Modifying
+    @Query("UPDATE UserTaskStats s SET s.activeTasks = s.activeTasks + :active, " +
+            "s.archivedTasks = s.archivedTasks + :archived, " +
+            "s.completedTasks = s.completedTasks + :completed, " +
+            "s.overdueTasks = s.overdueTasks + :overdue, " +
+            "s.updatedAt = :now WHERE s.userId = :userId")
+    int increment(@Param("userId") Long userId,
+                  @Param("active") long active,
+                  @Param("archived") long archived,
+                  @Param("completed") long completed,
+                  @Param("overdue") long overdue,
+                  @Param("now") LocalDateTime now);
+}
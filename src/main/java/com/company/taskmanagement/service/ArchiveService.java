@@ -3,11 +3,18 @@ package com.company.taskmanagement.service;
 import com.company.taskmanagement.model.ProjectTask;
 import com.company.taskmanagement.repository.ProjectTaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 @Service
@@ -19,6 +26,33 @@ public class ArchiveService {
     @Autowired
     private ProjectTaskService projectTaskService;
 
+    @Autowired
+    private UserTaskStatsService userTaskStatsService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ColdArchiveService coldArchiveService;
+
+    @Autowired
+    private TaskListCache taskListCache;
+
+    // Размер страницы списков задач
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @Value("${archive.auto.threshold-days:30}")
+    private int autoArchiveThresholdDays;
+
+    @Value("${archive.auto.chunk-size:1000}")
+    private int autoArchiveChunkSize;
+
+    @Value("${archive.auto.pause-ms:200}")
+    private long autoArchivePauseMs;
+
+    private volatile AutoArchiveRun lastAutoArchiveRun;
+
     /**
      * Архивировать задачу
      */
@@ -26,20 +60,26 @@ public class ArchiveService {
     public void archiveTask(Long taskId) {
         ProjectTask task = projectTaskService.getTaskById(taskId).orElse(null);
         if (task != null && !task.isArchived()) {
+            UserTaskStatsService.TaskCounterState before = userTaskStatsService.snapshot(taskId);
             task.setArchived(true);
             projectTaskRepository.save(task);
+            userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.of(task));
         }
     }
 
     /**
-     * Восстановить задачу из архива
+     * Восстановить задачу из архива (в том числе из холодного)
      */
     @Transactional
     public void unarchiveTask(Long taskId) {
         ProjectTask task = projectTaskService.getTaskById(taskId).orElse(null);
-        if (task != null && task.isArchived()) {
+        if (task == null) {
+            coldArchiveService.restore(taskId);
+        } else if (task.isArchived()) {
+            UserTaskStatsService.TaskCounterState before = userTaskStatsService.snapshot(taskId);
             task.setArchived(false);
             projectTaskRepository.save(task);
+            userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.of(task));
         }
     }
 
@@ -50,8 +90,15 @@ public class ArchiveService {
     public boolean deleteArchivedTask(Long taskId) {
         try {
             ProjectTask task = projectTaskService.getTaskById(taskId).orElse(null);
-            if (task != null && task.isArchived()) {
+            if (task == null) {
+                return coldArchiveService.delete(taskId);
+            }
+            if (task.isArchived()) {
+                UserTaskStatsService.TaskCounterState before = userTaskStatsService.snapshot(taskId);
+                // Вложения снимают ссылки на blob до каскадного удаления строк
+                fileStorageService.deleteAllTaskFiles(taskId);
                 projectTaskRepository.delete(task);
+                userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.EMPTY);
                 return true;
             }
             return false;
@@ -62,36 +109,145 @@ public class ArchiveService {
     }
 
     /**
-     * Автоматическое архивирование завершенных задач через 30 дней
+     * Автоматическое архивирование задач, завершенных больше threshold-days дней назад.
+     * Строки обновляются порциями, каждая порция - отдельная короткая транзакция
      */
-    @Scheduled(cron = "0 0 2 * * ?") // Каждый день в 2:00
-    @Transactional
-    public void autoArchiveCompletedTasks() {
-        LocalDate thresholdDate = LocalDate.now().minusDays(30);
-        List<ProjectTask> completedTasks = projectTaskRepository
-                .findByStatusAndArchivedFalse("COMPLETED");
-
-        for (ProjectTask task : completedTasks) {
-            if (task.getCreatedAt() != null &&
-                    task.getCreatedAt().isBefore(thresholdDate)) {
-                task.setArchived(true);
-                projectTaskRepository.save(task);
+    @Scheduled(cron = "${archive.auto.cron:0 0 2 * * ?}") // Каждый день в 2:00
+    public AutoArchiveRun autoArchiveCompletedTasks() {
+        AutoArchiveRun run = new AutoArchiveRun(LocalDateTime.now(), LocalDate.now().minusDays(autoArchiveThresholdDays));
+        long start = System.nanoTime();
+        PageRequest chunk = PageRequest.of(0, Math.max(1, autoArchiveChunkSize));
+        long afterId = 0L;
+
+        try {
+            while (true) {
+                List<Long> ids = projectTaskRepository.findAutoArchiveIds(
+                        ProjectTask.TaskStatus.COMPLETED, run.thresholdDate, afterId, chunk);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                run.archivedRows += projectTaskRepository.archiveByIds(
+                        ids, ProjectTask.TaskStatus.COMPLETED, run.thresholdDate, LocalDate.now());
+                run.chunks++;
+                afterId = ids.get(ids.size() - 1);
+
+                if (ids.size() < chunk.getPageSize()) {
+                    break;
+                }
+                // Пауза между порциями дает место обычной нагрузке и репликам
+                if (autoArchivePauseMs > 0) {
+                    Thread.sleep(autoArchivePauseMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("❌ Автоархивация прервана после " + run.archivedRows + " задач");
+        } finally {
+            // Счетчики пользователей пересчитываются один раз за прогон, а не на каждую строку
+            if (run.archivedRows > 0) {
+                userTaskStatsService.rebuild();
             }
+            run.durationMs = (System.nanoTime() - start) / 1_000_000;
+            lastAutoArchiveRun = run;
+            System.out.println("✅ Автоархивация: " + run.archivedRows + " задач, порций " + run.chunks
+                    + ", " + run.durationMs + " мс (завершены до " + run.thresholdDate + ")");
         }
+        return run;
+    }
+
+    /**
+     * Результат последнего прогона автоархивации (null, если еще не запускалась)
+     */
+    public AutoArchiveRun getLastAutoArchiveRun() {
+        return lastAutoArchiveRun;
     }
 
     /**
-     * Получить все архивные задачи
+     * Получить все архивные задачи (горячие и из холодного архива)
      */
     public List<ProjectTask> getArchivedTasks() {
-        return projectTaskRepository.findByArchivedTrue();
+        return byId(projectTaskRepository.findByArchivedTrue(), coldArchiveService.getArchivedTasks());
+    }
+
+    /**
+     * Получить страницу архивных задач (keyset по id)
+     */
+    public KeysetPage<ProjectTask> getArchivedTasksPage(Long afterId, int size) {
+        return getTasksPage(null, true, afterId, size);
+    }
+
+    /**
+     * Получить страницу архивных задач пользователя
+     */
+    public KeysetPage<ProjectTask> getUserArchivedTasksPage(Long userId, Long afterId, int size) {
+        return getTasksPage(userId, true, afterId, size);
+    }
+
+    /**
+     * Получить страницу неархивных задач
+     */
+    public KeysetPage<ProjectTask> getActiveTasksPage(Long afterId, int size) {
+        return getTasksPage(null, false, afterId, size);
+    }
+
+    /**
+     * Получить страницу активных задач пользователя
+     */
+    public KeysetPage<ProjectTask> getUserActiveTasksPage(Long userId, Long afterId, int size) {
+        return getTasksPage(userId, false, afterId, size);
+    }
+
+    private KeysetPage<ProjectTask> getTasksPage(Long userId, boolean archived, Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long cursor = afterId != null ? afterId : 0L;
+        // Запрашиваем на одну запись больше, чтобы узнать, есть ли следующая страница
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        // Кэшируются только id страницы, сами задачи читаются заново
+        String key = (archived ? "archived" : "active") + ":" + cursor + ":" + pageSize;
+        List<Long> ids = taskListCache.get(userId, key, () -> findPageIds(userId, archived, cursor, limit));
+
+        KeysetPage<Long> idPage = KeysetPage.of(ids, pageSize, id -> id);
+        List<ProjectTask> tasks = idPage.getContent().isEmpty()
+                ? List.of()
+                : projectTaskRepository.findAllWithAssigneesByIdIn(idPage.getContent());
+        if (archived && tasks.size() < idPage.getContent().size()) {
+            tasks = byId(tasks, coldArchiveService.getTasks(idPage.getContent()));
+        }
+
+        return new KeysetPage<>(tasks, idPage.getNextCursor(), pageSize);
+    }
+
+    private List<Long> findPageIds(Long userId, boolean archived, long cursor, PageRequest limit) {
+        List<Long> ids = userId == null
+                ? projectTaskRepository.findPageIdsByArchived(archived, cursor, limit)
+                : projectTaskRepository.findPageIdsByAssigneeIdAndArchived(userId, archived, cursor, limit);
+        if (archived) {
+            // id в tasks и archived_tasks не пересекаются: страницы двух таблиц сливаются по id
+            List<Long> merged = new ArrayList<>(ids);
+            merged.addAll(coldArchiveService.findPageIds(userId, cursor, limit));
+            Collections.sort(merged);
+            ids = merged.subList(0, Math.min(merged.size(), limit.getPageSize()));
+        }
+        return List.copyOf(ids);
     }
 
     /**
      * Получить архивные задачи пользователя
      */
     public List<ProjectTask> getUserArchivedTasks(Long userId) {
-        return projectTaskRepository.findByAssigneeIdAndArchivedTrue(userId);
+        return byId(projectTaskRepository.findByAssigneeIdAndArchivedTrue(userId),
+                coldArchiveService.getUserArchivedTasks(userId));
+    }
+
+    private static List<ProjectTask> byId(List<ProjectTask> hot, List<ProjectTask> cold) {
+        if (cold.isEmpty()) {
+            return hot;
+        }
+        List<ProjectTask> tasks = new ArrayList<>(hot);
+        tasks.addAll(cold);
+        tasks.sort(Comparator.comparing(ProjectTask::getId));
+        return tasks;
     }
 
 
@@ -126,38 +282,62 @@ public class ArchiveService {
      * Получить количество архивных задач
      */
     public Long getArchivedTasksCount() {
-        return projectTaskRepository.countArchivedTasks();
+        return taskListCache.get(null, "archived-count",
+                () -> projectTaskRepository.countArchivedTasks() + coldArchiveService.count());
     }
 
     /**
      * Получить количество активных задач
      */
     public Long getActiveTasksCount() {
-        return projectTaskRepository.countActiveTasks();
+        return taskListCache.get(null, "active-count", () -> projectTaskRepository.countActiveTasks());
     }
 
     /**
      * Получить количество архивных задач пользователя
      */
     public Long getUserArchivedTasksCount(Long userId) {
-        return projectTaskRepository.countArchivedTasksByUserId(userId);
+        return taskListCache.get(userId, "archived-count",
+                () -> projectTaskRepository.countArchivedTasksByUserId(userId) + coldArchiveService.countForUser(userId));
     }
 
     /**
      * Получить количество активных задач пользователя
      */
     public Long getUserActiveTasksCount(Long userId) {
-        return projectTaskRepository.countActiveTasksByUserId(userId);
+        return taskListCache.get(userId, "active-count", () -> projectTaskRepository.countActiveTasksByUserId(userId));
     }
 
     /**
      * Получить задачи для автоматического архивирования
      */
     public List<ProjectTask> getTasksForAutoArchiving() {
-        LocalDate thresholdDate = LocalDate.now().minusDays(30);
-        return projectTaskRepository.findByStatusAndArchivedFalse("COMPLETED").stream()
-                .filter(task -> task.getCreatedAt() != null &&
-                        task.getCreatedAt().isBefore(thresholdDate))
-                .collect(java.util.stream.Collectors.toList());
+        LocalDate thresholdDate = LocalDate.now().minusDays(autoArchiveThresholdDays);
+        List<Long> ids = projectTaskRepository.findAutoArchiveIds(
+                ProjectTask.TaskStatus.COMPLETED, thresholdDate, 0L, Pageable.unpaged());
+        return ids.isEmpty() ? List.of() : projectTaskRepository.findAllWithAssigneesByIdIn(ids);
+    }
+
+    /**
+     * Метрики одного прогона автоархивации
+     */
+    public static class AutoArchiveRun {
+        private final LocalDateTime startedAt;
+        private final LocalDate thresholdDate;
+        private int archivedRows;
+        private int chunks;
+        private long durationMs;
+
+        AutoArchiveRun(LocalDateTime startedAt, LocalDate thresholdDate) {
+            this.startedAt = startedAt;
+            this.thresholdDate = thresholdDate;
+        }
+
+        // геттеры
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDate getThresholdDate() { return thresholdDate; }
+        public int getArchivedRows() { return archivedRows; }
+        public int getChunks() { return chunks; }
+        public long getDurationMs() { return durationMs; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,245 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.StoredBlob;
+import com.company.taskmanagement.repository.StoredBlobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Хранилище файлов по содержимому: blobs/ab/cd/&lt;sha256&gt; под file.upload-dir.
+ * SHA-256 считается во время записи потока во временный файл, одинаковое
+ * содержимое хранится на диске один раз. Вложения ссылаются на blob,
+ * физический файл удаляется вместе с последней ссылкой.
+ */
+@Service
+public class BlobStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final int LOCK_STRIPES = 64;
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    // Операции с одним хешем выполняются последовательно (ссылка + файл на диске)
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public BlobStore() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Сохранить содержимое потока и получить ссылку на blob (счетчик ссылок +1)
+     */
+    public StoredBlob store(InputStream content) throws IOException {
+        Path tmp = newTempFile();
+
+        String hash;
+        long size;
+        try (DigestInputStream in = new DigestInputStream(content, sha256())) {
+            size = Files.copy(in, tmp);
+            hash = HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        return commit(tmp, hash, size);
+    }
+
+    /**
+     * Сохранить загруженный файл: transferTo в каталог blobs/tmp, для временного
+     * файла контейнера на той же файловой системе это rename без копирования данных.
+     * Затем один проход чтения для SHA-256.
+     */
+    public StoredBlob store(MultipartFile file) throws IOException {
+        Path tmp = newTempFile();
+
+        String hash;
+        long size;
+        try {
+            // Перегрузка с File: Tomcat делает Part.write (rename), transferTo(Path) всегда копирует
+            file.transferTo(tmp.toAbsolutePath().toFile());
+            size = Files.size(tmp);
+            MessageDigest digest = sha256();
+            try (InputStream in = Files.newInputStream(tmp)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            hash = HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        return commit(tmp, hash, size);
+    }
+
+    private Path newTempFile() throws IOException {
+        Path tmpDir = blobRoot().resolve("tmp");
+        Files.createDirectories(tmpDir);
+        return tmpDir.resolve(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Временный файл с посчитанным хешем: ссылка на существующий blob или перенос на место
+     */
+    private StoredBlob commit(Path tmp, String hash, long size) throws IOException {
+        synchronized (lockFor(hash)) {
+            try {
+                if (storedBlobRepository.incrementRefCount(hash) > 0) {
+                    // Такое содержимое уже есть - новая копия не нужна
+                    Files.deleteIfExists(tmp);
+                    System.out.println("♻️ Дубликат файла " + hash.substring(0, 12) + " (" + size + " байт), используется существующий");
+                    return storedBlobRepository.findById(hash).orElseThrow();
+                }
+
+                Path target = pathFor(hash);
+                Files.createDirectories(target.getParent());
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                try {
+                    // Строка нужна в БД сразу: по ней следующие загрузки увеличивают счетчик ссылок
+                    return storedBlobRepository.saveAndFlush(new StoredBlob(hash, target.toString(), size));
+                } catch (DataIntegrityViolationException e) {
+                    // Строку успел создать другой экземпляр приложения
+                    storedBlobRepository.incrementRefCount(hash);
+                    return storedBlobRepository.findById(hash).orElseThrow();
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    /**
+     * Добавить ссылки на уже сохраненный blob. Вызывающий сам держит ссылку,
+     * поэтому blob не может быть удален между store и retain
+     */
+    public void retain(String hash, int count) {
+        if (storedBlobRepository.addReferences(hash, count) == 0) {
+            throw new IllegalStateException("Файл " + hash + " не найден в хранилище");
+        }
+    }
+
+    /**
+     * Снять одну ссылку; файл удаляется после коммита, если ссылок больше нет
+     */
+    public void release(String hash) {
+        synchronized (lockFor(hash)) {
+            storedBlobRepository.decrementRefCount(hash);
+            if (storedBlobRepository.deleteIfUnreferenced(hash) > 0) {
+                afterCommit(() -> deleteUnreferencedFile(hash));
+            }
+        }
+    }
+
+    /**
+     * Путь к файлу blob на диске
+     */
+    public Path pathFor(String hash) {
+        if (!isHash(hash)) {
+            throw new IllegalArgumentException("Некорректный хеш файла");
+        }
+        return blobRoot().resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    public static boolean isHash(String value) {
+        return value != null && HASH.matcher(value).matches();
+    }
+
+    /**
+     * Сколько места занимают уникальные файлы и сколько заняли бы копии
+     */
+    public DedupStats getStats() {
+        DedupStats stats = new DedupStats();
+        stats.setBlobs(storedBlobRepository.count());
+        stats.setStoredBytes(storedBlobRepository.sumStoredBytes());
+        stats.setReferencedBytes(storedBlobRepository.sumReferencedBytes());
+        return stats;
+    }
+
+    private void deleteUnreferencedFile(String hash) {
+        synchronized (lockFor(hash)) {
+            // За это время файл могли загрузить заново
+            if (storedBlobRepository.existsById(hash)) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(pathFor(hash));
+                System.out.println("✅ Удален файл без ссылок: " + hash);
+            } catch (IOException e) {
+                System.err.println("❌ Ошибка удаления файла " + hash + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Path blobRoot() {
+        return Paths.get(uploadDir, "blobs");
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Класс для статистики дедупликации
+     */
+    public static class DedupStats {
+        private long blobs;
+        private long storedBytes;
+        private long referencedBytes;
+
+        // геттеры и сеттеры
+        public long getBlobs() { return blobs; }
+        public void setBlobs(long blobs) { this.blobs = blobs; }
+        public long getStoredBytes() { return storedBytes; }
+        public void setStoredBytes(long storedBytes) { this.storedBytes = storedBytes; }
+        public long getReferencedBytes() { return referencedBytes; }
+        public void setReferencedBytes(long referencedBytes) { this.referencedBytes = referencedBytes; }
+        public long getSavedBytes() { return referencedBytes - storedBytes; }
+    }
+}
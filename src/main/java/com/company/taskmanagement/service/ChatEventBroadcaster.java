@@ -0,0 +1,247 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.ChatMessage;
+import com.company.taskmanagement.model.ReactionDelta;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Push-доставка событий чата по SSE.
+ * publish() только кладет событие в очередь каждого подписчика и не ждет сети;
+ * очереди разбирает небольшой пул потоков. Подписчик, который не успевает
+ * читать, отключается - после переподключения клиент догоняет историю через afterId.
+ */
+@Service
+public class ChatEventBroadcaster {
+
+    public static final String MESSAGE_EVENT = "chat-message";
+    public static final String REACTION_EVENT = "chat-reaction";
+    public static final String PRESENCE_EVENT = "chat-presence";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${chat.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${chat.sse.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${chat.sse.dispatch-threads:4}")
+    private int dispatchThreads;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private ExecutorService dispatcher;
+
+    // Метрики
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        dispatcher = Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "chat-sse-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Подписать клиента на события чата
+     */
+    public SseEmitter subscribe(String username) {
+        SseEmitter emitter = createEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(username, emitter, queueCapacity);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    SseEmitter createEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    /**
+     * Новое сообщение
+     */
+    public void messageCreated(ChatMessage message) {
+        publish(MESSAGE_EVENT, message.getId(), message);
+    }
+
+    /**
+     * Изменился счетчик реакции (рассылается только дельта, а не все сообщение)
+     */
+    public void reactionChanged(ReactionDelta delta) {
+        publish(REACTION_EVENT, delta.getMessageId(), delta);
+    }
+
+    /**
+     * Пользователь появился в сети или ушел из нее
+     */
+    public void presenceChanged(PresenceTracker.PresenceChange change) {
+        publish(PRESENCE_EVENT, null, change);
+    }
+
+    /**
+     * Разослать событие всем подписчикам, не блокируя вызывающий поток.
+     * JSON сериализуется один раз на событие, а не на каждого подписчика.
+     */
+    public void publish(String eventName, Long messageId, Object payload) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        published.incrementAndGet();
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            System.err.println("❌ Не удалось сериализовать событие чата " + messageId + ": " + e.getMessage());
+            return;
+        }
+        SseEmitter.SseEventBuilder builder = SseEmitter.event().name(eventName).data(json);
+        if (messageId != null) {
+            builder.id(String.valueOf(messageId));
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> event = builder.build();
+        for (Subscriber subscriber : subscribers) {
+            offer(subscriber, event);
+        }
+    }
+
+    /**
+     * Комментарий-пинг, чтобы прокси не закрывали простаивающие соединения
+     */
+    @Scheduled(fixedDelayString = "${chat.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        for (Subscriber subscriber : subscribers) {
+            offer(subscriber, ping);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void offer(Subscriber subscriber, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        if (!subscriber.queue.offer(event)) {
+            // Клиент не успевает читать - отключаем, он догонит через afterId
+            dropped.incrementAndGet();
+            disconnect(subscriber);
+            System.err.println("❌ SSE клиент " + subscriber.username + " не успевает читать события, отключен");
+            return;
+        }
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * Отправить накопленные события одного подписчика (не более одного потока на подписчика)
+     */
+    private void drain(Subscriber subscriber) {
+        Set<ResponseBodyEmitter.DataWithMediaType> event;
+        while ((event = subscriber.queue.poll()) != null) {
+            try {
+                subscriber.emitter.send(event);
+                sent.incrementAndGet();
+            } catch (IOException | IllegalStateException e) {
+                disconnect(subscriber);
+                return;
+            }
+        }
+        subscriber.scheduled.set(false);
+        // Событие могло прийти между poll() и сбросом флага
+        if (!subscriber.queue.isEmpty() && subscriber.scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.queue.clear();
+            try {
+                subscriber.emitter.complete();
+            } catch (Exception ignored) {
+                // соединение уже закрыто
+            }
+        }
+    }
+
+    /**
+     * Текущие метрики SSE
+     */
+    public BroadcasterStats getStats() {
+        BroadcasterStats stats = new BroadcasterStats();
+        stats.setSubscribers(subscribers.size());
+        stats.setPublished(published.get());
+        stats.setSent(sent.get());
+        stats.setDropped(dropped.get());
+        return stats;
+    }
+
+    private static final class Subscriber {
+        private final String username;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Subscriber(String username, SseEmitter emitter, int capacity) {
+            this.username = username;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    /**
+     * Класс для метрик SSE
+     */
+    public static class BroadcasterStats {
+        private int subscribers;
+        private long published;
+        private long sent;
+        private long dropped;
+
+        // геттеры и сеттеры
+        public int getSubscribers() { return subscribers; }
+        public void setSubscribers(int subscribers) { this.subscribers = subscribers; }
+        public long getPublished() { return published; }
+        public void setPublished(long published) { this.published = published; }
+        public long getSent() { return sent; }
+        public void setSent(long sent) { this.sent = sent; }
+        public long getDropped() { return dropped; }
+        public void setDropped(long dropped) { this.dropped = dropped; }
+    }
+}
@@ -0,0 +1,592 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.ChatMessage;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал сообщений чата на диске: только дописывание, файлы-сегменты
+ * с ротацией по размеру. Отдельно от MySQL, чтобы чат не конкурировал
+ * с транзакциями задач.
+ *
+ * Запись: [длина JSON][CRC32 JSON][id][JSON]. Отправители только передают сообщения
+ * через submit, пишет их один поток chat-journal-writer строго по возрастанию id.
+ * Он же делает fsync пачкой раз в fsync-interval-ms для всех записей за интервал,
+ * force() выполняется вне монитора журнала.
+ * Чтение - через memory-mapped сегменты и разреженный индекс id -> смещение.
+ * При старте сканируется только последний сегмент: обрезается недописанный
+ * хвост и восстанавливаются последние сообщения для кольцевого буфера.
+ * Файлы чата хранятся в BlobStore: ссылка на blob снимается, когда сообщение
+ * с файлом уходит из журнала (удаление старого сегмента или очистка истории).
+ */
+@Service
+public class ChatJournal {
+
+    private static final int HEADER_BYTES = 16;
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // Сколько писатель ждет пропущенный id, прежде чем записать следующие за ним
+    private static final long GAP_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Value("${chat.journal.dir:chat-journal}")
+    private String directory;
+
+    @Value("${chat.journal.segment-bytes:16777216}")
+    private long segmentBytes;
+
+    @Value("${chat.journal.fsync-interval-ms:50}")
+    private long fsyncIntervalMs;
+
+    @Value("${chat.journal.index-interval:64}")
+    private int indexInterval;
+
+    @Value("${chat.journal.max-segments:64}")
+    private int maxSegments;
+
+    private ObjectMapper journalMapper;
+    private Path root;
+
+    // Сегменты по id первой записи
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private Segment active;
+    private volatile long lastId;
+    private volatile boolean dirty;
+
+    // Переданные писателю сообщения по id; id не больше skipThrough не пишутся (история очищена)
+    private final ConcurrentSkipListMap<Long, ChatMessage> pending = new ConcurrentSkipListMap<>();
+    private volatile long skipThrough;
+    private volatile boolean running;
+    private Thread writer;
+    // Начало ожидания пропущенного id (поле только потока писателя)
+    private long gapSince;
+
+    @PostConstruct
+    public void open() throws IOException {
+        journalMapper = objectMapper.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        root = Paths.get(directory);
+        Files.createDirectories(root);
+
+        try (Stream<Path> files = Files.list(root)) {
+            files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(path -> {
+                        Segment segment = new Segment(path, parseBaseId(path));
+                        segments.put(segment.baseId, segment);
+                    });
+        }
+
+        if (!segments.isEmpty()) {
+            long started = System.nanoTime();
+            active = segments.lastEntry().getValue();
+            active.recover();
+            lastId = active.lastId;
+            System.out.println("✅ Журнал чата восстановлен: " + segments.size() + " сегм., последний id " + lastId
+                    + " за " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " мс");
+        }
+
+        running = true;
+        writer = new Thread(this::writeLoop, "chat-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Оставшиеся сообщения дописываются по порядку, даже если перед ними пропуск
+        writePending(true);
+        flush();
+        synchronized (this) {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        }
+    }
+
+    /**
+     * Последний записанный id (0, если журнал пуст)
+     */
+    public long getLastId() {
+        return lastId;
+    }
+
+    /**
+     * Первый id, который выдаст буфер чата: журнал будет ждать сообщения начиная с него
+     */
+    public void startAt(long firstId) {
+        skipThrough = Math.max(skipThrough, firstId - 1);
+    }
+
+    /**
+     * Передать сообщение писателю журнала. Не ждет сериализации и записи на диск;
+     * сообщения могут приходить в любом порядке, в файл они попадут по возрастанию id
+     */
+    public void submit(ChatMessage message) {
+        if (message.getId() <= skipThrough) {
+            // История уже очищена: сообщение в журнал не попадет
+            releaseFiles(List.of(message));
+            return;
+        }
+        pending.put(message.getId(), message);
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Дописать сообщение сразу в вызывающем потоке. Сообщения должны приходить в порядке возрастания id.
+     */
+    public void append(ChatMessage message) {
+        List<Segment> dropped = List.of();
+        synchronized (this) {
+            try {
+                byte[] payload = journalMapper.writeValueAsBytes(message);
+                int recordBytes = HEADER_BYTES + payload.length;
+                if (active == null || active.size + recordBytes > segmentBytes && active.size > 0) {
+                    dropped = roll(message.getId());
+                }
+                active.append(message.getId(), payload);
+                lastId = message.getId();
+                dirty = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось записать сообщение в журнал чата", e);
+            }
+        }
+        // Старые сегменты читаются и удаляются вне монитора, чтобы не задерживать запись
+        if (!dropped.isEmpty()) {
+            dropSegments(dropped, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Сообщения с afterId < id < beforeId (не больше limit) из memory-mapped сегментов
+     */
+    public List<ChatMessage> readAfter(long afterId, long beforeId, int limit) {
+        List<ChatMessage> result = new ArrayList<>();
+        Long fromKey = segments.floorKey(afterId + 1);
+        Map<Long, Segment> tail = fromKey != null ? segments.tailMap(fromKey, true) : segments;
+        for (Segment segment : tail.values()) {
+            if (segment.baseId >= beforeId || result.size() >= limit) {
+                break;
+            }
+            segment.read(afterId, beforeId, limit, result);
+        }
+        return result;
+    }
+
+    /**
+     * Последние count сообщений (с конца последних сегментов)
+     */
+    public List<ChatMessage> readLast(int count) {
+        Deque<ChatMessage> result = new ArrayDeque<>();
+        for (Segment segment : segments.descendingMap().values()) {
+            List<ChatMessage> messages = new ArrayList<>();
+            segment.read(Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, messages);
+            for (int i = messages.size() - 1; i >= 0 && result.size() < count; i--) {
+                result.addFirst(messages.get(i));
+            }
+            if (result.size() >= count) {
+                break;
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Удалить всю историю до throughId включительно (новые записи начнутся с нового сегмента)
+     */
+    public void clear(long throughId) {
+        skipThrough = Math.max(skipThrough, throughId);
+        List<ChatMessage> dropped = new ArrayList<>();
+        for (Long id : pending.headMap(throughId, true).keySet()) {
+            // Сообщение могло уйти и через писателя: ссылку снимает тот, кто удалил его из pending
+            ChatMessage message = pending.remove(id);
+            if (message != null) {
+                dropped.add(message);
+            }
+        }
+        List<Segment> removed;
+        synchronized (this) {
+            removed = new ArrayList<>(segments.values());
+            segments.clear();
+            active = null;
+            dirty = false;
+        }
+        dropSegments(removed, dropped);
+    }
+
+    /**
+     * Групповой fsync: один force() на все записи, накопленные за интервал.
+     * Канал берется под монитором, а сам force() идет без него и не задерживает запись
+     */
+    void flush() {
+        FileChannel channel;
+        synchronized (this) {
+            if (!dirty || active == null) {
+                return;
+            }
+            channel = active.channel;
+            dirty = false;
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // Сегмент закрыт ротацией (она сама делает force) или очисткой истории
+        } catch (IOException e) {
+            dirty = true;
+            System.err.println("❌ Ошибка fsync журнала чата: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Цикл писателя: записать готовые сообщения, раз в интервал - fsync
+     */
+    private void writeLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        long lastForce = System.nanoTime();
+        while (running) {
+            boolean wrote = writePending(false);
+            long now = System.nanoTime();
+            if (now - lastForce >= intervalNanos) {
+                flush();
+                lastForce = now;
+            }
+            if (!wrote) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Записать ожидающие сообщения по порядку id. Следующее пишется, только если его id
+     * продолжает журнал; пропуск ждем GAP_WAIT_NANOS (отправитель еще не успел вызвать submit)
+     */
+    private boolean writePending(boolean ignoreGaps) {
+        boolean wrote = false;
+        Map.Entry<Long, ChatMessage> next;
+        while ((next = pending.firstEntry()) != null) {
+            long id = next.getKey();
+            long expected = Math.max(lastId, skipThrough) + 1;
+            if (id < expected) {
+                ChatMessage skipped = pending.remove(id);
+                if (skipped != null) {
+                    releaseFiles(List.of(skipped));
+                }
+                continue;
+            }
+            // Пока не известно, с какого id начинается журнал, ждать нечего
+            boolean known = lastId > 0 || skipThrough > 0;
+            if (known && id > expected && !ignoreGaps) {
+                long now = System.nanoTime();
+                if (gapSince == 0) {
+                    gapSince = now;
+                }
+                if (now - gapSince < GAP_WAIT_NANOS) {
+                    break;
+                }
+                System.err.println("❌ Журнал чата: не дождались сообщений " + expected + ".." + (id - 1));
+            }
+            gapSince = 0;
+            pending.remove(id);
+            try {
+                append(next.getValue());
+                wrote = true;
+            } catch (UncheckedIOException e) {
+                System.err.println("❌ Сообщение " + id + " не записано в журнал: " + e.getMessage());
+            }
+        }
+        return wrote;
+    }
+
+    /**
+     * Начать новый сегмент; возвращает старые сегменты сверх max-segments, уже исключенные из журнала
+     */
+    private List<Segment> roll(long baseId) throws IOException {
+        if (active != null) {
+            active.channel.force(false);
+            active.seal();
+        }
+        Path path = root.resolve(String.format("%020d%s", baseId, SEGMENT_SUFFIX));
+        active = new Segment(path, baseId);
+        active.openForWrite();
+        segments.put(baseId, active);
+
+        // Ограничиваем объем истории на диске
+        List<Segment> dropped = new ArrayList<>();
+        while (segments.size() > maxSegments) {
+            dropped.add(segments.pollFirstEntry().getValue());
+        }
+        return dropped;
+    }
+
+    /**
+     * Удалить сегменты и снять ссылки на файлы их сообщений (и сообщений из dropped)
+     */
+    private void dropSegments(List<Segment> removed, List<ChatMessage> dropped) {
+        for (Segment segment : removed) {
+            segment.collectFiles(dropped);
+            segment.delete();
+        }
+        releaseFiles(dropped);
+    }
+
+    /**
+     * Снять ссылки на файлы сообщений, которые больше нельзя прочитать
+     */
+    private void releaseFiles(List<ChatMessage> messages) {
+        for (ChatMessage message : messages) {
+            if (message.getBlobHash() == null) {
+                continue;
+            }
+            try {
+                blobStore.release(message.getBlobHash());
+            } catch (Exception e) {
+                System.err.println("❌ Не удалось освободить файл сообщения " + message.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private long parseBaseId(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private ChatMessage decode(ByteBuffer buffer, int offset, int length) throws IOException {
+        byte[] payload = new byte[length];
+        buffer.get(offset + HEADER_BYTES, payload);
+        return journalMapper.readValue(payload, ChatMessage.class);
+    }
+
+    private static int crc(byte[] payload, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Один файл журнала
+     */
+    private final class Segment {
+        private final Path path;
+        private final long baseId;
+
+        // id -> смещение для каждой indexInterval-й записи
+        private final ConcurrentSkipListMap<Long, Integer> index = new ConcurrentSkipListMap<>();
+        private volatile boolean indexed;
+        private volatile long size;
+        private long lastId;
+        private int records;
+
+        private FileChannel channel;
+        private MappedByteBuffer mapped;
+        private long mappedSize;
+
+        private Segment(Path path, long baseId) {
+            this.path = path;
+            this.baseId = baseId;
+        }
+
+        private void openForWrite() throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            size = channel.size();
+            indexed = true;
+        }
+
+        /**
+         * Проверить записи последнего сегмента и обрезать недописанный хвост
+         */
+        private void recover() throws IOException {
+            openForWrite();
+            indexed = false;
+            long valid = scanIndex();
+            if (valid < channel.size()) {
+                System.err.println("❌ Журнал чата: обрезан недописанный хвост " + path.getFileName()
+                        + " (" + (channel.size() - valid) + " байт)");
+                channel.truncate(valid);
+                channel.force(true);
+            }
+            size = valid;
+            mapped = null;
+        }
+
+        private synchronized void append(long id, byte[] payload) throws IOException {
+            ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+            record.putInt(payload.length).putInt(crc(payload, 0, payload.length)).putLong(id).put(payload).flip();
+            long position = size;
+            while (record.hasRemaining()) {
+                channel.write(record, position + record.position());
+            }
+            if (records % indexInterval == 0) {
+                index.put(id, (int) position);
+            }
+            records++;
+            lastId = id;
+            size = position + HEADER_BYTES + payload.length;
+        }
+
+        /**
+         * Прочитать записи с afterId < id < beforeId в result (не больше limit)
+         */
+        private void read(long afterId, long beforeId, int limit, List<ChatMessage> result) {
+            try {
+                ensureIndexed();
+                long limitBytes = size;
+                ByteBuffer buffer = map(limitBytes);
+                Map.Entry<Long, Integer> start = index.floorEntry(afterId + 1);
+                int offset = start != null ? start.getValue() : 0;
+
+                while (offset + HEADER_BYTES <= limitBytes && result.size() < limit) {
+                    int length = buffer.getInt(offset);
+                    long id = buffer.getLong(offset + 8);
+                    if (id >= beforeId) {
+                        break;
+                    }
+                    if (id > afterId) {
+                        result.add(decode(buffer, offset, length));
+                    }
+                    offset += HEADER_BYTES + length;
+                }
+            } catch (IOException e) {
+                System.err.println("❌ Ошибка чтения журнала чата " + path.getFileName() + ": " + e.getMessage());
+            }
+        }
+
+        /**
+         * Индекс закрытых сегментов строится при первом чтении
+         */
+        private void ensureIndexed() throws IOException {
+            if (!indexed) {
+                synchronized (this) {
+                    if (!indexed) {
+                        size = scanIndex();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Пройти записи с проверкой CRC, заполнить индекс; вернуть длину корректной части
+         */
+        private long scanIndex() throws IOException {
+            long fileSize = Files.size(path);
+            ByteBuffer buffer = map(fileSize);
+            index.clear();
+            records = 0;
+            int offset = 0;
+            while (offset + HEADER_BYTES <= fileSize) {
+                int length = buffer.getInt(offset);
+                int checksum = buffer.getInt(offset + 4);
+                long id = buffer.getLong(offset + 8);
+                if (length < 0 || offset + HEADER_BYTES + (long) length > fileSize) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(offset + HEADER_BYTES, payload);
+                if (crc(payload, 0, length) != checksum) {
+                    break;
+                }
+                if (records % indexInterval == 0) {
+                    index.put(id, offset);
+                }
+                records++;
+                lastId = id;
+                offset += HEADER_BYTES + length;
+            }
+            indexed = true;
+            return offset;
+        }
+
+        /**
+         * Отображение файла в память; переотображается, если файл вырос
+         */
+        private synchronized ByteBuffer map(long bytes) throws IOException {
+            if (mapped == null || mappedSize < bytes) {
+                if (channel != null) {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+                } else {
+                    try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                        mapped = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+                    }
+                }
+                mappedSize = bytes;
+            }
+            return mapped.duplicate();
+        }
+
+        /**
+         * Добавить в result сообщения сегмента, у которых есть файл
+         */
+        private void collectFiles(List<ChatMessage> result) {
+            List<ChatMessage> messages = new ArrayList<>();
+            read(Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, messages);
+            for (ChatMessage message : messages) {
+                if (message.getBlobHash() != null) {
+                    result.add(message);
+                }
+            }
+        }
+
+        private void seal() {
+            close();
+            channel = null;
+        }
+
+        private void close() {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                System.err.println("❌ Ошибка закрытия сегмента журнала чата: " + e.getMessage());
+            }
+        }
+
+        private void delete() {
+            close();
+            channel = null;
+            mapped = null;
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                System.err.println("❌ Не удалось удалить сегмент журнала чата " + path.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Кольцевой буфер последних сообщений чата фиксированной емкости.
+ * Каждое сообщение получает позицию из монотонной последовательности,
+ * запись в слот - O(1) без блокировок и без копирования массива.
+ * Читатели не блокируют писателей: слот проверяется по опубликованной
+ * позиции до и после чтения (как в seqlock), перезаписанные слоты пропускаются.
+ * Писатель позиции seq ждет, пока писатель seq - capacity опубликует тот же слот.
+ *
+ * ID сообщения выдается тем же атомарным шагом, что и позиция: id = firstId + seq.
+ * Поэтому ID строго возрастают в порядке буфера и не повторяются при гонках.
+ */
+final class ChatMessageLog {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<ChatMessage> slots;
+
+    // Для каждого слота: seq + 1 - опубликовано, -(seq + 1) - идет запись, 0 - пусто
+    private final AtomicLongArray published;
+
+    // Следующая свободная позиция
+    private final AtomicLong cursor = new AtomicLong();
+
+    // Позиции ниже этой считаются удаленными (после очистки истории)
+    private volatile long floor;
+
+    // ID сообщения на позиции 0
+    private final long firstId;
+
+    ChatMessageLog(int minCapacity) {
+        this(minCapacity, 1);
+    }
+
+    ChatMessageLog(int minCapacity, long firstId) {
+        this.firstId = firstId;
+        int size = Integer.highestOneBit(Math.max(2, minCapacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.published = new AtomicLongArray(size);
+    }
+
+    /**
+     * Начальный ID по часам: больше любого ID, выданного до рестарта,
+     * пока в среднем отправляется меньше 1000 сообщений в миллисекунду.
+     * Значения остаются меньше 2^53 и точно представимы в JavaScript.
+     */
+    static long firstIdFromClock() {
+        return System.currentTimeMillis() * 1000;
+    }
+
+    /**
+     * Добавить сообщение и присвоить ему следующий ID.
+     * Возвращает вытесненное из буфера сообщение или null.
+     */
+    ChatMessage append(ChatMessage message) {
+        long seq = cursor.getAndIncrement();
+        int index = (int) (seq & mask);
+        message.setId(firstId + seq);
+
+        // Слот занимается только после публикации предыдущего круга (seq - capacity),
+        // иначе отставший писатель перезапишет более новое сообщение.
+        // Метка записи ставится тем же CAS, чтобы читатель не принял новое сообщение за старое
+        long previous = seq >= capacity ? seq - capacity + 1 : 0;
+        while (!published.compareAndSet(index, previous, -(seq + 1))) {
+            Thread.onSpinWait();
+        }
+        ChatMessage evicted = slots.getAndSet(index, message);
+        published.set(index, seq + 1);
+        return evicted;
+    }
+
+    /**
+     * Вернуть в буфер сообщение, восстановленное из журнала, не меняя его ID.
+     * ID должен совпадать со следующей позицией буфера.
+     */
+    void restore(ChatMessage message) {
+        long seq = cursor.get();
+        if (message.getId() == null || message.getId() != firstId + seq) {
+            throw new IllegalArgumentException("Ожидался ID " + (firstId + seq) + ", получен " + message.getId());
+        }
+        cursor.set(seq + 1);
+        int index = (int) (seq & mask);
+        published.set(index, -(seq + 1));
+        slots.set(index, message);
+        published.set(index, seq + 1);
+    }
+
+    /**
+     * Сообщения с id больше указанного, по порядку добавления.
+     * Позиция начала вычисляется из id за O(1).
+     * Чтение останавливается на первом еще не опубликованном слоте,
+     * чтобы курсор клиента не перескочил через сообщение, которое вот-вот появится.
+     */
+    List<ChatMessage> readAfterId(long afterId) {
+        long end = cursor.get();
+        long start = firstReadable(end);
+        if (afterId >= firstId) {
+            start = Math.max(start, Math.min(end, afterId - firstId + 1));
+        }
+        return readRange(start, end);
+    }
+
+    /**
+     * Последний выданный ID (firstId - 1, если сообщений еще не было)
+     */
+    long lastId() {
+        return firstId + cursor.get() - 1;
+    }
+
+    /**
+     * ID самого старого сообщения, которое еще можно прочитать из буфера
+     */
+    long oldestId() {
+        return firstId + firstReadable(cursor.get());
+    }
+
+    /**
+     * Последние limit сообщений
+     */
+    List<ChatMessage> readLast(int limit) {
+        long end = cursor.get();
+        long start = Math.max(firstReadable(end), end - limit);
+        return readRange(start, end);
+    }
+
+    /**
+     * Все сообщения в буфере
+     */
+    List<ChatMessage> readAll() {
+        long end = cursor.get();
+        return readRange(firstReadable(end), end);
+    }
+
+    /**
+     * Число сообщений в буфере
+     */
+    int size() {
+        long end = cursor.get();
+        return (int) (end - firstReadable(end));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Забыть все текущие сообщения (позиции продолжают расти).
+     * Возвращает ID последнего забытого сообщения
+     */
+    long clear() {
+        long end = cursor.get();
+        floor = end;
+        return firstId + end - 1;
+    }
+
+    private List<ChatMessage> readRange(long start, long end) {
+        List<ChatMessage> result = new ArrayList<>((int) Math.max(0, end - start));
+        for (long seq = start; seq < end; seq++) {
+            ChatMessage message = read(seq);
+            if (message == null) {
+                if (isOverwritten(seq)) {
+                    continue;
+                }
+                break;
+            }
+            result.add(message);
+        }
+        return result;
+    }
+
+    private long firstReadable(long end) {
+        return Math.max(floor, end - capacity);
+    }
+
+    /**
+     * Прочитать сообщение на позиции seq или null, если слот еще не опубликован или уже перезаписан
+     */
+    private ChatMessage read(long seq) {
+        int index = (int) (seq & mask);
+        if (published.get(index) != seq + 1) {
+            return null;
+        }
+        ChatMessage message = slots.get(index);
+        if (published.get(index) != seq + 1) {
+            return null;
+        }
+        return message;
+    }
+
+    // Слот занят более новой позицией (опубликованной или записываемой)
+    private boolean isOverwritten(long seq) {
+        long state = published.get((int) (seq & mask));
+        return Math.abs(state) - 1 > seq;
+    }
+}
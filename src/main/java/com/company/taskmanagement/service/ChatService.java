@@ -1,38 +1,76 @@
 package com.company.taskmanagement.service;
 
 import com.company.taskmanagement.model.ChatMessage;
+import com.company.taskmanagement.model.MessageReactions;
+import com.company.taskmanagement.model.ReactionDelta;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
 
 @Service
 public class ChatService {
 
-    // In-memory хранилище для онлайн пользователей
-    private final ConcurrentHashMap<String, LocalDateTime> onlineUsers = new ConcurrentHashMap<>();
+    @Autowired
+    private ChatEventBroadcaster chatEventBroadcaster;
 
-    // In-memory хранилище для сообщений (не сохраняем в БД)
-    private final List<ChatMessage> messages = new CopyOnWriteArrayList<>();
-    private static final int MAX_MESSAGES = 500; // Увеличили лимит сообщений
+    @Autowired
+    private ChatJournal chatJournal;
 
-    // Для отслеживания последнего ID сообщения
-    private long lastMessageId = 0;
+    @Autowired
+    private PresenceTracker presenceTracker;
+
+    // In-memory хранилище для сообщений (не сохраняем в БД): кольцевой буфер без блокировок
+    private static final int MAX_MESSAGES = 500; // Увеличили лимит сообщений (буфер округляется до 512)
+    // ID выдает сам буфер: строго возрастающие, продолжают журнал после рестарта
+    private ChatMessageLog messages;
+
+    // Сколько старых сообщений отдавать из журнала за один запрос
+    private static final int HISTORY_BATCH = 200;
 
     // Кэш для быстрого доступа к сообщениям по ID
     private final Map<Long, ChatMessage> messageCache = new ConcurrentHashMap<>();
 
     // Emoji реакции
-    private static final Set<String> AVAILABLE_EMOJIS = Set.of(
-            "👍", "👎", "❤️", "🔥", "🥳", "👀", "🚀", "🎉"
-    );
+    private static final Set<String> AVAILABLE_EMOJIS = Set.copyOf(MessageReactions.EMOJIS);
+
+    /**
+     * Восстановить последние сообщения из журнала, ID продолжаются с последнего записанного
+     */
+    @PostConstruct
+    public void restoreFromJournal() {
+        List<ChatMessage> tail = chatJournal.readLast(MAX_MESSAGES);
+
+        // В буфер попадает только непрерывный по ID хвост
+        int start = Math.max(0, tail.size() - 1);
+        while (start > 0 && tail.get(start - 1).getId() + 1 == tail.get(start).getId()) {
+            start--;
+        }
+        List<ChatMessage> restored = tail.subList(start, tail.size());
+
+        long firstId;
+        if (!restored.isEmpty()) {
+            firstId = restored.get(0).getId();
+        } else if (chatJournal.getLastId() > 0) {
+            firstId = chatJournal.getLastId() + 1;
+        } else {
+            firstId = ChatMessageLog.firstIdFromClock();
+        }
+
+        messages = new ChatMessageLog(MAX_MESSAGES, firstId);
+        chatJournal.startAt(firstId);
+        for (ChatMessage message : restored) {
+            messages.restore(message);
+            messageCache.put(message.getId(), message);
+        }
+        System.out.println("✅ Из журнала чата восстановлено сообщений: " + restored.size());
+    }
 
     public List<ChatMessage> getRecentMessages(int limit) {
-        int startIndex = Math.max(0, messages.size() - limit);
-        List<ChatMessage> recentMessages = new ArrayList<>(messages.subList(startIndex, messages.size()));
+        List<ChatMessage> recentMessages = messages.readLast(limit);
         System.out.println("Returning " + recentMessages.size() + " recent messages");
         return recentMessages;
     }
@@ -42,13 +80,23 @@ public class ChatService {
             return getRecentMessages(50);
         }
 
-        return messages.stream()
-                .filter(msg -> msg.getId() != null && msg.getId() > lastMessageId)
-                .collect(Collectors.toList());
+        // Клиент отстал дальше, чем хранит буфер - догоняем из журнала порциями
+        long oldestInMemory = messages.oldestId();
+        if (lastMessageId + 1 < oldestInMemory) {
+            List<ChatMessage> history = chatJournal.readAfter(lastMessageId, oldestInMemory, HISTORY_BATCH);
+            if (history.size() >= HISTORY_BATCH) {
+                return history;
+            }
+            List<ChatMessage> result = new ArrayList<>(history);
+            result.addAll(messages.readAfterId(lastMessageId));
+            return result;
+        }
+
+        return messages.readAfterId(lastMessageId);
     }
 
     public List<ChatMessage> getAllMessages() {
-        return new ArrayList<>(messages);
+        return messages.readAll();
     }
 
     public ChatMessage saveMessage(ChatMessage message) {
@@ -62,27 +110,21 @@ public class ChatService {
             message.setTimestamp(LocalDateTime.now());
         }
 
-        // Устанавливаем уникальный ID
-        if (message.getId() == null) {
-            message.setId(++lastMessageId);
-        }
-
         // Проверяем, нет ли уже такого сообщения (чтобы избежать дублирования)
-        boolean messageExists = messages.stream()
-                .anyMatch(m -> m.getId() != null && m.getId().equals(message.getId()));
+        boolean messageExists = message.getId() != null && messageCache.get(message.getId()) == message;
 
         if (!messageExists) {
-            // Добавляем сообщение в память
-            messages.add(message);
+            // Добавляем сообщение в память с новым ID, самое старое вытесняется из буфера.
+            // В журнал его запишет поток писателя в порядке ID: отправитель не ждет диска
+            ChatMessage removed = messages.append(message);
+            chatJournal.submit(message);
             messageCache.put(message.getId(), message);
-
-            // Ограничиваем количество сообщений в памяти
-            if (messages.size() > MAX_MESSAGES) {
-                ChatMessage removed = messages.remove(0);
-                messageCache.remove(removed.getId());
+            if (removed != null) {
+                messageCache.remove(removed.getId(), removed);
             }
 
             System.out.println("Message saved to memory. Total messages: " + messages.size());
+            chatEventBroadcaster.messageCreated(message);
         } else {
             System.out.println("Message already exists, skipping: " + message.getId());
         }
@@ -90,22 +132,64 @@ public class ChatService {
         return message;
     }
 
-    public ChatMessage addReaction(Long messageId, String emoji, String username) {
+    /**
+     * Поставить реакцию пользователя; подписчикам уходит только новый счетчик emoji
+     */
+    public ReactionDelta addReaction(Long messageId, String emoji, String username) {
         ChatMessage message = messageCache.get(messageId);
-        if (message != null && AVAILABLE_EMOJIS.contains(emoji)) {
-            message.addReaction(emoji);
+        if (message == null) {
+            return null;
+        }
+        ReactionDelta delta = message.addReaction(username, emoji);
+        if (delta != null && delta.isChanged()) {
             System.out.println("Added reaction " + emoji + " to message " + messageId + " by " + username);
+            chatEventBroadcaster.reactionChanged(delta);
         }
-        return message;
+        return delta;
     }
 
-    public ChatMessage removeReaction(Long messageId, String emoji, String username) {
+    /**
+     * Снять реакцию пользователя
+     */
+    public ReactionDelta removeReaction(Long messageId, String emoji, String username) {
         ChatMessage message = messageCache.get(messageId);
-        if (message != null) {
-            message.removeReaction(emoji);
+        if (message == null) {
+            return null;
+        }
+        ReactionDelta delta = message.removeReaction(username, emoji);
+        if (delta != null && delta.isChanged()) {
             System.out.println("Removed reaction " + emoji + " from message " + messageId + " by " + username);
+            chatEventBroadcaster.reactionChanged(delta);
         }
-        return message;
+        return delta;
+    }
+
+    /**
+     * Реакции пользователя на сообщения в буфере (id сообщения -> emoji)
+     */
+    public Map<Long, List<String>> getUserReactions(String username) {
+        Map<Long, List<String>> result = new LinkedHashMap<>();
+        for (ChatMessage message : messages.readAll()) {
+            List<String> emojis = message.reactionsOf(username);
+            if (!emojis.isEmpty()) {
+                result.put(message.getId(), emojis);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Сообщение с файлом по id: из буфера, а для вытесненных - из журнала (или null).
+     * Имя и MIME-тип берутся из самого сообщения, поэтому одинаковые файлы
+     * разных отправителей не путаются
+     */
+    public ChatMessage getFileMessage(Long messageId) {
+        ChatMessage message = messageCache.get(messageId);
+        if (message == null) {
+            List<ChatMessage> found = chatJournal.readAfter(messageId - 1, messageId + 1, 1);
+            message = found.isEmpty() ? null : found.get(0);
+        }
+        return message != null && message.isFileMessage() && message.getBlobHash() != null ? message : null;
     }
 
     public ChatMessage getMessageById(Long messageId) {
@@ -113,41 +197,32 @@ public class ChatService {
     }
 
     public void clearChatHistory() {
-        messages.clear();
+        long clearedThrough = messages.clear();
+        chatJournal.clear(clearedThrough);
         messageCache.clear();
-        lastMessageId = 0;
         System.out.println("Chat history cleared");
     }
 
-    // Управление онлайн статусом
+    // Управление онлайн статусом (истечение отслеживает PresenceTracker, без обхода при каждом вызове)
     public void userConnected(String username) {
-        onlineUsers.put(username, LocalDateTime.now());
-        cleanupOfflineUsers();
-        System.out.println("User connected: " + username);
+        presenceTracker.heartbeat(username);
     }
 
     public void userDisconnected(String username) {
-        onlineUsers.remove(username);
+        presenceTracker.disconnect(username);
         System.out.println("User disconnected: " + username);
     }
 
     public int getOnlineUsersCount() {
-        cleanupOfflineUsers();
-        return onlineUsers.size();
+        return presenceTracker.getOnlineCount();
     }
 
     public List<String> getOnlineUsers() {
-        cleanupOfflineUsers();
-        return new ArrayList<>(onlineUsers.keySet());
+        return presenceTracker.getOnlineUsers();
     }
 
     public boolean isUserOnline(String username) {
-        return onlineUsers.containsKey(username);
-    }
-
-    private void cleanupOfflineUsers() {
-        LocalDateTime threshold = LocalDateTime.now().minusMinutes(5);
-        onlineUsers.entrySet().removeIf(entry -> entry.getValue().isBefore(threshold));
+        return presenceTracker.isOnline(username);
     }
 
     public Set<String> getAvailableEmojis() {
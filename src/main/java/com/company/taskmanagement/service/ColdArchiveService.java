@@ -0,0 +1,446 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.ArchivedTask;
+import com.company.taskmanagement.model.FileAttachment;
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.repository.ArchivedTaskRepository;
+import com.company.taskmanagement.repository.FileAttachmentRepository;
+import com.company.taskmanagement.repository.ProjectTaskRepository;
+import com.company.taskmanagement.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Холодный архив задач. Задачи, архивированные больше after-days дней назад,
+ * вместе с метаданными вложений переносятся из tasks в archived_tasks,
+ * поэтому горячая таблица не растет вместе с историей.
+ * Файлы вложений остаются в BlobStore: ссылки на них переходят к записи архива.
+ */
+@Service
+public class ColdArchiveService {
+
+    @Autowired
+    private ProjectTaskRepository projectTaskRepository;
+
+    @Autowired
+    private ArchivedTaskRepository archivedTaskRepository;
+
+    @Autowired
+    private FileAttachmentRepository fileAttachmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTaskStatsService userTaskStatsService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${archive.cold.after-days:180}")
+    private int afterDays;
+
+    @Value("${archive.cold.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${archive.cold.pause-ms:200}")
+    private long pauseMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Перенести давно архивированные задачи в холодный архив.
+     * Каждая порция - отдельная транзакция, между порциями пауза
+     */
+    @Scheduled(cron = "${archive.cold.cron:0 0 3 * * ?}") // Каждый день в 3:00, после автоархивации
+    public int moveOldArchivedTasks() {
+        LocalDate threshold = LocalDate.now().minusDays(afterDays);
+        int limit = Math.max(1, chunkSize);
+        long start = System.nanoTime();
+        int moved = 0;
+
+        try {
+            while (true) {
+                Integer chunk = transactionTemplate.execute(status -> moveChunk(threshold, limit));
+                moved += chunk;
+                if (chunk < limit) {
+                    break;
+                }
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("❌ Перенос в холодный архив прерван");
+        } catch (Exception e) {
+            System.err.println("❌ Ошибка переноса в холодный архив: " + e.getMessage());
+        }
+
+        System.out.println("✅ В холодный архив перенесено задач: " + moved + " за "
+                + (System.nanoTime() - start) / 1_000_000 + " мс (архивированы до " + threshold + ")");
+        return moved;
+    }
+
+    /**
+     * Одна порция переноса внутри текущей транзакции, возвращает число выбранных задач
+     */
+    int moveChunk(LocalDate threshold, int limit) {
+        List<Long> ids = projectTaskRepository.findColdArchiveCandidateIds(threshold, PageRequest.of(0, limit));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, List<FileAttachment>> attachments = new HashMap<>();
+        for (FileAttachment attachment : fileAttachmentRepository.findByTaskIdIn(ids)) {
+            attachments.computeIfAbsent(attachment.getTask().getId(), key -> new ArrayList<>()).add(attachment);
+        }
+        for (ProjectTask task : projectTaskRepository.findAllWithAssigneesByIdIn(ids)) {
+            entityManager.persist(toArchivedTask(task, attachments.getOrDefault(task.getId(), List.of())));
+        }
+        entityManager.flush();
+
+        // Строки удаляются без снятия ссылок на blob - ссылки теперь у записей архива.
+        // Счетчики пользователей не меняются: задача остается архивной
+        fileAttachmentRepository.deleteByTaskIdIn(ids);
+        projectTaskRepository.deleteAllByIdIn(ids);
+        entityManager.clear();
+        return ids.size();
+    }
+
+    /**
+     * Все задачи холодного архива
+     */
+    @Transactional(readOnly = true)
+    public List<ProjectTask> getArchivedTasks() {
+        return toTasks(archivedTaskRepository.findAllWithAssignees());
+    }
+
+    /**
+     * Задачи холодного архива, где пользователь исполнитель
+     */
+    @Transactional(readOnly = true)
+    public List<ProjectTask> getUserArchivedTasks(Long userId) {
+        return toTasks(archivedTaskRepository.findAllWithAssigneesByAssigneeId(userId));
+    }
+
+    /**
+     * Id задач холодного архива после курсора (keyset по id)
+     */
+    public List<Long> findPageIds(Long userId, long afterId, Pageable pageable) {
+        return userId == null
+                ? archivedTaskRepository.findPageIds(afterId, pageable)
+                : archivedTaskRepository.findPageIdsByAssigneeId(userId, afterId, pageable);
+    }
+
+    /**
+     * Id задач холодного архива для отчета после курсора (keyset по id)
+     */
+    public List<Long> findReportIds(LocalDate startDate, LocalDate endDate, Long userId,
+                                    long afterId, Pageable pageable) {
+        return archivedTaskRepository.findReportIds(startDate, endDate, userId, afterId, pageable);
+    }
+
+    /**
+     * Задачи холодного архива по id; отсутствующие id пропускаются
+     */
+    @Transactional(readOnly = true)
+    public List<ProjectTask> getTasks(List<Long> ids) {
+        return ids.isEmpty() ? List.of() : toTasks(archivedTaskRepository.findAllWithAssigneesByIdIn(ids));
+    }
+
+    /**
+     * Задача холодного архива только для чтения: описание и вложения из payload
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProjectTask> getTask(Long id) {
+        return getTasks(List.of(id)).stream().findFirst();
+    }
+
+    public long count() {
+        return archivedTaskRepository.count();
+    }
+
+    public long countForUser(Long userId) {
+        return archivedTaskRepository.countByAssigneeId(userId);
+    }
+
+    /**
+     * Вернуть задачу из холодного архива в работу. Задача получает новый id,
+     * вложения ссылаются на те же файлы. Возвращает null, если записи нет
+     */
+    @Transactional
+    public ProjectTask restore(Long id) {
+        ArchivedTask record = archivedTaskRepository.findById(id).orElse(null);
+        if (record == null) {
+            return null;
+        }
+        Payload payload = readPayload(record.getPayload());
+
+        ProjectTask task = new ProjectTask();
+        task.setTitle(record.getTitle());
+        task.setDescription(payload.getDescription());
+        task.setStatus(record.getStatus());
+        task.setPriority(record.getPriority());
+        task.setDueDate(record.getDueDate());
+        task.setCreatedAt(record.getCreatedAt());
+        task.setCompletedDate(record.getCompletedDate());
+        task.setStatusChangedDate(payload.getStatusChangedDate());
+        task.setAssignees(new HashSet<>(userRepository.findAllById(record.getAssigneeIds())));
+        entityManager.persist(task);
+
+        // Вложения сохраняются по одному: у новых сущностей еще нет id для Set
+        for (StoredAttachment stored : payload.getAttachments()) {
+            FileAttachment attachment = stored.toAttachment();
+            attachment.setId(null);
+            attachment.setTask(task);
+            entityManager.persist(attachment);
+        }
+
+        UserTaskStatsService.TaskCounterState before = new UserTaskStatsService.TaskCounterState(
+                new HashSet<>(record.getAssigneeIds()), record.getStatus(), true, record.getDueDate());
+        archivedTaskRepository.delete(record);
+        userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.of(task));
+
+        System.out.println("✅ Задача " + id + " восстановлена из холодного архива с id " + task.getId());
+        return task;
+    }
+
+    /**
+     * Удалить задачу из холодного архива вместе с ее файлами
+     */
+    @Transactional
+    public boolean delete(Long id) {
+        ArchivedTask record = archivedTaskRepository.findById(id).orElse(null);
+        if (record == null) {
+            return false;
+        }
+        for (StoredAttachment stored : readPayload(record.getPayload()).getAttachments()) {
+            try {
+                if (stored.getBlobHash() != null) {
+                    blobStore.release(stored.getBlobHash());
+                } else {
+                    Files.deleteIfExists(Paths.get(stored.getFilePath()));
+                }
+            } catch (IOException e) {
+                System.err.println("❌ Ошибка удаления файла " + stored.getOriginalFilename() + ": " + e.getMessage());
+            }
+        }
+
+        UserTaskStatsService.TaskCounterState before = new UserTaskStatsService.TaskCounterState(
+                new HashSet<>(record.getAssigneeIds()), record.getStatus(), true, record.getDueDate());
+        archivedTaskRepository.delete(record);
+        userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.EMPTY);
+        return true;
+    }
+
+    private ArchivedTask toArchivedTask(ProjectTask task, List<FileAttachment> attachments) {
+        ArchivedTask record = new ArchivedTask();
+        record.setId(task.getId());
+        record.setArchiveMonth(ArchivedTask.monthOf(task.getArchivedDate()));
+        record.setTitle(task.getTitle());
+        record.setStatus(task.getStatus());
+        record.setPriority(task.getPriority());
+        record.setDueDate(task.getDueDate());
+        record.setCreatedAt(task.getCreatedAt());
+        record.setCompletedDate(task.getCompletedDate());
+        record.setArchivedDate(task.getArchivedDate());
+        for (User user : task.getAssignees()) {
+            record.getAssigneeIds().add(user.getId());
+        }
+
+        Payload payload = new Payload();
+        payload.setDescription(task.getDescription());
+        payload.setStatusChangedDate(task.getStatusChangedDate());
+        for (FileAttachment attachment : attachments) {
+            payload.getAttachments().add(StoredAttachment.of(attachment));
+        }
+        record.setPayload(writePayload(payload));
+        return record;
+    }
+
+    /**
+     * Задачи архива в виде отсоединенных ProjectTask - для тех же шаблонов и сервисов
+     */
+    private List<ProjectTask> toTasks(List<ArchivedTask> records) {
+        Set<Long> userIds = new HashSet<>();
+        for (ArchivedTask record : records) {
+            userIds.addAll(record.getAssigneeIds());
+        }
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            users.put(user.getId(), user);
+        }
+
+        List<ProjectTask> tasks = new ArrayList<>(records.size());
+        for (ArchivedTask record : records) {
+            Payload payload = readPayload(record.getPayload());
+            ProjectTask task = new ProjectTask();
+            task.setId(record.getId());
+            task.setTitle(record.getTitle());
+            task.setDescription(payload.getDescription());
+            task.setStatus(record.getStatus());
+            task.setPriority(record.getPriority());
+            task.setDueDate(record.getDueDate());
+            task.setCreatedAt(record.getCreatedAt());
+            task.setArchived(true);
+            task.setArchivedDate(record.getArchivedDate());
+            task.setCompletedDate(record.getCompletedDate());
+            task.setStatusChangedDate(payload.getStatusChangedDate());
+            task.setColdStorage(true);
+            for (Long userId : record.getAssigneeIds()) {
+                User user = users.get(userId);
+                if (user != null) {
+                    task.getAssignees().add(user);
+                }
+            }
+            // Исходные id вложений сохранены, поэтому Set их различает
+            for (StoredAttachment stored : payload.getAttachments()) {
+                FileAttachment attachment = stored.toAttachment();
+                attachment.setTask(task);
+                task.getAttachments().add(attachment);
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private byte[] writePayload(Payload payload) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка упаковки задачи для архива", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Payload readPayload(byte[] bytes) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return objectMapper.readValue(in, Payload.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка чтения задачи из архива", e);
+        }
+    }
+
+    /**
+     * Редко читаемые поля задачи в сжатом блоке
+     */
+    public static class Payload {
+        private String description;
+        private LocalDate statusChangedDate;
+        private List<StoredAttachment> attachments = new ArrayList<>();
+
+        // геттеры и сеттеры
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+        public LocalDate getStatusChangedDate() { return statusChangedDate; }
+        public void setStatusChangedDate(LocalDate statusChangedDate) { this.statusChangedDate = statusChangedDate; }
+        public List<StoredAttachment> getAttachments() { return attachments; }
+        public void setAttachments(List<StoredAttachment> attachments) { this.attachments = attachments; }
+    }
+
+    /**
+     * Метаданные вложения в холодном архиве
+     */
+    public static class StoredAttachment {
+        private Long id;
+        private String filename;
+        private String originalFilename;
+        private String filePath;
+        private Long fileSize;
+        private String contentType;
+        private String blobHash;
+        private LocalDateTime uploadedAt;
+
+        static StoredAttachment of(FileAttachment attachment) {
+            StoredAttachment stored = new StoredAttachment();
+            stored.id = attachment.getId();
+            stored.filename = attachment.getFilename();
+            stored.originalFilename = attachment.getOriginalFilename();
+            stored.filePath = attachment.getFilePath();
+            stored.fileSize = attachment.getFileSize();
+            stored.contentType = attachment.getContentType();
+            stored.blobHash = attachment.getBlobHash();
+            stored.uploadedAt = attachment.getUploadedAt();
+            return stored;
+        }
+
+        FileAttachment toAttachment() {
+            FileAttachment attachment = new FileAttachment();
+            attachment.setId(id);
+            attachment.setFilename(filename);
+            attachment.setOriginalFilename(originalFilename);
+            attachment.setFilePath(filePath);
+            attachment.setFileSize(fileSize);
+            attachment.setContentType(contentType);
+            attachment.setBlobHash(blobHash);
+            attachment.setUploadedAt(uploadedAt);
+            return attachment;
+        }
+
+        // геттеры и сеттеры
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getFilename() { return filename; }
+        public void setFilename(String filename) { this.filename = filename; }
+        public String getOriginalFilename() { return originalFilename; }
+        public void setOriginalFilename(String originalFilename) { this.originalFilename = originalFilename; }
+        public String getFilePath() { return filePath; }
+        public void setFilePath(String filePath) { this.filePath = filePath; }
+        public Long getFileSize() { return fileSize; }
+        public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+        public String getContentType() { return contentType; }
+        public void setContentType(String contentType) { this.contentType = contentType; }
+        public String getBlobHash() { return blobHash; }
+        public void setBlobHash(String blobHash) { this.blobHash = blobHash; }
+        public LocalDateTime getUploadedAt() { return uploadedAt; }
+        public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
+    }
+}
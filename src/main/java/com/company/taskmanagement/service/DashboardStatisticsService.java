@@ -0,0 +1,105 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.repository.ProjectTaskRepository;
+import com.company.taskmanagement.repository.TaskStatusCount;
+import com.company.taskmanagement.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Числа для дашборда. Считаются в БД групповыми COUNT,
+ * задачи в память не загружаются. Строки группировки кэшируются в TaskListCache.
+ */
+@Service
+@Transactional(readOnly = true)
+public class DashboardStatisticsService {
+
+    @Autowired
+    private ProjectTaskRepository projectTaskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskListCache taskListCache;
+
+    /**
+     * Статистика по всем задачам (для администратора)
+     */
+    public DashboardStatistics getGlobalStatistics() {
+        DashboardStatistics stats = aggregate(taskListCache.get(null, "dashboard",
+                () -> List.copyOf(projectTaskRepository.countGroupedByStatusAndArchived())));
+        stats.setTotalUsers(userRepository.count());
+        return stats;
+    }
+
+    /**
+     * Статистика по задачам, где пользователь исполнитель
+     */
+    public DashboardStatistics getUserStatistics(Long userId) {
+        return aggregate(taskListCache.get(userId, "dashboard",
+                () -> List.copyOf(projectTaskRepository.countGroupedByStatusAndArchivedForAssignee(userId))));
+    }
+
+    /**
+     * Статистика для дашборда текущего пользователя
+     */
+    public DashboardStatistics getStatisticsFor(User user) {
+        if ("ADMIN".equals(user.getRole())) {
+            return getGlobalStatistics();
+        }
+        return getUserStatistics(user.getId());
+    }
+
+    private DashboardStatistics aggregate(List<TaskStatusCount> rows) {
+        DashboardStatistics stats = new DashboardStatistics();
+        for (TaskStatusCount row : rows) {
+            long count = row.getTotal();
+            stats.setTotalTasks(stats.getTotalTasks() + count);
+            if (row.isArchived()) {
+                stats.setArchivedTasks(stats.getArchivedTasks() + count);
+            } else {
+                stats.setActiveTasks(stats.getActiveTasks() + count);
+            }
+            if (row.getStatus() != null) {
+                stats.getByStatus().merge(row.getStatus(), count, Long::sum);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Класс для статистики дашборда
+     */
+    public static class DashboardStatistics {
+        private long totalUsers;
+        private long totalTasks;
+        private long activeTasks;
+        private long archivedTasks;
+        private final Map<ProjectTask.TaskStatus, Long> byStatus = new EnumMap<>(ProjectTask.TaskStatus.class);
+
+        public long countByStatus(ProjectTask.TaskStatus status) {
+            return byStatus.getOrDefault(status, 0L);
+        }
+
+        // геттеры и сеттеры
+        public long getTotalUsers() { return totalUsers; }
+        public void setTotalUsers(long totalUsers) { this.totalUsers = totalUsers; }
+        public long getTotalTasks() { return totalTasks; }
+        public void setTotalTasks(long totalTasks) { this.totalTasks = totalTasks; }
+        public long getActiveTasks() { return activeTasks; }
+        public void setActiveTasks(long activeTasks) { this.activeTasks = activeTasks; }
+        public long getArchivedTasks() { return archivedTasks; }
+        public void setArchivedTasks(long archivedTasks) { this.archivedTasks = archivedTasks; }
+        public long getCompletedTasks() { return countByStatus(ProjectTask.TaskStatus.COMPLETED); }
+        public long getPendingTasks() { return countByStatus(ProjectTask.TaskStatus.PENDING); }
+        public Map<ProjectTask.TaskStatus, Long> getByStatus() { return byStatus; }
+    }
+}
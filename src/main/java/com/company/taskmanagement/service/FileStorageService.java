@@ -2,26 +2,23 @@ package com.company.taskmanagement.service;
 
 import com.company.taskmanagement.model.FileAttachment;
 import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.StoredBlob;
 import com.company.taskmanagement.repository.FileAttachmentRepository;
 import com.company.taskmanagement.repository.ProjectTaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 public class FileStorageService {
 
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
+    public static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
 
     @Autowired
     private FileAttachmentRepository fileAttachmentRepository;
@@ -29,15 +26,28 @@ public class FileStorageService {
     @Autowired
     private ProjectTaskRepository projectTaskRepository;
 
+    @Autowired
+    private BlobStore blobStore;
+
     /**
      * Сохранить файл для задачи
      */
     public FileAttachment storeFileForTask(MultipartFile file, Long taskId) throws IOException {
+        // Получаем задачу из репозитория
+        ProjectTask task = projectTaskRepository.findById(taskId)
+                .orElseThrow(() -> new IllegalArgumentException("Задача не найдена"));
+        return storeFileForTask(file, task);
+    }
+
+    /**
+     * Сохранить файл для уже загруженной задачи (без повторного чтения задачи на каждый файл)
+     */
+    public FileAttachment storeFileForTask(MultipartFile file, ProjectTask task) throws IOException {
         if (file == null || file.isEmpty()) {
             throw new IOException("Файл пустой");
         }
 
-        if (file.getSize() > 10 * 1024 * 1024) {
+        if (file.getSize() > MAX_FILE_SIZE) {
             throw new IOException("Размер файла превышает 10MB");
         }
 
@@ -45,32 +55,55 @@ public class FileStorageService {
             throw new IOException("Тип файла не разрешен");
         }
 
-        // Получаем задачу из репозитория
+        // Содержимое сохраняется по SHA-256: одинаковые файлы лежат на диске один раз.
+        // Временный файл контейнера переносится в хранилище без повторного копирования
+        StoredBlob blob = blobStore.store(file);
+        return saveAttachment(task, blob, file.getOriginalFilename(), file.getContentType());
+    }
+
+    /**
+     * Сохранить файл из потока (тело части multipart без временного файла контейнера).
+     * Размер, SHA-256 и тип по сигнатуре считаются за один проход записи
+     */
+    public FileAttachment storeStreamForTask(Long taskId, String originalFilename, String declaredType,
+                                             InputStream content) throws IOException {
+        if (originalFilename == null || originalFilename.isBlank()) {
+            throw new IOException("Файл пустой");
+        }
+
+        // Задачу проверяем до чтения тела, чтобы не писать файл впустую
         ProjectTask task = projectTaskRepository.findById(taskId)
                 .orElseThrow(() -> new IllegalArgumentException("Задача не найдена"));
 
-        // Создание директории для задачи
-        Path taskDir = Paths.get(uploadDir, "tasks", taskId.toString());
-        Files.createDirectories(taskDir);
-
-        // Генерация уникального имени файла
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = getFileExtension(originalFilename);
-        String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
+        UploadInspector inspector = new UploadInspector(content, MAX_FILE_SIZE);
+        StoredBlob blob = blobStore.store(inspector);
 
-        Path targetLocation = taskDir.resolve(uniqueFilename);
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+        String contentType = inspector.resolveContentType(declaredType);
+        if (blob.getSize() == 0 || !isAllowedFileType(contentType)) {
+            blobStore.release(blob.getSha256());
+            throw new IOException(blob.getSize() == 0 ? "Файл пустой" : "Тип файла не разрешен");
+        }
+        return saveAttachment(task, blob, originalFilename, contentType);
+    }
 
+    private FileAttachment saveAttachment(ProjectTask task, StoredBlob blob, String originalFilename,
+                                          String contentType) {
         // Сохранение информации о файле в БД
         FileAttachment attachment = new FileAttachment();
         attachment.setOriginalFilename(originalFilename);
-        attachment.setFilename(uniqueFilename);
-        attachment.setFilePath(targetLocation.toString());
-        attachment.setFileSize(file.getSize());
-        attachment.setContentType(file.getContentType());
+        attachment.setFilename(blob.getSha256() + getFileExtension(originalFilename));
+        attachment.setFilePath(blob.getBlobPath());
+        attachment.setFileSize(blob.getSize());
+        attachment.setContentType(contentType);
+        attachment.setBlobHash(blob.getSha256());
         attachment.setTask(task);
 
-        return fileAttachmentRepository.save(attachment);
+        try {
+            return fileAttachmentRepository.save(attachment);
+        } catch (RuntimeException e) {
+            blobStore.release(blob.getSha256());
+            throw e;
+        }
     }
 
     public List<FileAttachment> getTaskFiles(Long taskId) {
@@ -85,10 +118,9 @@ public class FileStorageService {
     public void deleteFile(Long fileId) throws IOException {
         FileAttachment attachment = getFile(fileId);
 
-        // Удаление физического файла
+        // Удаление физического файла (общий blob - только вместе с последней ссылкой)
         try {
-            Files.deleteIfExists(Paths.get(attachment.getFilePath()));
-            System.out.println("✅ Физический файл удален: " + attachment.getFilePath());
+            releaseContent(attachment);
         } catch (IOException e) {
             System.err.println("❌ Ошибка удаления физического файла: " + e.getMessage());
             // Продолжаем удаление записи из БД даже если файл не найден
@@ -114,8 +146,8 @@ public class FileStorageService {
 
         for (FileAttachment attachment : attachments) {
             try {
-                // Удаление физического файла
-                Files.deleteIfExists(Paths.get(attachment.getFilePath()));
+                // Удаление физического файла (или ссылки на общий blob)
+                releaseContent(attachment);
                 System.out.println("✅ Удален файл: " + attachment.getOriginalFilename());
                 deletedCount++;
             } catch (IOException e) {
@@ -137,7 +169,19 @@ public class FileStorageService {
                 ": успешно " + deletedCount + ", ошибок " + errorCount);
     }
 
-    private boolean isAllowedFileType(String contentType) {
+    /**
+     * Снять ссылку на blob; файлы без blob (загруженные раньше) удаляются сразу
+     */
+    private void releaseContent(FileAttachment attachment) throws IOException {
+        if (attachment.getBlobHash() != null) {
+            blobStore.release(attachment.getBlobHash());
+        } else {
+            Files.deleteIfExists(Paths.get(attachment.getFilePath()));
+            System.out.println("✅ Физический файл удален: " + attachment.getFilePath());
+        }
+    }
+
+    static boolean isAllowedFileType(String contentType) {
         if (contentType == null) return false;
 
         return contentType.startsWith("image/") ||
@@ -149,7 +193,7 @@ public class FileStorageService {
                 contentType.contains("rar");
     }
 
-    private String getFileExtension(String filename) {
+    static String getFileExtension(String filename) {
         if (filename == null || !filename.contains(".")) {
             return "";
         }
@@ -0,0 +1,84 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.FileAttachment;
+import com.company.taskmanagement.model.ProjectTask;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.MappingException;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Выравнивание генераторов id задач и вложений по существующим строкам.
+ * Раньше id выдавал AUTO_INCREMENT, а новый генератор начинает с 1 независимо от данных:
+ * в MySQL это таблица-эмуляция (tasks_seq, file_attachments_seq),
+ * в H2, PostgreSQL и MariaDB - настоящая последовательность.
+ * Без выравнивания первые вставки после обновления получили бы занятые id.
+ */
+@Component
+public class IdSequenceAligner {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Зависимость гарантирует, что схема уже обновлена Hibernate
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void align() {
+        align("tasks_seq", "tasks", ProjectTask.ID_ALLOCATION_SIZE);
+        align("file_attachments_seq", "file_attachments", FileAttachment.ID_ALLOCATION_SIZE);
+    }
+
+    private void align(String generator, String table, int allocationSize) {
+        long maxId;
+        try {
+            maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        } catch (DataAccessException e) {
+            System.err.println("❌ Не удалось выровнять генератор id " + generator + ": " + e.getMostSpecificCause().getMessage());
+            return;
+        }
+        if (maxId == 0) {
+            return;
+        }
+        // Оптимизатор pooled берет блок (next_val - allocationSize, next_val]
+        long required = maxId + allocationSize;
+
+        try {
+            int updated = jdbcTemplate.update(
+                    "UPDATE " + generator + " SET next_val = ? WHERE next_val < ?", required, required);
+            if (updated > 0) {
+                System.out.println("✅ Генератор id " + generator + " выровнен: следующий id " + (maxId + 1));
+            }
+            return;
+        } catch (DataAccessException e) {
+            // Таблицы нет: генератор - настоящая последовательность
+        }
+
+        try {
+            alignSequence(generator, maxId, required);
+        } catch (DataAccessException | MappingException e) {
+            System.err.println("❌ Не удалось выровнять последовательность " + generator + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Текущее значение последовательности без чтения занять нельзя, поэтому берется одно значение
+     * (остается пропуск в id) и, если последовательность отстает, она перезапускается с required
+     */
+    private void alignSequence(String sequence, long maxId, long required) {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        Long next = jdbcTemplate.queryForObject(
+                dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+        if (next != null && next >= required) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + required);
+        System.out.println("✅ Последовательность " + sequence + " выровнена: следующий id " + (maxId + 1));
+    }
+}
@@ -0,0 +1,40 @@
+package com.company.taskmanagement.service;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница списка при keyset-пагинации: вместо номера страницы хранится курсор
+ * (id последней записи), поэтому стоимость запроса не зависит от глубины листания
+ */
+public class KeysetPage<T> {
+
+    private final List<T> content;
+    private final Long nextCursor;
+    private final int size;
+
+    public KeysetPage(List<T> content, Long nextCursor, int size) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.size = size;
+    }
+
+    /**
+     * Собрать страницу из выборки размером size + 1: лишняя запись означает, что есть следующая страница
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, Long> idExtractor) {
+        if (rows.size() > size) {
+            List<T> content = rows.subList(0, size);
+            return new KeysetPage<>(content, idExtractor.apply(content.get(size - 1)), size);
+        }
+        return new KeysetPage<>(rows, null, size);
+    }
+
+    public List<T> getContent() { return content; }
+
+    public Long getNextCursor() { return nextCursor; }
+
+    public int getSize() { return size; }
+
+    public boolean hasNext() { return nextCursor != null; }
+}
@@ -0,0 +1,295 @@
+package com.company.taskmanagement.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Потоковый разбор multipart/form-data прямо из тела запроса.
+ * Части читаются по очереди через общий буфер, тело части - InputStream
+ * до следующей границы; ничего не сохраняется во временные файлы.
+ * Следующая часть доступна после next(), непрочитанный остаток текущей пропускается.
+ */
+public final class MultipartStreamParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private int pos;
+    private int limit;
+    private boolean finished;
+
+    // Текущая часть; вначале - преамбула до первой границы
+    private PartInputStream current = new PartInputStream();
+
+    public MultipartStreamParser(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 4)];
+        // Первая граница идет без CRLF перед ней - добавляем его, чтобы искать один шаблон
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+    /**
+     * Граница из заголовка Content-Type или null, если это не multipart
+     */
+    public static String boundaryOf(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            return null;
+        }
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.toLowerCase(Locale.ROOT).startsWith("boundary=")) {
+                String boundary = trimmed.substring("boundary=".length());
+                if (boundary.length() >= 2 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                    boundary = boundary.substring(1, boundary.length() - 1);
+                }
+                return boundary.isEmpty() ? null : boundary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Следующая часть или null после закрывающей границы
+     */
+    public Part next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        current.skipRemaining();
+        pos += delimiter.length;
+
+        ensure(2);
+        if (buffer[pos] == '-' && buffer[pos + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        // После границы допускаются пробелы до конца строки
+        while (true) {
+            ensure(2);
+            if (buffer[pos] == '\r' && buffer[pos + 1] == '\n') {
+                pos += 2;
+                break;
+            }
+            if (buffer[pos] != ' ' && buffer[pos] != '\t') {
+                throw new IOException("Некорректная граница multipart");
+            }
+            pos++;
+        }
+
+        Map<String, String> headers = readHeaders();
+        current = new PartInputStream();
+        return new Part(headers, current);
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        int consumed = 0;
+        while (true) {
+            int end = indexOfLineEnd();
+            String line = new String(buffer, pos, end - pos, StandardCharsets.UTF_8);
+            consumed += end - pos + 2;
+            pos = end + 2;
+            if (line.isEmpty()) {
+                return headers;
+            }
+            if (consumed > MAX_HEADER_BYTES) {
+                throw new IOException("Слишком большие заголовки части multipart");
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+    }
+
+    private int indexOfLineEnd() throws IOException {
+        int from = pos;
+        while (true) {
+            for (int i = from; i < limit - 1; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                    return i;
+                }
+            }
+            if (limit - pos > MAX_HEADER_BYTES) {
+                throw new IOException("Слишком большие заголовки части multipart");
+            }
+            from = Math.max(pos, limit - 1) - pos;
+            if (!fill()) {
+                throw new IOException("Неожиданный конец заголовков multipart");
+            }
+            from += pos;
+        }
+    }
+
+    /**
+     * Гарантировать n непрочитанных байт в буфере
+     */
+    private void ensure(int n) throws IOException {
+        while (limit - pos < n) {
+            if (!fill()) {
+                throw new IOException("Неожиданный конец тела multipart");
+            }
+        }
+    }
+
+    /**
+     * Сдвинуть непрочитанное в начало буфера и дочитать из потока
+     */
+    private boolean fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read <= 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private int indexOfDelimiter() {
+        int last = limit - delimiter.length;
+        outer:
+        for (int i = pos; i <= last; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Тело части: байты до следующей границы
+     */
+    private final class PartInputStream extends InputStream {
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (ended || current != this) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            int available = availableBeforeDelimiter();
+            if (available == 0) {
+                ended = true;
+                return -1;
+            }
+            int count = Math.min(length, available);
+            System.arraycopy(buffer, pos, target, offset, count);
+            pos += count;
+            return count;
+        }
+
+        /**
+         * Сколько байт можно отдать, не задев возможное начало границы
+         */
+        private int availableBeforeDelimiter() throws IOException {
+            while (true) {
+                int index = indexOfDelimiter();
+                if (index >= 0) {
+                    return index - pos;
+                }
+                int safe = limit - pos - (delimiter.length - 1);
+                if (safe > 0) {
+                    return safe;
+                }
+                if (!fill()) {
+                    throw new IOException("Неожиданный конец тела multipart: нет закрывающей границы");
+                }
+            }
+        }
+
+        private void skipRemaining() throws IOException {
+            while (!ended) {
+                int available = availableBeforeDelimiter();
+                if (available == 0) {
+                    ended = true;
+                } else {
+                    pos += available;
+                }
+            }
+        }
+    }
+
+    /**
+     * Часть multipart: заголовки и поток тела
+     */
+    public static final class Part {
+        private final Map<String, String> headers;
+        private final InputStream body;
+
+        private Part(Map<String, String> headers, InputStream body) {
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public String getHeader(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+
+        public String getName() {
+            return dispositionParameter("name");
+        }
+
+        /**
+         * Имя файла или null для обычного поля формы
+         */
+        public String getFilename() {
+            return dispositionParameter("filename");
+        }
+
+        public String getContentType() {
+            return getHeader("content-type");
+        }
+
+        public InputStream getInputStream() {
+            return body;
+        }
+
+        private String dispositionParameter(String parameter) {
+            String disposition = getHeader("content-disposition");
+            if (disposition == null) {
+                return null;
+            }
+            for (String token : disposition.split(";")) {
+                String trimmed = token.trim();
+                int equals = trimmed.indexOf('=');
+                if (equals > 0 && trimmed.substring(0, equals).trim().equalsIgnoreCase(parameter)) {
+                    String value = trimmed.substring(equals + 1).trim();
+                    if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                        value = value.substring(1, value.length() - 1).replace("\\\"", "\"");
+                    }
+                    // IE и старые браузеры присылают полный путь
+                    int slash = Math.max(value.lastIndexOf('/'), value.lastIndexOf('\\'));
+                    return "filename".equals(parameter) && slash >= 0 ? value.substring(slash + 1) : value;
+                }
+            }
+            return null;
+        }
+    }
+}
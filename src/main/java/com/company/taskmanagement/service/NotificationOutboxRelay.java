@@ -0,0 +1,71 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.NotificationOutbox;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Периодически забирает из outbox неотправленные уведомления
+ * (потерянные при рестарте, переполнении очереди или сбое Telegram)
+ * и передает их в TelegramNotificationDispatcher.
+ * Несколько узлов могут работать параллельно благодаря SKIP LOCKED.
+ */
+@Service
+public class NotificationOutboxRelay {
+
+    @Autowired
+    private NotificationOutboxService outboxService;
+
+    @Autowired
+    private TelegramNotificationDispatcher dispatcher;
+
+    @Autowired
+    private TelegramGroupNotificationService telegramService;
+
+    @Value("${telegram.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${telegram.outbox.retention-days:7}")
+    private int retentionDays;
+
+    /**
+     * Забрать готовые записи пачками, пока есть место в очереди отправки
+     */
+    @Scheduled(fixedDelayString = "${telegram.outbox.relay-interval-ms:5000}")
+    public void relay() {
+        if (!telegramService.isConfigured()) {
+            return;
+        }
+
+        try {
+            int capacity = dispatcher.remainingCapacity();
+            while (capacity > 0) {
+                List<NotificationOutbox> claimed = outboxService.claimBatch(Math.min(batchSize, capacity));
+                for (NotificationOutbox entry : claimed) {
+                    // При переполнении запись останется захваченной до истечения блокировки
+                    dispatcher.enqueue(new TaskNotificationEvent(entry.getId(), entry.getText(), true));
+                }
+                if (claimed.size() < batchSize) {
+                    break;
+                }
+                capacity = dispatcher.remainingCapacity();
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Ошибка relay outbox уведомлений: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Очистка доставленных уведомлений
+     */
+    @Scheduled(cron = "0 30 3 * * ?") // Каждый день в 3:30
+    public void purgeSent() {
+        int deleted = outboxService.purgeSentBefore(LocalDateTime.now().minusDays(retentionDays));
+        System.out.println("Удалено доставленных уведомлений из outbox: " + deleted);
+    }
+}
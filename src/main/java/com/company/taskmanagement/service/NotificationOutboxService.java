@@ -0,0 +1,132 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.NotificationOutbox;
+import com.company.taskmanagement.repository.NotificationOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Персистентная очередь (outbox) уведомлений Telegram.
+ * Запись создается в той же транзакции, что и изменение задачи,
+ * поэтому уведомление не теряется при рестарте или недоступности Telegram.
+ */
+@Service
+public class NotificationOutboxService {
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    // Сколько времени запись принадлежит захватившему ее отправителю
+    @Value("${telegram.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    // Сколько ждать быструю отправку из памяти, прежде чем запись заберет relay
+    @Value("${telegram.outbox.handoff-grace-seconds:30}")
+    private long handoffGraceSeconds;
+
+    @Value("${telegram.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${telegram.outbox.retry-delay-seconds:60}")
+    private long retryDelaySeconds;
+
+    /**
+     * Сохранить уведомление в outbox (в текущей транзакции)
+     */
+    @Transactional
+    public NotificationOutbox record(String text) {
+        NotificationOutbox entry = new NotificationOutbox(text, LocalDateTime.now().plusSeconds(handoffGraceSeconds));
+        return outboxRepository.save(entry);
+    }
+
+    /**
+     * Захватить одну запись для быстрой отправки после коммита
+     */
+    @Transactional
+    public boolean claim(Long id) {
+        return outboxRepository.claimPending(id, LocalDateTime.now().plusSeconds(leaseSeconds)) > 0;
+    }
+
+    /**
+     * Захватить пачку готовых записей (SELECT ... FOR UPDATE SKIP LOCKED)
+     */
+    @Transactional
+    public List<NotificationOutbox> claimBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> entries = outboxRepository.findClaimableForUpdate(now, PageRequest.of(0, limit));
+
+        List<NotificationOutbox> claimed = new ArrayList<>();
+        for (NotificationOutbox entry : entries) {
+            if (entry.getAttempts() >= maxAttempts) {
+                entry.setStatus(NotificationOutbox.OutboxStatus.FAILED);
+                entry.setLockedUntil(null);
+                continue;
+            }
+            entry.setStatus(NotificationOutbox.OutboxStatus.SENDING);
+            entry.setLockedUntil(now.plusSeconds(leaseSeconds));
+            entry.setAttempts(entry.getAttempts() + 1);
+            claimed.add(entry);
+        }
+        return claimed;
+    }
+
+    /**
+     * Отметить записи как доставленные
+     */
+    @Transactional
+    public void markSent(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            outboxRepository.markSent(ids, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Вернуть записи в очередь после неудачной отправки (или пометить FAILED)
+     */
+    @Transactional
+    public void markForRetry(Collection<Long> ids, String error) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (NotificationOutbox entry : outboxRepository.findAllByIdIn(ids)) {
+            if (entry.getStatus() == NotificationOutbox.OutboxStatus.SENT) {
+                continue;
+            }
+            entry.setLastError(truncate(error, 1000));
+            entry.setLockedUntil(null);
+            if (entry.getAttempts() >= maxAttempts) {
+                entry.setStatus(NotificationOutbox.OutboxStatus.FAILED);
+                System.err.println("❌ Уведомление " + entry.getId() + " помечено как FAILED после " + entry.getAttempts() + " попыток");
+            } else {
+                entry.setStatus(NotificationOutbox.OutboxStatus.PENDING);
+                entry.setNextAttemptAt(now.plusSeconds(retryDelaySeconds * entry.getAttempts()));
+            }
+        }
+    }
+
+    /**
+     * Удалить доставленные записи старше указанной даты
+     */
+    @Transactional
+    public int purgeSentBefore(LocalDateTime before) {
+        return outboxRepository.deleteSentBefore(before);
+    }
+
+    public long countPending() {
+        return outboxRepository.countByStatus(NotificationOutbox.OutboxStatus.PENDING);
+    }
+
+    private String truncate(String text, int length) {
+        if (text == null || text.length() <= length) return text;
+        return text.substring(0, length);
+    }
+}
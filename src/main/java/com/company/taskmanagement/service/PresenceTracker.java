@@ -0,0 +1,173 @@
+package com.company.taskmanagement.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Онлайн-статус пользователей чата.
+ * Heartbeat только записывает время (epoch millis) - без обхода всей карты.
+ * Истечение отслеживает колесо таймеров в одном фоновом потоке: когда срок
+ * подходит, проверяется последнее время активности, и таймер либо
+ * перевзводится, либо пользователь уходит в офлайн.
+ * Переходы онлайн/офлайн рассылаются подписчикам чата событием chat-presence.
+ */
+@Service
+public class PresenceTracker {
+
+    @Autowired
+    private ChatEventBroadcaster chatEventBroadcaster;
+
+    @Value("${chat.presence.timeout-ms:300000}")
+    private long timeoutMs;
+
+    @Value("${chat.presence.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${chat.presence.wheel-slots:512}")
+    private int wheelSlots;
+
+    // Пользователь -> время последней активности
+    private final ConcurrentHashMap<String, Presence> presences = new ConcurrentHashMap<>();
+    private TimerWheel<Presence> wheel;
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void start() {
+        wheel = new TimerWheel<>(wheelSlots, tickMs, System.currentTimeMillis());
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chat-presence-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> {
+            try {
+                expire(System.currentTimeMillis());
+            } catch (Exception e) {
+                System.err.println("❌ Ошибка обработки онлайн-статусов: " + e.getMessage());
+            }
+        }, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Отметить активность пользователя
+     */
+    public void heartbeat(String username) {
+        heartbeat(username, System.currentTimeMillis());
+    }
+
+    void heartbeat(String username, long now) {
+        Presence[] created = new Presence[1];
+        presences.compute(username, (name, presence) -> {
+            if (presence == null) {
+                created[0] = new Presence(name, now);
+                return created[0];
+            }
+            presence.lastSeen = now;
+            return presence;
+        });
+        if (created[0] != null) {
+            wheel.schedule(created[0], now + timeoutMs);
+            publish(username, true);
+        }
+    }
+
+    /**
+     * Пользователь явно вышел
+     */
+    public void disconnect(String username) {
+        // Таймер в колесе останется и при срабатывании не найдет своей записи
+        if (presences.remove(username) != null) {
+            publish(username, false);
+        }
+    }
+
+    public boolean isOnline(String username) {
+        return presences.containsKey(username);
+    }
+
+    public int getOnlineCount() {
+        return presences.size();
+    }
+
+    public List<String> getOnlineUsers() {
+        return new ArrayList<>(presences.keySet());
+    }
+
+    /**
+     * Шаг колеса: обработать истекшие таймеры
+     */
+    void expire(long now) {
+        wheel.advance(now, presence -> {
+            boolean[] wentOffline = new boolean[1];
+            // Проверка и удаление атомарны относительно heartbeat того же пользователя;
+            // таймер чужой записи (после повторного входа) игнорируется
+            presences.computeIfPresent(presence.username, (name, current) -> {
+                if (current != presence || current.lastSeen + timeoutMs > now) {
+                    return current;
+                }
+                wentOffline[0] = true;
+                return null;
+            });
+            if (wentOffline[0]) {
+                publish(presence.username, false);
+            } else if (presences.get(presence.username) == presence) {
+                // Была активность после постановки таймера - перевзводим
+                wheel.schedule(presence, presence.lastSeen + timeoutMs);
+            }
+        });
+    }
+
+    private void publish(String username, boolean online) {
+        chatEventBroadcaster.presenceChanged(new PresenceChange(username, online, presences.size()));
+    }
+
+    private static final class Presence {
+        private final String username;
+        private volatile long lastSeen;
+
+        private Presence(String username, long lastSeen) {
+            this.username = username;
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    /**
+     * Событие смены онлайн-статуса
+     */
+    public static class PresenceChange {
+        private String username;
+        private boolean online;
+        private int onlineCount;
+
+        public PresenceChange(String username, boolean online, int onlineCount) {
+            this.username = username;
+            this.online = online;
+            this.onlineCount = onlineCount;
+        }
+
+        // геттеры и сеттеры
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+        public boolean isOnline() { return online; }
+        public void setOnline(boolean online) { this.online = online; }
+        public int getOnlineCount() { return onlineCount; }
+        public void setOnlineCount(int onlineCount) { this.onlineCount = onlineCount; }
+    }
+}
@@ -1,9 +1,14 @@
 package com.company.taskmanagement.service;
 
+import com.company.taskmanagement.model.NotificationOutbox;
 import com.company.taskmanagement.model.ProjectTask;
 import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.repository.ArchivedTaskRepository;
 import com.company.taskmanagement.repository.ProjectTaskRepository;
+import com.company.taskmanagement.repository.UserTaskCounters;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +24,9 @@ public class ProjectTaskService {
     @Autowired
     private ProjectTaskRepository projectTaskRepository;
 
+    @Autowired
+    private ArchivedTaskRepository archivedTaskRepository;
+
     @Autowired
     private UserService userService;
 
@@ -28,6 +36,15 @@ public class ProjectTaskService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    @Autowired
+    private UserTaskStatsService userTaskStatsService;
+
     /**
      * Получить все задачи
      */
@@ -45,6 +62,27 @@ public class ProjectTaskService {
         return projectTaskRepository.findById(id);
     }
 
+    /**
+     * Найти задачу вместе с исполнителями и файлами (для страницы просмотра)
+     */
+    public Optional<ProjectTask> getTaskWithDetails(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return projectTaskRepository.findWithAssigneesAndAttachmentsById(id);
+    }
+
+    /**
+     * Может ли пользователь менять задачу и ее файлы: администратор - любую, пользователь - свою
+     */
+    @Transactional(readOnly = true)
+    public boolean canEdit(Long taskId, User user) {
+        if (user == null || taskId == null) {
+            return false;
+        }
+        return "ADMIN".equals(user.getRole()) || projectTaskRepository.isAssignee(taskId, user.getId());
+    }
+
     /**
      * Получить задачи пользователя
      */
@@ -71,13 +109,11 @@ public class ProjectTaskService {
         task.setStatusChangedDate(LocalDate.now());
 
         ProjectTask savedTask = projectTaskRepository.save(task);
+        userTaskStatsService.applyChange(UserTaskStatsService.TaskCounterState.EMPTY,
+                UserTaskStatsService.TaskCounterState.of(savedTask));
 
-        // Отправляем уведомление в Telegram группу
-        try {
-            telegramNotificationService.sendTaskNotification(savedTask);
-        } catch (Exception e) {
-            System.err.println("❌ Ошибка отправки уведомления: " + e.getMessage());
-        }
+        // Уведомление в Telegram группу уйдет асинхронно после коммита
+        publishNotification(telegramNotificationService.buildTaskMessage(savedTask));
 
         return savedTask;
     }
@@ -86,7 +122,18 @@ public class ProjectTaskService {
      * Обновить задачу с логикой дат завершения
      */
     public ProjectTask updateTask(Long id, ProjectTask taskDetails) {
+        return updateTask(id, null, taskDetails);
+    }
+
+    /**
+     * Обновить задачу, если ее версия совпадает с expectedVersion (версия из формы).
+     * При null версия не проверяется
+     */
+    public ProjectTask updateTask(Long id, Long expectedVersion, ProjectTask taskDetails) {
+        // Состояние до изменения читаем из БД: сущность могли изменить до вызова сервиса
+        UserTaskStatsService.TaskCounterState before = userTaskStatsService.snapshot(id);
         return projectTaskRepository.findById(id).map(existingTask -> {
+            checkVersion(existingTask, expectedVersion);
             ProjectTask.TaskStatus oldStatus = existingTask.getStatus();
 
             // Обновляем поля
@@ -99,19 +146,79 @@ public class ProjectTaskService {
             // Обновляем статус
             updateTaskStatus(existingTask, taskDetails.getStatus(), oldStatus);
 
-            ProjectTask savedTask = projectTaskRepository.save(existingTask);
+            // flush сразу: конфликт версий всплывает здесь, а не при коммите
+            ProjectTask savedTask = projectTaskRepository.saveAndFlush(existingTask);
+            userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.of(savedTask));
 
             // Уведомление об обновлении
-            try {
-                telegramNotificationService.sendTaskUpdatedNotification(savedTask);
-            } catch (Exception e) {
-                System.err.println("❌ Ошибка отправки уведомления об обновлении: " + e.getMessage());
-            }
+            publishNotification(telegramNotificationService.buildTaskUpdatedMessage(savedTask));
 
             return savedTask;
         }).orElseThrow(() -> new IllegalArgumentException("Задача с ID " + id + " не найдена"));
     }
 
+    /**
+     * Частичное обновление: меняются только переданные поля, UPDATE пишет только их колонки
+     */
+    public ProjectTask patchTask(Long id, long expectedVersion, TaskPatch patch) {
+        UserTaskStatsService.TaskCounterState before = userTaskStatsService.snapshot(id);
+        ProjectTask task = projectTaskRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Задача с ID " + id + " не найдена"));
+        checkVersion(task, expectedVersion);
+
+        if (patch.getTitle() != null) {
+            if (patch.getTitle().trim().isEmpty()) {
+                throw new IllegalArgumentException("Название задачи не может быть пустым");
+            }
+            task.setTitle(patch.getTitle());
+        }
+        if (patch.isDescriptionSet()) {
+            task.setDescription(patch.getDescription());
+        }
+        if (patch.getPriority() != null) {
+            task.setPriority(patch.getPriority());
+        }
+        if (patch.isDueDateSet()) {
+            task.setDueDate(patch.getDueDate());
+        }
+        if (patch.getStatus() != null) {
+            updateTaskStatus(task, patch.getStatus(), task.getStatus());
+        }
+        if (patch.getAssigneeIds() != null) {
+            Set<User> users = userService.getUsersByIds(patch.getAssigneeIds());
+            if (users.isEmpty()) {
+                throw new IllegalArgumentException("Необходимо выбрать хотя бы одного исполнителя");
+            }
+            task.setAssignees(users);
+        }
+
+        ProjectTask savedTask = projectTaskRepository.saveAndFlush(task);
+        userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.of(savedTask));
+        publishNotification(telegramNotificationService.buildTaskUpdatedMessage(savedTask));
+        return savedTask;
+    }
+
+    /**
+     * Задачу уже изменили после того, как клиент ее прочитал
+     */
+    private void checkVersion(ProjectTask task, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != task.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(ProjectTask.class, task.getId());
+        }
+    }
+
+    /**
+     * Опубликовать уведомление: текст формируется и сохраняется в outbox в текущей транзакции
+     * (исполнители еще доступны), а отправка выполняется TelegramNotificationDispatcher после коммита
+     */
+    private void publishNotification(String text) {
+        if (!telegramNotificationService.isConfigured()) {
+            return;
+        }
+        NotificationOutbox entry = notificationOutboxService.record(text);
+        eventPublisher.publishEvent(new TaskNotificationEvent(entry.getId(), text, false));
+    }
+
     /**
      * Обновление статуса задачи с логикой дат
      */
@@ -139,6 +246,7 @@ public class ProjectTaskService {
      * Завершить задачу - устанавливаем дату завершения
      */
     public ProjectTask completeTask(Long taskId) {
+        UserTaskStatsService.TaskCounterState before = userTaskStatsService.snapshot(taskId);
         return projectTaskRepository.findById(taskId).map(task -> {
             ProjectTask.TaskStatus oldStatus = task.getStatus();
 
@@ -150,13 +258,10 @@ public class ProjectTaskService {
             }
 
             ProjectTask savedTask = projectTaskRepository.save(task);
+            userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.of(savedTask));
 
             // Уведомление о завершении
-            try {
-                telegramNotificationService.sendTaskCompletedNotification(savedTask);
-            } catch (Exception e) {
-                System.err.println("❌ Ошибка отправки уведомления о завершении: " + e.getMessage());
-            }
+            publishNotification(telegramNotificationService.buildTaskCompletedMessage(savedTask));
 
             return savedTask;
         }).orElseThrow(() -> new IllegalArgumentException("Задача с ID " + taskId + " не найдена"));
@@ -175,6 +280,7 @@ public class ProjectTaskService {
             }
 
             ProjectTask task = taskOptional.get();
+            UserTaskStatsService.TaskCounterState before = userTaskStatsService.snapshot(id);
             System.out.println("Начинаем удаление задачи ID: " + id);
 
             // 1. Сначала очищаем связи многие-ко-многим
@@ -204,6 +310,8 @@ public class ProjectTaskService {
                 return false;
             }
 
+            userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.EMPTY);
+
             System.out.println("✅ Задача " + id + " успешно удалена");
             return true;
 
@@ -226,8 +334,11 @@ public class ProjectTaskService {
             throw new IllegalArgumentException("Не указаны пользователи для назначения");
         }
 
+        UserTaskStatsService.TaskCounterState before = userTaskStatsService.snapshot(taskId);
         task.setAssignees(users);
-        return projectTaskRepository.save(task);
+        ProjectTask savedTask = projectTaskRepository.save(task);
+        userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.of(savedTask));
+        return savedTask;
     }
 
     /**
@@ -285,15 +396,20 @@ public class ProjectTaskService {
         TaskStatistics stats = new TaskStatistics();
 
         if (userId != null) {
-            stats.setTotalTasks(projectTaskRepository.countActiveTasksByUserId(userId) +
-                    projectTaskRepository.countArchivedTasksByUserId(userId));
-            stats.setActiveTasks(projectTaskRepository.countActiveTasksByUserId(userId));
-            stats.setArchivedTasks(projectTaskRepository.countArchivedTasksByUserId(userId));
-            stats.setCompletedTasks(projectTaskRepository.findByAssigneeIdAndStatusAndArchivedFalse(userId, "COMPLETED").size());
+            // Одно чтение по первичному ключу из user_task_stats
+            UserTaskCounters counters = userTaskStatsService.getCounters(userId);
+            if (counters != null) {
+                stats.setTotalTasks(counters.getActiveTasks() + counters.getArchivedTasks());
+                stats.setActiveTasks(counters.getActiveTasks());
+                stats.setArchivedTasks(counters.getArchivedTasks());
+                stats.setCompletedTasks(counters.getCompletedTasks());
+                stats.setOverdueTasks(counters.getOverdueTasks());
+            }
         } else {
-            stats.setTotalTasks(projectTaskRepository.count());
+            long coldArchived = archivedTaskRepository.count();
+            stats.setTotalTasks(projectTaskRepository.count() + coldArchived);
             stats.setActiveTasks(projectTaskRepository.countActiveTasks());
-            stats.setArchivedTasks(projectTaskRepository.countArchivedTasks());
+            stats.setArchivedTasks(projectTaskRepository.countArchivedTasks() + coldArchived);
         }
 
         return stats;
@@ -307,6 +423,7 @@ public class ProjectTaskService {
         private long activeTasks;
         private long archivedTasks;
         private long completedTasks;
+        private long overdueTasks;
 
         // геттеры и сеттеры
         public long getTotalTasks() { return totalTasks; }
@@ -317,5 +434,38 @@ public class ProjectTaskService {
         public void setArchivedTasks(long archivedTasks) { this.archivedTasks = archivedTasks; }
         public long getCompletedTasks() { return completedTasks; }
         public void setCompletedTasks(long completedTasks) { this.completedTasks = completedTasks; }
+        public long getOverdueTasks() { return overdueTasks; }
+        public void setOverdueTasks(long overdueTasks) { this.overdueTasks = overdueTasks; }
+    }
+
+    /**
+     * Изменения для частичного обновления задачи: null - поле не меняется.
+     * Описание и срок можно очистить, поэтому для них запоминается, что поле передано
+     */
+    public static class TaskPatch {
+        private String title;
+        private String description;
+        private boolean descriptionSet;
+        private ProjectTask.TaskStatus status;
+        private ProjectTask.TaskPriority priority;
+        private LocalDate dueDate;
+        private boolean dueDateSet;
+        private Set<Long> assigneeIds;
+
+        // геттеры и сеттеры
+        public String getTitle() { return title; }
+        public void setTitle(String title) { this.title = title; }
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; this.descriptionSet = true; }
+        public boolean isDescriptionSet() { return descriptionSet; }
+        public ProjectTask.TaskStatus getStatus() { return status; }
+        public void setStatus(ProjectTask.TaskStatus status) { this.status = status; }
+        public ProjectTask.TaskPriority getPriority() { return priority; }
+        public void setPriority(ProjectTask.TaskPriority priority) { this.priority = priority; }
+        public LocalDate getDueDate() { return dueDate; }
+        public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; this.dueDateSet = true; }
+        public boolean isDueDateSet() { return dueDateSet; }
+        public Set<Long> getAssigneeIds() { return assigneeIds; }
+        public void setAssigneeIds(Set<Long> assigneeIds) { this.assigneeIds = assigneeIds; }
     }
 }
\ No newline at end of file
@@ -3,13 +3,27 @@ package com.company.taskmanagement.service;
 import com.company.taskmanagement.model.ProjectTask;
 import com.company.taskmanagement.model.User;
 import com.company.taskmanagement.repository.ProjectTaskRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Service
 public class ReportService {
@@ -17,43 +31,97 @@ public class ReportService {
     @Autowired
     private ProjectTaskRepository projectTaskRepository;
 
+    @Autowired
+    private ColdArchiveService coldArchiveService;
+
     @Autowired
     private UserService userService;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private static final String UTF8_BOM = "\uFEFF";
 
+    // Размер страницы при выборке задач для отчета
+    private static final int REPORT_PAGE_SIZE = 500;
+
+    // Размер буфера кодировщика при потоковой записи отчета
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
     /**
      * Генерация расширенного отчета по всем задачам
      */
+    @Transactional(readOnly = true)
     public byte[] generateExcelReport(LocalDate startDate, LocalDate endDate, Long userId) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeCsvReport(out, startDate, endDate, userId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Потоковая запись отчета в CSV.
+     * Строки пишутся в поток по мере чтения из БД через буферизованный UTF-8 кодировщик,
+     * поэтому время до первого байта и пиковое потребление памяти не зависят от числа строк.
+     */
+    @Transactional(readOnly = true)
+    public void writeCsvReport(OutputStream out, LocalDate startDate, LocalDate endDate, Long userId) throws IOException {
         // Валидация параметров
         validateReportParameters(startDate, endDate);
 
-        // Получаем задачи для отчета
-        List<ProjectTask> reportTasks = getTasksForReport(startDate, endDate, userId);
-
-        System.out.println("Сгенерирован отчет для " + reportTasks.size() + " задач");
-        System.out.println("Период: " + startDate + " - " + endDate);
-        System.out.println("User ID: " + userId);
-
-        // Генерация CSV
-        String csvContent = generateCsvContent(reportTasks, startDate, endDate, userId);
-        return (UTF8_BOM + csvContent).getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        writer.write(UTF8_BOM);
+        writeCsvContent(writer, startDate, endDate, userId);
+        writer.flush();
     }
 
     /**
-     * Получить задачи для отчета с улучшенной фильтрацией
+     * Обойти задачи для отчета постранично (keyset по id).
+     * Фильтрация по датам и исполнителю выполняется в БД, исполнители подгружаются
+     * одним запросом на страницу, после каждой страницы контекст очищается,
+     * поэтому потребление памяти не зависит от размера таблицы.
+     * Задачи холодного архива входят в отчет наравне с задачами из tasks.
+     *
+     * @return количество обработанных задач
      */
-    private List<ProjectTask> getTasksForReport(LocalDate startDate, LocalDate endDate, Long userId) {
+    private long forEachReportTask(LocalDate startDate, LocalDate endDate, Long userId,
+                                   Consumer<ProjectTask> consumer) {
         try {
-            // Базовый запрос - все задачи
-            List<ProjectTask> allTasks = projectTaskRepository.findAll();
+            long count = 0;
+            long lastId = 0L;
+            PageRequest limit = PageRequest.of(0, REPORT_PAGE_SIZE);
+
+            while (true) {
+                List<Long> ids = findReportIds(startDate, endDate, userId, lastId, limit);
+                if (ids.isEmpty()) {
+                    break;
+                }
+
+                List<ProjectTask> tasks = projectTaskRepository.findAllWithAssigneesByIdIn(ids);
+                if (tasks.size() < ids.size()) {
+                    // Недостающие id страницы - задачи холодного архива
+                    tasks = new ArrayList<>(tasks);
+                    tasks.addAll(coldArchiveService.getTasks(ids));
+                    tasks.sort(Comparator.comparing(ProjectTask::getId));
+                }
+
+                for (ProjectTask task : tasks) {
+                    consumer.accept(task);
+                    count++;
+                }
+
+                lastId = ids.get(ids.size() - 1);
+                entityManager.clear();
+
+                if (ids.size() < REPORT_PAGE_SIZE) {
+                    break;
+                }
+            }
 
-            return allTasks.stream()
-                    .filter(task -> task != null)
-                    .filter(task -> isTaskInDateRange(task, startDate, endDate))
-                    .filter(task -> userId == null || isTaskAssignedToUser(task, userId))
-                    .collect(Collectors.toList());
+            return count;
 
         } catch (Exception e) {
             System.err.println("Ошибка при получении задач для отчета: " + e.getMessage());
@@ -61,132 +129,132 @@ public class ReportService {
         }
     }
 
-    /**
-     * Проверка что задача попадает в диапазон дат
-     */
-    private boolean isTaskInDateRange(ProjectTask task, LocalDate startDate, LocalDate endDate) {
-        // Проверяем по дате создания ИЛИ дате завершения ИЛИ дате архивации
-        boolean createdInRange = task.getCreatedAt() != null &&
-                isDateInRange(task.getCreatedAt(), startDate, endDate);
-
-        boolean completedInRange = task.getCompletedDate() != null &&
-                isDateInRange(task.getCompletedDate(), startDate, endDate);
-
-        boolean archivedInRange = task.getArchivedDate() != null &&
-                isDateInRange(task.getArchivedDate(), startDate, endDate);
-
-        return createdInRange || completedInRange || archivedInRange;
+    private List<Long> findReportIds(LocalDate startDate, LocalDate endDate, Long userId,
+                                     long afterId, PageRequest limit) {
+        List<Long> ids = projectTaskRepository.findReportTaskIds(startDate, endDate, userId, afterId, limit);
+        // id в tasks и archived_tasks не пересекаются: страницы двух таблиц сливаются по id
+        List<Long> merged = new ArrayList<>(ids);
+        merged.addAll(coldArchiveService.findReportIds(startDate, endDate, userId, afterId, limit));
+        Collections.sort(merged);
+        return merged.subList(0, Math.min(merged.size(), limit.getPageSize()));
     }
 
     /**
      * Генерация содержимого CSV
      */
-    private String generateCsvContent(List<ProjectTask> tasks, LocalDate startDate, LocalDate endDate, Long userId) {
-        StringBuilder csv = new StringBuilder();
-
+    private void writeCsvContent(Writer csv, LocalDate startDate, LocalDate endDate, Long userId) throws IOException {
         // Заголовок отчета
-        csv.append("Тип задачи,Статус,Исполнитель,Название задачи,Приоритет,Дата создания,Срок выполнения,Фактическая дата завершения,Дата архивации,Просрочена\n");
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+        csv.write("Тип задачи,Статус,Исполнитель,Название задачи,Приоритет,Дата создания,Срок выполнения,Фактическая дата завершения,Дата архивации,Просрочена\n");
 
-        if (!tasks.isEmpty()) {
-            for (ProjectTask task : tasks) {
-                addTaskToCsv(csv, task, formatter);
+        long taskCount = forEachReportTask(startDate, endDate, userId, task -> {
+            try {
+                addTaskToCsv(csv, task);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-        } else {
-            csv.append("Нет данных за указанный период,,,,,,,,\n");
+        });
+
+        if (taskCount == 0) {
+            csv.write("Нет данных за указанный период,,,,,,,,\n");
         }
 
+        System.out.println("Сгенерирован отчет для " + taskCount + " задач");
+        System.out.println("Период: " + startDate + " - " + endDate);
+        System.out.println("User ID: " + userId);
+
         // Добавляем информацию о фильтрах
-        csv.append("\nПараметры отчета:\n");
-        csv.append("Период:,").append(startDate.format(formatter)).append(" - ").append(endDate.format(formatter)).append("\n");
+        csv.write("\nПараметры отчета:\n");
+        csv.write("Период:,");
+        writeDate(csv, startDate);
+        csv.write(" - ");
+        writeDate(csv, endDate);
+        csv.write("\n");
         if (userId != null) {
             User user = userService.getUserById(userId).orElse(null);
-            csv.append("Пользователь:,").append(user != null ? user.getUsername() : "ID: " + userId).append("\n");
+            csv.write("Пользователь:,");
+            writeCsvField(csv, user != null ? user.getUsername() : "ID: " + userId);
+            csv.write("\n");
         } else {
-            csv.append("Пользователь:,Все пользователи\n");
+            csv.write("Пользователь:,Все пользователи\n");
         }
-        csv.append("Всего задач:,").append(tasks.size()).append("\n");
-        csv.append("Сгенерирован:,").append(LocalDate.now().format(formatter)).append("\n");
-
-        return csv.toString();
+        csv.write("Всего задач:," + taskCount + "\n");
+        csv.write("Сгенерирован:,");
+        writeDate(csv, LocalDate.now());
+        csv.write("\n");
     }
 
     /**
-     * Добавить задачу в CSV
+     * Добавить задачу в CSV (поля пишутся напрямую в поток без промежуточных строк)
      */
-    private void addTaskToCsv(StringBuilder csv, ProjectTask task, DateTimeFormatter formatter) {
-        String taskType = task.isArchived() ? "Архив" : "Активная";
-        String statusDisplay = getStatusDisplayName(task.getStatus());
-        String priorityDisplay = getPriorityDisplayName(task.getPriority());
-        String createdDate = formatDate(task.getCreatedAt(), formatter);
-        String dueDate = formatDate(task.getDueDate(), formatter);
-        String completedDate = getActualCompletionDate(task, formatter); // Используем исправленный метод
-        String archivedDate = formatDate(task.getArchivedDate(), formatter);
-        String isOverdue = task.isOverdue() ? "Да" : "Нет";
-
-        // Определяем исполнителя
-        String assignee = "Не назначен";
+    private void addTaskToCsv(Writer csv, ProjectTask task) throws IOException {
+        csv.write(task.isArchived() ? "Архив" : "Активная");
+        csv.write(',');
+        writeCsvField(csv, getStatusDisplayName(task.getStatus()));
+        csv.write(',');
+
+        // Определяем исполнителя (берем первого исполнителя для отчета)
         if (task.getAssignees() != null && !task.getAssignees().isEmpty()) {
-            // Берем первого исполнителя для отчета
-            assignee = task.getAssignees().iterator().next().getUsername();
+            writeCsvField(csv, task.getAssignees().iterator().next().getUsername());
+        } else {
+            csv.write("Не назначен");
         }
-
-        csv.append(escapeCsvField(taskType)).append(",")
-                .append(escapeCsvField(statusDisplay)).append(",")
-                .append(escapeCsvField(assignee)).append(",")
-                .append(escapeCsvField(task.getTitle())).append(",")
-                .append(escapeCsvField(priorityDisplay)).append(",")
-                .append(escapeCsvField(createdDate)).append(",")
-                .append(escapeCsvField(dueDate)).append(",")
-                .append(escapeCsvField(completedDate)).append(",")
-                .append(escapeCsvField(archivedDate)).append(",")
-                .append(escapeCsvField(isOverdue)).append("\n");
+        csv.write(',');
+
+        writeCsvField(csv, task.getTitle());
+        csv.write(',');
+        writeCsvField(csv, getPriorityDisplayName(task.getPriority()));
+        csv.write(',');
+        writeDateOrPlaceholder(csv, task.getCreatedAt());
+        csv.write(',');
+        writeDateOrPlaceholder(csv, task.getDueDate());
+        csv.write(',');
+        writeActualCompletionDate(csv, task);
+        csv.write(',');
+        writeDateOrPlaceholder(csv, task.getArchivedDate());
+        csv.write(',');
+        csv.write(task.isOverdue() ? "Да" : "Нет");
+        csv.write('\n');
     }
 
     /**
-     * Получить фактическую дату завершения задачи
+     * Записать фактическую дату завершения задачи
      */
-    private String getActualCompletionDate(ProjectTask task, DateTimeFormatter formatter) {
+    private void writeActualCompletionDate(Writer csv, ProjectTask task) throws IOException {
         // 1. Приоритет: используем completed_date если он есть
         if (task.getCompletedDate() != null) {
-            return task.getCompletedDate().format(formatter);
+            writeDate(csv, task.getCompletedDate());
+            return;
         }
 
         // 2. Для архивных задач используем дату архивации как дату завершения
         if (task.isArchived() && task.getArchivedDate() != null) {
-            return task.getArchivedDate().format(formatter);
-        }
-
-        // 3. Для завершенных задач без даты завершения
-        if (task.getStatus() != null && task.getStatus().toString().equals("COMPLETED")) {
-            // Пытаемся использовать дату изменения статуса
-            if (task.getStatusChangedDate() != null) {
-                return task.getStatusChangedDate().format(formatter);
-            }
-            // Или дату создания
-            if (task.getCreatedAt() != null) {
-                return task.getCreatedAt().format(formatter);
-            }
-            return "Дата неизвестна";
+            writeDate(csv, task.getArchivedDate());
+            return;
         }
 
-        // 4. Для задач в процессе
-        if (task.getStatus() != null && task.getStatus().toString().equals("IN_PROGRESS")) {
-            return "В процессе";
+        ProjectTask.TaskStatus status = task.getStatus();
+        if (status == null) {
+            csv.write("Не определена");
+            return;
         }
 
-        // 5. Для задач в ожидании
-        if (task.getStatus() != null && task.getStatus().toString().equals("PENDING")) {
-            return "Ожидание";
+        switch (status) {
+            case COMPLETED:
+                // 3. Для завершенных задач без даты завершения:
+                // дата изменения статуса или дата создания
+                if (task.getStatusChangedDate() != null) {
+                    writeDate(csv, task.getStatusChangedDate());
+                } else if (task.getCreatedAt() != null) {
+                    writeDate(csv, task.getCreatedAt());
+                } else {
+                    csv.write("Дата неизвестна");
+                }
+                break;
+            case IN_PROGRESS: csv.write("В процессе"); break;
+            case PENDING: csv.write("Ожидание"); break;
+            case CANCELLED: csv.write("Отменена"); break;
+            default: csv.write("Не определена");
         }
-
-        // 6. Для отмененных задач
-        if (task.getStatus() != null && task.getStatus().toString().equals("CANCELLED")) {
-            return "Отменена";
-        }
-
-        return "Не определена";
     }
 
     /**
@@ -217,33 +285,70 @@ public class ReportService {
         return priority.getDisplayName();
     }
 
-    private String formatDate(LocalDate date, DateTimeFormatter formatter) {
-        return date != null ? date.format(formatter) : "Не указана";
+    private void writeDateOrPlaceholder(Writer csv, LocalDate date) throws IOException {
+        if (date != null) {
+            writeDate(csv, date);
+        } else {
+            csv.write("Не указана");
+        }
     }
 
-    private boolean isDateInRange(LocalDate date, LocalDate startDate, LocalDate endDate) {
-        return date != null &&
-                (date.isEqual(startDate) || date.isAfter(startDate)) &&
-                (date.isEqual(endDate) || date.isBefore(endDate));
+    /**
+     * Запись даты в формате dd.MM.yyyy без создания промежуточных строк
+     */
+    private void writeDate(Writer csv, LocalDate date) throws IOException {
+        writeTwoDigits(csv, date.getDayOfMonth());
+        csv.write('.');
+        writeTwoDigits(csv, date.getMonthValue());
+        csv.write('.');
+        int year = date.getYear();
+        csv.write('0' + year / 1000 % 10);
+        csv.write('0' + year / 100 % 10);
+        csv.write('0' + year / 10 % 10);
+        csv.write('0' + year % 10);
     }
 
-    private boolean isTaskAssignedToUser(ProjectTask task, Long userId) {
-        return task.getAssignees() != null &&
-                task.getAssignees().stream()
-                        .anyMatch(user -> user != null && user.getId() != null && user.getId().equals(userId));
+    private void writeTwoDigits(Writer csv, int value) throws IOException {
+        csv.write('0' + value / 10);
+        csv.write('0' + value % 10);
     }
 
-    private String escapeCsvField(String field) {
-        if (field == null) return "";
-        if (field.contains(",") || field.contains("\"") || field.contains("\n") || field.contains("\r")) {
-            return "\"" + field.replace("\"", "\"\"") + "\"";
+    /**
+     * Запись поля CSV с экранированием кавычек посимвольно
+     */
+    private void writeCsvField(Writer csv, String field) throws IOException {
+        if (field == null) return;
+
+        if (!needsCsvQuoting(field)) {
+            csv.write(field);
+            return;
+        }
+
+        csv.write('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                csv.write('"');
+            }
+            csv.write(c);
+        }
+        csv.write('"');
+    }
+
+    private boolean needsCsvQuoting(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
         }
-        return field;
+        return false;
     }
 
     /**
      * Генерация отчета по конкретному пользователю
      */
+    @Transactional(readOnly = true)
     public byte[] generateUserReport(Long userId, LocalDate startDate, LocalDate endDate) {
         User user = userService.getUserById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
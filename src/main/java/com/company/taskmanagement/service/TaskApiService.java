@@ -0,0 +1,140 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.repository.ProjectTaskRepository;
+import com.company.taskmanagement.repository.TaskSummaryRow;
+import com.company.taskmanagement.repository.TaskVersionRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Чтение задач для REST API: проекции вместо сущностей и ETag по версиям задач.
+ * Страница сначала читается как пары id/версия - по ним клиенту можно ответить 304,
+ * не загружая сами задачи. Задачи холодного архива в API не попадают
+ */
+@Service
+@Transactional(readOnly = true)
+public class TaskApiService {
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @Autowired
+    private ProjectTaskRepository projectTaskRepository;
+
+    /**
+     * Страница id и версий задач по фильтрам (null - без фильтра)
+     */
+    public KeysetPage<TaskVersionRow> findPage(boolean archived, ProjectTask.TaskStatus status,
+                                               ProjectTask.TaskPriority priority, Long assigneeId,
+                                               Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // На одну запись больше, чтобы узнать, есть ли следующая страница
+        List<TaskVersionRow> rows = projectTaskRepository.findApiPage(archived, status, priority, assigneeId,
+                afterId != null ? afterId : 0L, PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, TaskVersionRow::getId);
+    }
+
+    /**
+     * Задачи страницы: одна выборка проекций для всех id
+     */
+    public KeysetPage<TaskSummary> load(KeysetPage<TaskVersionRow> page) {
+        List<Long> ids = new ArrayList<>();
+        for (TaskVersionRow row : page.getContent()) {
+            ids.add(row.getId());
+        }
+        List<TaskSummary> tasks = ids.isEmpty()
+                ? List.of()
+                : summaries(projectTaskRepository.findSummaryRowsByIdIn(ids));
+        return new KeysetPage<>(tasks, page.getNextCursor(), page.getSize());
+    }
+
+    /**
+     * Одна задача
+     */
+    public Optional<TaskSummary> getTask(Long id) {
+        List<TaskSummary> tasks = summaries(projectTaskRepository.findSummaryRowsByIdIn(List.of(id)));
+        return tasks.isEmpty() ? Optional.empty() : Optional.of(tasks.get(0));
+    }
+
+    /**
+     * ETag задачи: версия меняется при любом изменении полей и исполнителей
+     */
+    public String taskETag(TaskSummary task) {
+        return "\"" + task.getId() + "-" + task.getVersion() + "\"";
+    }
+
+    /**
+     * ETag страницы: хэш id и версий ее задач и курсора следующей страницы
+     */
+    public String pageETag(KeysetPage<TaskVersionRow> page) {
+        StringBuilder state = new StringBuilder();
+        for (TaskVersionRow row : page.getContent()) {
+            state.append(row.getId()).append(':').append(row.getVersion()).append(',');
+        }
+        state.append("next=").append(page.getNextCursor());
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(state.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    // Строки приходят по одной на исполнителя, отсортированными по id задачи
+    private static List<TaskSummary> summaries(List<TaskSummaryRow> rows) {
+        Map<Long, TaskSummary> tasks = new LinkedHashMap<>();
+        for (TaskSummaryRow row : rows) {
+            TaskSummary task = tasks.computeIfAbsent(row.getId(), id -> new TaskSummary(row));
+            if (row.getAssigneeId() != null) {
+                task.assigneeIds.add(row.getAssigneeId());
+            }
+        }
+        return new ArrayList<>(tasks.values());
+    }
+
+    /**
+     * Задача в ответах REST API
+     */
+    public static class TaskSummary {
+        private final Long id;
+        private final String title;
+        private final ProjectTask.TaskStatus status;
+        private final ProjectTask.TaskPriority priority;
+        private final LocalDate dueDate;
+        private final long version;
+        private final Set<Long> assigneeIds = new TreeSet<>();
+
+        TaskSummary(TaskSummaryRow row) {
+            this.id = row.getId();
+            this.title = row.getTitle();
+            this.status = row.getStatus();
+            this.priority = row.getPriority();
+            this.dueDate = row.getDueDate();
+            this.version = row.getVersion();
+        }
+
+        // геттеры
+        public Long getId() { return id; }
+        public String getTitle() { return title; }
+        public ProjectTask.TaskStatus getStatus() { return status; }
+        public ProjectTask.TaskPriority getPriority() { return priority; }
+        public LocalDate getDueDate() { return dueDate; }
+        public long getVersion() { return version; }
+        public Set<Long> getAssigneeIds() { return assigneeIds; }
+    }
+}
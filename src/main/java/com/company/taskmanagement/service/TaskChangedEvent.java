@@ -0,0 +1,31 @@
+package com.company.taskmanagement.service;
+
+import java.util.Set;
+
+/**
+ * Событие об изменении задач: создание, правка, смена статуса или исполнителей,
+ * архивирование, удаление. userIds - исполнители до и после изменения;
+ * affectsAll = true для массовых операций, когда затронуты все пользователи.
+ */
+public class TaskChangedEvent {
+
+    private final Set<Long> userIds;
+    private final boolean affectsAll;
+
+    private TaskChangedEvent(Set<Long> userIds, boolean affectsAll) {
+        this.userIds = userIds;
+        this.affectsAll = affectsAll;
+    }
+
+    public static TaskChangedEvent forUsers(Set<Long> userIds) {
+        return new TaskChangedEvent(Set.copyOf(userIds), false);
+    }
+
+    public static TaskChangedEvent all() {
+        return new TaskChangedEvent(Set.of(), true);
+    }
+
+    public Set<Long> getUserIds() { return userIds; }
+
+    public boolean isAffectsAll() { return affectsAll; }
+}
@@ -0,0 +1,634 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.FileAttachment;
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.StoredBlob;
+import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.repository.UserRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Массовый импорт задач из CSV или JSON с архивом вложений.
+ * Импорт выполняется фоновым заданием: строки обрабатываются порциями, каждая порция -
+ * одна транзакция с пакетными вставками задач и вложений (JDBC batch), файлы из архива
+ * записываются в BlobStore параллельно на ограниченном пуле потоков.
+ */
+@Service
+public class TaskImportService {
+
+    private static final int MAX_ERRORS = 100;
+    private static final int MAX_JOBS = 20;
+    private static final long MAX_TASKS_FILE_BYTES = 20L * 1024 * 1024;
+
+    @Value("${task-import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${task-import.file-threads:4}")
+    private int fileThreads;
+
+    @Value("${task-import.max-archive-mb:512}")
+    private long maxArchiveMb;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private UserTaskStatsService userTaskStatsService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService jobRunner;
+    private ThreadPoolExecutor fileWriters;
+
+    // Последние задания в порядке запуска
+    private final Map<String, ImportJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+            return size() > MAX_JOBS;
+        }
+    });
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Импорты выполняются по одному
+        jobRunner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Очередь ограничена: при заполнении файл пишет сам поток импорта
+        AtomicInteger threadNumber = new AtomicInteger();
+        fileWriters = new ThreadPoolExecutor(fileThreads, fileThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fileThreads * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "task-import-files-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        jobRunner.shutdownNow();
+        fileWriters.shutdownNow();
+    }
+
+    /**
+     * Поставить импорт в очередь. Архив (может быть null) удаляется после импорта
+     */
+    public ImportJob submit(List<ImportRow> rows, Path attachmentsZip) {
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), rows.size());
+        jobs.put(job.getId(), job);
+        jobRunner.submit(() -> run(job, rows, attachmentsZip));
+        return job;
+    }
+
+    public ImportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Разобрать файл задач: JSON-массив объектов или CSV с заголовком
+     * title,description,status,priority,dueDate,assignees,attachments
+     * (списки исполнителей и вложений разделяются ';')
+     */
+    public List<ImportRow> parseRows(String filename, InputStream content) throws IOException {
+        String text = new String(new UploadInspector(content, MAX_TASKS_FILE_BYTES).readAllBytes(), StandardCharsets.UTF_8);
+        if (text.startsWith("\uFEFF")) {
+            text = text.substring(1);
+        }
+        boolean json = (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".json"))
+                || text.stripLeading().startsWith("[");
+        if (json) {
+            return objectMapper.readValue(text, new TypeReference<List<ImportRow>>() {});
+        }
+        return parseCsv(text);
+    }
+
+    /**
+     * Сохранить архив вложений во временный файл (с ограничением размера)
+     */
+    public Path saveArchive(InputStream content) throws IOException {
+        Path archive = Files.createTempFile("task-import-", ".zip");
+        try {
+            Files.copy(new UploadInspector(content, maxArchiveMb * 1024 * 1024), archive,
+                    StandardCopyOption.REPLACE_EXISTING);
+            return archive;
+        } catch (IOException e) {
+            Files.deleteIfExists(archive);
+            throw e;
+        }
+    }
+
+    void run(ImportJob job, List<ImportRow> rows, Path attachmentsZip) {
+        job.start();
+        System.out.println("📥 Импорт " + job.getId() + ": " + rows.size() + " задач");
+
+        // Импорт держит одну ссылку на каждый записанный файл архива, задачи добавляют свои
+        Map<String, StoredEntry> storedEntries = new HashMap<>();
+        try (ZipFile zip = attachmentsZip != null ? new ZipFile(attachmentsZip.toFile()) : null) {
+            Map<String, User> users = loadUsers(rows);
+            for (int from = 0; from < rows.size(); from += chunkSize) {
+                int to = Math.min(rows.size(), from + chunkSize);
+                List<PreparedTask> prepared = prepare(rows, from, to, users, job);
+                storeAttachments(prepared, zip, storedEntries, job);
+                writeChunk(prepared, storedEntries, job);
+            }
+            job.finish(null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish("Импорт прерван");
+        } catch (Exception e) {
+            System.err.println("❌ Ошибка импорта " + job.getId() + ": " + e.getMessage());
+            job.finish(e.getMessage());
+        } finally {
+            for (StoredEntry entry : storedEntries.values()) {
+                blobStore.release(entry.blob.getSha256());
+            }
+            deleteArchive(attachmentsZip);
+        }
+
+        // Счетчики пересчитываются один раз вместо приращений на каждую задачу
+        if (job.getCreatedTasks() > 0) {
+            try {
+                userTaskStatsService.rebuild();
+            } catch (Exception e) {
+                System.err.println("❌ Ошибка пересчета статистики после импорта: " + e.getMessage());
+            }
+        }
+        System.out.println("✅ Импорт " + job.getId() + " завершен: создано " + job.getCreatedTasks() +
+                ", ошибок " + job.getFailedRows());
+    }
+
+    public void deleteArchive(Path archive) {
+        if (archive == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(archive);
+        } catch (IOException e) {
+            System.err.println("❌ Не удалось удалить архив импорта " + archive + ": " + e.getMessage());
+        }
+    }
+
+    private Map<String, User> loadUsers(List<ImportRow> rows) {
+        Set<String> usernames = new HashSet<>();
+        for (ImportRow row : rows) {
+            for (String username : row.getAssignees()) {
+                usernames.add(username.trim());
+            }
+        }
+        Map<String, User> users = new HashMap<>();
+        for (User user : userRepository.findByUsernameIn(usernames)) {
+            users.put(user.getUsername(), user);
+        }
+        return users;
+    }
+
+    private List<PreparedTask> prepare(List<ImportRow> rows, int from, int to, Map<String, User> users, ImportJob job) {
+        List<PreparedTask> prepared = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            try {
+                prepared.add(new PreparedTask(i + 1, toTask(rows.get(i), users), rows.get(i).getAttachments()));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                job.rowFailed(i + 1, e.getMessage());
+            }
+        }
+        return prepared;
+    }
+
+    private ProjectTask toTask(ImportRow row, Map<String, User> users) {
+        if (row.getTitle() == null || row.getTitle().trim().isEmpty()) {
+            throw new IllegalArgumentException("Название задачи не может быть пустым");
+        }
+        if (row.getTitle().length() > 255 || (row.getDescription() != null && row.getDescription().length() > 1000)) {
+            throw new IllegalArgumentException("Слишком длинное название или описание");
+        }
+
+        ProjectTask task = new ProjectTask();
+        task.setTitle(row.getTitle().trim());
+        task.setDescription(row.getDescription());
+        if (hasText(row.getStatus())) {
+            try {
+                task.setStatus(ProjectTask.TaskStatus.valueOf(row.getStatus().trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Неизвестный статус: " + row.getStatus());
+            }
+        }
+        if (hasText(row.getPriority())) {
+            try {
+                task.setPriority(ProjectTask.TaskPriority.valueOf(row.getPriority().trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Неизвестный приоритет: " + row.getPriority());
+            }
+        }
+        if (hasText(row.getDueDate())) {
+            task.setDueDate(LocalDate.parse(row.getDueDate().trim()));
+        }
+        task.setStatusChangedDate(LocalDate.now());
+        if (task.getStatus() == ProjectTask.TaskStatus.COMPLETED) {
+            task.setCompletedDate(LocalDate.now());
+        }
+
+        Set<User> assignees = new HashSet<>();
+        for (String username : row.getAssignees()) {
+            User user = users.get(username.trim());
+            if (user == null) {
+                throw new IllegalArgumentException("Пользователь не найден: " + username);
+            }
+            assignees.add(user);
+        }
+        if (assignees.isEmpty()) {
+            throw new IllegalArgumentException("Необходимо указать хотя бы одного исполнителя");
+        }
+        task.setAssignees(assignees);
+        return task;
+    }
+
+    /**
+     * Записать новые файлы порции параллельно (каждый файл архива - один раз за импорт);
+     * задачи с недоступными вложениями исключаются из порции
+     */
+    private void storeAttachments(List<PreparedTask> prepared, ZipFile zip, Map<String, StoredEntry> storedEntries,
+                                  ImportJob job) throws InterruptedException {
+        Map<String, Future<StoredEntry>> pending = new LinkedHashMap<>();
+        for (PreparedTask task : prepared) {
+            for (String name : task.attachmentNames) {
+                if (zip == null || storedEntries.containsKey(name) || pending.containsKey(name)) {
+                    continue;
+                }
+                ZipEntry entry = zip.getEntry(name);
+                if (entry != null && !entry.isDirectory()) {
+                    pending.put(name, fileWriters.submit(() -> storeEntry(zip, entry)));
+                }
+            }
+        }
+
+        Map<String, String> failures = new HashMap<>();
+        for (Map.Entry<String, Future<StoredEntry>> entry : pending.entrySet()) {
+            try {
+                storedEntries.put(entry.getKey(), entry.getValue().get());
+                job.fileStored();
+            } catch (ExecutionException e) {
+                failures.put(entry.getKey(), e.getCause().getMessage());
+            }
+        }
+
+        prepared.removeIf(task -> {
+            for (String name : task.attachmentNames) {
+                if (!storedEntries.containsKey(name)) {
+                    job.rowFailed(task.rowNumber, "Вложение " + name + ": " + failures.getOrDefault(name, "нет в архиве"));
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private StoredEntry storeEntry(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            // Размер, SHA-256 и сигнатура считаются за один проход записи
+            UploadInspector inspector = new UploadInspector(in, FileStorageService.MAX_FILE_SIZE);
+            StoredBlob blob = blobStore.store(inspector);
+            String contentType = inspector.resolveContentType(URLConnection.guessContentTypeFromName(entry.getName()));
+            if (blob.getSize() == 0 || !FileStorageService.isAllowedFileType(contentType)) {
+                blobStore.release(blob.getSha256());
+                throw new IOException(blob.getSize() == 0 ? "Файл пустой" : "Тип файла не разрешен");
+            }
+            return new StoredEntry(blob, contentType);
+        }
+    }
+
+    /**
+     * Порция - одна транзакция: задачи, вложения и связи с исполнителями уходят
+     * JDBC-пакетами, контекст сбрасывается каждые batch_size записей
+     */
+    private void writeChunk(List<PreparedTask> prepared, Map<String, StoredEntry> storedEntries, ImportJob job) {
+        if (prepared.isEmpty()) {
+            return;
+        }
+        int[] attachmentCount = new int[1];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<String, Integer> references = new HashMap<>();
+                int unflushed = 0;
+                for (PreparedTask task : prepared) {
+                    entityManager.persist(task.task);
+                    unflushed++;
+                    for (String name : task.attachmentNames) {
+                        StoredEntry stored = storedEntries.get(name);
+                        entityManager.persist(toAttachment(task.task, name, stored));
+                        references.merge(stored.blob.getSha256(), 1, Integer::sum);
+                        attachmentCount[0]++;
+                        unflushed++;
+                    }
+                    if (unflushed >= batchSize) {
+                        entityManager.flush();
+                        entityManager.clear();
+                        unflushed = 0;
+                    }
+                }
+                // Ссылки на файлы - в той же транзакции, откатываются вместе с порцией
+                references.forEach(blobStore::retain);
+            });
+            job.chunkWritten(prepared.size(), attachmentCount[0]);
+        } catch (RuntimeException e) {
+            System.err.println("❌ Ошибка записи порции импорта " + job.getId() + ": " + e.getMessage());
+            for (PreparedTask task : prepared) {
+                job.rowFailed(task.rowNumber, "Ошибка записи: " + e.getMessage());
+            }
+        }
+    }
+
+    private FileAttachment toAttachment(ProjectTask task, String entryName, StoredEntry stored) {
+        String originalFilename = entryName.substring(entryName.lastIndexOf('/') + 1);
+        FileAttachment attachment = new FileAttachment();
+        attachment.setOriginalFilename(originalFilename);
+        attachment.setFilename(stored.blob.getSha256() + FileStorageService.getFileExtension(originalFilename));
+        attachment.setFilePath(stored.blob.getBlobPath());
+        attachment.setFileSize(stored.blob.getSize());
+        attachment.setContentType(stored.contentType);
+        attachment.setBlobHash(stored.blob.getSha256());
+        attachment.setTask(task);
+        return attachment;
+    }
+
+    private static List<ImportRow> parseCsv(String text) {
+        List<List<String>> records = readCsv(text);
+        if (records.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = records.get(0);
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        if (!columns.containsKey("title")) {
+            throw new IllegalArgumentException("В CSV нет колонки title");
+        }
+
+        List<ImportRow> rows = new ArrayList<>(records.size() - 1);
+        for (List<String> record : records.subList(1, records.size())) {
+            ImportRow row = new ImportRow();
+            row.setTitle(column(record, columns, "title"));
+            row.setDescription(column(record, columns, "description"));
+            row.setStatus(column(record, columns, "status"));
+            row.setPriority(column(record, columns, "priority"));
+            row.setDueDate(column(record, columns, "duedate"));
+            row.setAssignees(splitList(column(record, columns, "assignees")));
+            row.setAttachments(splitList(column(record, columns, "attachments")));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Разбор CSV (RFC 4180): поля в кавычках могут содержать запятые и переводы строк
+     */
+    static List<List<String>> readCsv(String text) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                record.add(field.toString());
+                field.setLength(0);
+                // Пустые строки пропускаются
+                if (record.size() > 1 || !record.get(0).isEmpty()) {
+                    records.add(record);
+                }
+                record = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        if (field.length() > 0 || !record.isEmpty()) {
+            record.add(field.toString());
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        if (value != null) {
+            for (String item : value.split(";")) {
+                if (!item.isBlank()) {
+                    items.add(item.trim());
+                }
+            }
+        }
+        return items;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static final class PreparedTask {
+        private final int rowNumber;
+        private final ProjectTask task;
+        private final List<String> attachmentNames;
+
+        private PreparedTask(int rowNumber, ProjectTask task, List<String> attachmentNames) {
+            this.rowNumber = rowNumber;
+            this.task = task;
+            this.attachmentNames = attachmentNames;
+        }
+    }
+
+    private static final class StoredEntry {
+        private final StoredBlob blob;
+        private final String contentType;
+
+        private StoredEntry(StoredBlob blob, String contentType) {
+            this.blob = blob;
+            this.contentType = contentType;
+        }
+    }
+
+    /**
+     * Строка импорта (элемент JSON-массива или строка CSV)
+     */
+    public static class ImportRow {
+        private String title;
+        private String description;
+        private String status;
+        private String priority;
+        private String dueDate;
+        private List<String> assignees = new ArrayList<>();
+        private List<String> attachments = new ArrayList<>();
+
+        // геттеры и сеттеры
+        public String getTitle() { return title; }
+        public void setTitle(String title) { this.title = title; }
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+        public String getPriority() { return priority; }
+        public void setPriority(String priority) { this.priority = priority; }
+        public String getDueDate() { return dueDate; }
+        public void setDueDate(String dueDate) { this.dueDate = dueDate; }
+        public List<String> getAssignees() { return assignees; }
+        public void setAssignees(List<String> assignees) { this.assignees = assignees != null ? assignees : new ArrayList<>(); }
+        public List<String> getAttachments() { return attachments; }
+        public void setAttachments(List<String> attachments) { this.attachments = attachments != null ? attachments : new ArrayList<>(); }
+    }
+
+    /**
+     * Задание импорта и его прогресс
+     */
+    public static class ImportJob {
+
+        public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+        private final String id;
+        private final int totalRows;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicInteger createdTasks = new AtomicInteger();
+        private final AtomicInteger createdAttachments = new AtomicInteger();
+        private final AtomicInteger storedFiles = new AtomicInteger();
+        private final AtomicInteger failedRows = new AtomicInteger();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile State state = State.QUEUED;
+        private volatile String error;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        ImportJob(String id, int totalRows) {
+            this.id = id;
+            this.totalRows = totalRows;
+        }
+
+        void start() {
+            startedAt = LocalDateTime.now();
+            state = State.RUNNING;
+        }
+
+        void finish(String error) {
+            this.error = error;
+            finishedAt = LocalDateTime.now();
+            state = error == null ? State.COMPLETED : State.FAILED;
+        }
+
+        void rowFailed(int rowNumber, String message) {
+            failedRows.incrementAndGet();
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("Строка " + rowNumber + ": " + message);
+            }
+        }
+
+        void fileStored() {
+            storedFiles.incrementAndGet();
+        }
+
+        void chunkWritten(int tasks, int attachments) {
+            createdTasks.addAndGet(tasks);
+            createdAttachments.addAndGet(attachments);
+        }
+
+        // геттеры
+        public String getId() { return id; }
+        public State getState() { return state; }
+        public int getTotalRows() { return totalRows; }
+        public int getProcessedRows() { return createdTasks.get() + failedRows.get(); }
+        public int getCreatedTasks() { return createdTasks.get(); }
+        public int getCreatedAttachments() { return createdAttachments.get(); }
+        public int getStoredFiles() { return storedFiles.get(); }
+        public int getFailedRows() { return failedRows.get(); }
+        public List<String> getErrors() { synchronized (errors) { return new ArrayList<>(errors); } }
+        public String getError() { return error; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public int getProgressPercent() { return totalRows == 0 ? 100 : getProcessedRows() * 100 / totalRows; }
+    }
+}
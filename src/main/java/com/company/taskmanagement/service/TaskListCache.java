@@ -0,0 +1,178 @@
+package com.company.taskmanagement.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов запросов списков задач и счетчиков (id страниц, числа для дашборда и архива).
+ * Записи привязаны к версиям: общие (userId = null) устаревают при любом изменении задач,
+ * пользовательские - только при изменении задач, где пользователь был или стал исполнителем.
+ * Версия читается до загрузки, поэтому результат, прочитанный до коммита, не будет выдан,
+ * даже если сохранен в кэш уже после него.
+ */
+@Component
+public class TaskListCache {
+
+    @Value("${task-list-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${task-list-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    // Эпоха меняется при массовых операциях, общая версия - при любом изменении,
+    // версия пользователя - при изменении его задач
+    private final AtomicLong epoch = new AtomicLong();
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final Map<Long, Long> userVersions = new ConcurrentHashMap<>();
+
+    // LRU по порядку обращений, размер ограничен maxEntries
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Значение из кэша или из loader. userId = null - общая запись (например, для администратора)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long userId, String name, Supplier<T> loader) {
+        Key key = new Key(userId, name);
+        // Версии читаются до запроса: если задачи изменятся во время загрузки, запись устареет сразу
+        long currentEpoch = epoch.get();
+        long version = userId == null ? globalVersion.get() : userVersions.getOrDefault(userId, 0L);
+        long now = System.nanoTime();
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.epoch == currentEpoch && entry.version == version
+                && now - entry.expiresAtNanos < 0) {
+            hits.incrementAndGet();
+            return (T) entry.value;
+        }
+
+        misses.incrementAndGet();
+        T value = loader.get();
+        if (value != null) {
+            Entry loaded = new Entry(value, currentEpoch, version, now + ttlSeconds * 1_000_000_000L);
+            synchronized (entries) {
+                entries.put(key, loaded);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Сбросить записи после коммита изменения задач (или сразу, если транзакции нет)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        invalidations.incrementAndGet();
+        globalVersion.incrementAndGet();
+        if (event.isAffectsAll()) {
+            epoch.incrementAndGet();
+            synchronized (entries) {
+                entries.clear();
+            }
+            return;
+        }
+        for (Long userId : event.getUserIds()) {
+            userVersions.merge(userId, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Очистить кэш полностью
+     */
+    public void clear() {
+        onTaskChanged(TaskChangedEvent.all());
+    }
+
+    public CacheStats getStats() {
+        CacheStats stats = new CacheStats();
+        stats.hits = hits.get();
+        stats.misses = misses.get();
+        stats.invalidations = invalidations.get();
+        stats.evictions = evictions.get();
+        synchronized (entries) {
+            stats.size = entries.size();
+        }
+        return stats;
+    }
+
+    private static final class Key {
+        private final Long userId;
+        private final String name;
+
+        Key(Long userId, String name) {
+            this.userId = userId;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(userId, key.userId) && name.equals(key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, name);
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long epoch;
+        private final long version;
+        private final long expiresAtNanos;
+
+        Entry(Object value, long epoch, long version, long expiresAtNanos) {
+            this.value = value;
+            this.epoch = epoch;
+            this.version = version;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * Метрики кэша
+     */
+    public static class CacheStats {
+        private long hits;
+        private long misses;
+        private long invalidations;
+        private long evictions;
+        private int size;
+
+        // геттеры
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getInvalidations() { return invalidations; }
+        public long getEvictions() { return evictions; }
+        public int getSize() { return size; }
+        public double getHitRatio() { return hits + misses == 0 ? 0 : (double) hits / (hits + misses); }
+    }
+}
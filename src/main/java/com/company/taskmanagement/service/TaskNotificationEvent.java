@@ -0,0 +1,34 @@
+package com.company.taskmanagement.service;
+
+/**
+ * Событие об изменении задачи, которое нужно отправить в Telegram группу.
+ * Текст формируется внутри транзакции, отправка выполняется после коммита.
+ * Если событие связано с записью outbox, отправитель должен сначала ее захватить
+ * (claimed = true означает, что запись уже захвачена relay).
+ */
+public class TaskNotificationEvent {
+
+    private final Long outboxId;
+    private final String text;
+    private final boolean claimed;
+    private final long createdAtNanos;
+
+    public TaskNotificationEvent(String text) {
+        this(null, text, false);
+    }
+
+    public TaskNotificationEvent(Long outboxId, String text, boolean claimed) {
+        this.outboxId = outboxId;
+        this.text = text;
+        this.claimed = claimed;
+        this.createdAtNanos = System.nanoTime();
+    }
+
+    public Long getOutboxId() { return outboxId; }
+
+    public String getText() { return text; }
+
+    public boolean isClaimed() { return claimed; }
+
+    public long getCreatedAtNanos() { return createdAtNanos; }
+}
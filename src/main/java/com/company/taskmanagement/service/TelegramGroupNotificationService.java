@@ -2,8 +2,10 @@ package com.company.taskmanagement.service;
 
 import com.company.taskmanagement.model.ProjectTask;
 import com.company.taskmanagement.model.User;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -20,13 +22,38 @@ public class TelegramGroupNotificationService {
     @Value("${telegram.bot.group-id:}")
     private String groupChatId;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${telegram.api.base-url:https://api.telegram.org}")
+    private String apiBaseUrl;
+
+    @Value("${telegram.api.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${telegram.api.read-timeout-ms:10000}")
+    private int readTimeoutMs;
+
+    private RestTemplate restTemplate;
+
+    @PostConstruct
+    public void init() {
+        // Таймауты, чтобы зависший api.telegram.org не держал поток бесконечно
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    /**
+     * Настроены ли токен бота и ID группы
+     */
+    public boolean isConfigured() {
+        return botToken != null && !botToken.isEmpty() && groupChatId != null && !groupChatId.isEmpty();
+    }
 
     /**
      * Отправляет уведомление о новой задаче в группу
      */
     public boolean sendTaskNotification(ProjectTask task) {
-        if (botToken == null || botToken.isEmpty() || groupChatId == null || groupChatId.isEmpty()) {
+        if (!isConfigured()) {
             System.out.println("❌ Telegram bot token or group chat ID not configured");
             return false;
         }
@@ -39,64 +66,78 @@ public class TelegramGroupNotificationService {
      * Отправляет сообщение в группу (публичный метод)
      */
     public boolean sendGroupMessage(String text) {
-        if (botToken == null || botToken.isEmpty() || groupChatId == null || groupChatId.isEmpty()) {
+        if (!isConfigured()) {
             System.out.println("❌ Telegram bot token or group chat ID not configured");
             return false;
         }
 
-        String url = "https://api.telegram.org/bot" + botToken + "/sendMessage";
+        try {
+            deliver(text);
+            return true;
+        } catch (Exception e) {
+            System.err.println("❌ Ошибка отправки в группу: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Отправляет сообщение в группу, при ошибке выбрасывает исключение (для повторных попыток)
+     */
+    public void deliver(String text) {
+        String url = apiBaseUrl + "/bot" + botToken + "/sendMessage";
 
         Map<String, Object> request = new HashMap<>();
         request.put("chat_id", groupChatId);
         request.put("text", text);
         request.put("parse_mode", "HTML");
 
-        try {
-            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            boolean success = response.getStatusCode().is2xxSuccessful();
-
-            if (success) {
-                System.out.println("✅ Уведомление отправлено в группу: " + groupChatId);
-            } else {
-                System.out.println("❌ Ошибка отправки в группу: " + response.getBody());
-            }
-            return success;
-        } catch (Exception e) {
-            System.err.println("❌ Ошибка отправки в группу: " + e.getMessage());
-            return false;
+        ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("Telegram API вернул " + response.getStatusCode() + ": " + response.getBody());
         }
+        System.out.println("✅ Уведомление отправлено в группу: " + groupChatId);
     }
 
     /**
      * Отправляет уведомление о завершении задачи
      */
     public boolean sendTaskCompletedNotification(ProjectTask task) {
-        String message = "✅ <b>ЗАДАЧА ЗАВЕРШЕНА</b>\n\n" +
+        return sendGroupMessage(buildTaskCompletedMessage(task));
+    }
+
+    /**
+     * Отправляет уведомление об изменении задачи
+     */
+    public boolean sendTaskUpdatedNotification(ProjectTask task) {
+        return sendGroupMessage(buildTaskUpdatedMessage(task));
+    }
+
+    /**
+     * Формирует сообщение о завершении задачи
+     */
+    public String buildTaskCompletedMessage(ProjectTask task) {
+        return "✅ <b>ЗАДАЧА ЗАВЕРШЕНА</b>\n\n" +
                 "📝 " + escapeHtml(task.getTitle()) + "\n" +
                 "👤 Исполнители: " + task.getAssignees().stream()
                 .map(User::getUsername)
                 .collect(Collectors.joining(", ")) + "\n\n" +
                 "🎉 Отличная работа!";
-
-        return sendGroupMessage(message);
     }
 
     /**
-     * Отправляет уведомление об изменении задачи
+     * Формирует сообщение об изменении задачи
      */
-    public boolean sendTaskUpdatedNotification(ProjectTask task) {
-        String message = "✏️ <b>ЗАДАЧА ОБНОВЛЕНА</b>\n\n" +
+    public String buildTaskUpdatedMessage(ProjectTask task) {
+        return "✏️ <b>ЗАДАЧА ОБНОВЛЕНА</b>\n\n" +
                 "📝 " + escapeHtml(task.getTitle()) + "\n" +
                 getStatusIcon(task.getStatus()) + " Новый статус: " + getStatusDisplay(task.getStatus()) + "\n\n" +
                 "🔗 <a href=\"" + getTaskUrl(task.getId()) + "\">Посмотреть изменения</a>";
-
-        return sendGroupMessage(message);
     }
 
     /**
      * Формирует сообщение о задаче
      */
-    private String buildTaskMessage(ProjectTask task) {
+    public String buildTaskMessage(ProjectTask task) {
         String assignees = task.getAssignees().stream()
                 .map(user -> "👤 " + escapeHtml(user.getUsername()))
                 .collect(Collectors.joining("\n"));
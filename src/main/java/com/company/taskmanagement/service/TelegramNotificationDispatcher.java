@@ -0,0 +1,352 @@
+package com.company.taskmanagement.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Асинхронная отправка уведомлений в Telegram.
+ * События попадают в ограниченную очередь после коммита транзакции,
+ * воркеры склеивают всплески в одно сообщение, соблюдают лимит запросов
+ * и повторяют отправку с экспоненциальной задержкой.
+ * Результат отправки фиксируется в outbox (см. NotificationOutboxService).
+ */
+@Service
+public class TelegramNotificationDispatcher {
+
+    // Максимальная длина сообщения в Telegram
+    static final int MAX_MESSAGE_LENGTH = 4096;
+
+    private static final String BATCH_SEPARATOR = "\n\n➖➖➖➖➖\n\n";
+
+    @Autowired
+    private TelegramGroupNotificationService telegramService;
+
+    @Autowired
+    private NotificationOutboxService outboxService;
+
+    @Value("${telegram.notifications.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${telegram.notifications.workers:1}")
+    private int workerCount;
+
+    @Value("${telegram.notifications.coalesce-window-ms:500}")
+    private long coalesceWindowMs;
+
+    @Value("${telegram.notifications.max-batch:10}")
+    private int maxBatch;
+
+    @Value("${telegram.notifications.rate-per-minute:20}")
+    private int ratePerMinute;
+
+    @Value("${telegram.notifications.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${telegram.notifications.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${telegram.notifications.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    private BlockingDeque<TaskNotificationEvent> queue;
+    private TokenBucket rateLimiter;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    // Метрики
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalLatencyMs = new AtomicLong();
+    private final AtomicLong maxLatencyMs = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingDeque<>(queueCapacity);
+        rateLimiter = new TokenBucket(ratePerMinute, 1, TimeUnit.MINUTES);
+        running = true;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "telegram-notifier-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::workerLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            // Записи outbox будут отправлены relay после рестарта
+            System.err.println("❌ При остановке в очереди уведомлений осталось: " + queue.size());
+        }
+    }
+
+    /**
+     * Принять событие после коммита транзакции (или сразу, если транзакции нет)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskNotification(TaskNotificationEvent event) {
+        enqueue(event);
+    }
+
+    /**
+     * Поставить уведомление в очередь. Не блокирует: при переполнении событие отбрасывается.
+     */
+    public boolean enqueue(TaskNotificationEvent event) {
+        if (!telegramService.isConfigured()) {
+            System.out.println("❌ Telegram bot token or group chat ID not configured");
+            return false;
+        }
+
+        if (queue.offerLast(event)) {
+            enqueued.incrementAndGet();
+            return true;
+        }
+
+        rejected.incrementAndGet();
+        if (event.getOutboxId() != null) {
+            System.err.println("❌ Очередь уведомлений переполнена, уведомление " + event.getOutboxId() + " отправит relay outbox");
+        } else {
+            System.err.println("❌ Очередь уведомлений переполнена, уведомление отброшено");
+        }
+        return false;
+    }
+
+    /**
+     * Свободное место в очереди
+     */
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    /**
+     * Захватить запись outbox перед отправкой, чтобы ее не отправил параллельно relay другого узла
+     */
+    private boolean acquire(TaskNotificationEvent event) {
+        if (event.getOutboxId() == null || event.isClaimed()) {
+            return true;
+        }
+        try {
+            return outboxService.claim(event.getOutboxId());
+        } catch (Exception e) {
+            System.err.println("❌ Не удалось захватить уведомление " + event.getOutboxId() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void workerLoop() {
+        while (running) {
+            try {
+                List<TaskNotificationEvent> batch = takeBatch();
+                if (!batch.isEmpty()) {
+                    sendBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("❌ Ошибка воркера уведомлений: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Забрать первое событие и в течение окна склейки добрать остальные,
+     * пока суммарный текст помещается в одно сообщение Telegram
+     */
+    private List<TaskNotificationEvent> takeBatch() throws InterruptedException {
+        List<TaskNotificationEvent> batch = new ArrayList<>();
+        TaskNotificationEvent first = queue.pollFirst(1, TimeUnit.SECONDS);
+        if (first == null || !acquire(first)) {
+            return batch;
+        }
+        batch.add(first);
+        int length = first.getText().length();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(coalesceWindowMs);
+        while (batch.size() < maxBatch) {
+            long remaining = deadline - System.nanoTime();
+            TaskNotificationEvent next = remaining > 0
+                    ? queue.pollFirst(remaining, TimeUnit.NANOSECONDS)
+                    : queue.pollFirst();
+            if (next == null) {
+                break;
+            }
+            int newLength = length + BATCH_SEPARATOR.length() + next.getText().length();
+            if (newLength > MAX_MESSAGE_LENGTH) {
+                // Не помещается - вернем в начало очереди для следующей пачки
+                queue.offerFirst(next);
+                break;
+            }
+            if (!acquire(next)) {
+                continue;
+            }
+            batch.add(next);
+            length = newLength;
+        }
+        return batch;
+    }
+
+    private void sendBatch(List<TaskNotificationEvent> batch) throws InterruptedException {
+        String text = joinBatch(batch);
+        long backoffMs = initialBackoffMs;
+        String lastError = null;
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            rateLimiter.acquire();
+            try {
+                telegramService.deliver(text);
+                recordDelivered(batch);
+                updateOutbox(batch, null);
+                return;
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                System.err.println("❌ Ошибка отправки уведомления (попытка " + attempt + "/" + maxAttempts + "): " + e.getMessage());
+                if (attempt < maxAttempts) {
+                    retries.incrementAndGet();
+                    TimeUnit.MILLISECONDS.sleep(backoffMs);
+                    backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+                }
+            }
+        }
+
+        failed.addAndGet(batch.size());
+        updateOutbox(batch, lastError != null ? lastError : "unknown error");
+        System.err.println("❌ Уведомление не отправлено после " + maxAttempts + " попыток");
+    }
+
+    /**
+     * Зафиксировать результат отправки в outbox (error == null - доставлено)
+     */
+    private void updateOutbox(List<TaskNotificationEvent> batch, String error) {
+        List<Long> ids = new ArrayList<>();
+        for (TaskNotificationEvent event : batch) {
+            if (event.getOutboxId() != null) {
+                ids.add(event.getOutboxId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            if (error == null) {
+                outboxService.markSent(ids);
+            } else {
+                outboxService.markForRetry(ids, error);
+            }
+        } catch (Exception e) {
+            // Блокировка истечет, и relay повторит отправку
+            System.err.println("❌ Не удалось обновить outbox уведомлений: " + e.getMessage());
+        }
+    }
+
+    private String joinBatch(List<TaskNotificationEvent> batch) {
+        if (batch.size() == 1) {
+            return batch.get(0).getText();
+        }
+        StringBuilder text = new StringBuilder();
+        for (TaskNotificationEvent event : batch) {
+            if (text.length() > 0) {
+                text.append(BATCH_SEPARATOR);
+            }
+            text.append(event.getText());
+        }
+        return text.toString();
+    }
+
+    private void recordDelivered(List<TaskNotificationEvent> batch) {
+        long now = System.nanoTime();
+        for (TaskNotificationEvent event : batch) {
+            long latencyMs = TimeUnit.NANOSECONDS.toMillis(now - event.getCreatedAtNanos());
+            totalLatencyMs.addAndGet(latencyMs);
+            maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+        }
+        delivered.addAndGet(batch.size());
+        batchesSent.incrementAndGet();
+    }
+
+    /**
+     * Текущие метрики очереди уведомлений
+     */
+    public DispatcherStats getStats() {
+        DispatcherStats stats = new DispatcherStats();
+        stats.setQueueDepth(queue.size());
+        stats.setQueueCapacity(queueCapacity);
+        stats.setEnqueued(enqueued.get());
+        stats.setRejected(rejected.get());
+        stats.setDelivered(delivered.get());
+        stats.setBatchesSent(batchesSent.get());
+        stats.setRetries(retries.get());
+        stats.setFailed(failed.get());
+        long deliveredCount = delivered.get();
+        stats.setAverageLatencyMs(deliveredCount > 0 ? totalLatencyMs.get() / deliveredCount : 0);
+        stats.setMaxLatencyMs(maxLatencyMs.get());
+        return stats;
+    }
+
+    /**
+     * Класс для метрик очереди уведомлений
+     */
+    public static class DispatcherStats {
+        private int queueDepth;
+        private int queueCapacity;
+        private long enqueued;
+        private long rejected;
+        private long delivered;
+        private long batchesSent;
+        private long retries;
+        private long failed;
+        private long averageLatencyMs;
+        private long maxLatencyMs;
+
+        // геттеры и сеттеры
+        public int getQueueDepth() { return queueDepth; }
+        public void setQueueDepth(int queueDepth) { this.queueDepth = queueDepth; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public long getEnqueued() { return enqueued; }
+        public void setEnqueued(long enqueued) { this.enqueued = enqueued; }
+        public long getRejected() { return rejected; }
+        public void setRejected(long rejected) { this.rejected = rejected; }
+        public long getDelivered() { return delivered; }
+        public void setDelivered(long delivered) { this.delivered = delivered; }
+        public long getBatchesSent() { return batchesSent; }
+        public void setBatchesSent(long batchesSent) { this.batchesSent = batchesSent; }
+        public long getRetries() { return retries; }
+        public void setRetries(long retries) { this.retries = retries; }
+        public long getFailed() { return failed; }
+        public void setFailed(long failed) { this.failed = failed; }
+        public long getAverageLatencyMs() { return averageLatencyMs; }
+        public void setAverageLatencyMs(long averageLatencyMs) { this.averageLatencyMs = averageLatencyMs; }
+        public long getMaxLatencyMs() { return maxLatencyMs; }
+        public void setMaxLatencyMs(long maxLatencyMs) { this.maxLatencyMs = maxLatencyMs; }
+    }
+}
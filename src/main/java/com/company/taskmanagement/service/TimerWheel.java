@@ -0,0 +1,89 @@
+package com.company.taskmanagement.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Хешированное колесо таймеров: слот = (срок / tickMs) mod slots.
+ * schedule() - O(1) из любого потока, advance() вызывает один поток
+ * и разбирает только слоты прошедших тиков. Таймер со сроком дальше
+ * одного оборота колеса остается в слоте до нужного оборота.
+ */
+final class TimerWheel<T> {
+
+    private final long tickMs;
+    private final int mask;
+    private final Queue<Timeout<T>>[] slots;
+
+    // Последний обработанный тик
+    private volatile long processedTick;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(int minSlots, long tickMs, long now) {
+        int size = Integer.highestOneBit(Math.max(2, minSlots - 1)) << 1;
+        this.tickMs = tickMs;
+        this.mask = size - 1;
+        this.slots = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.processedTick = now / tickMs;
+    }
+
+    /**
+     * Запланировать срабатывание для key не раньше deadline (epoch millis)
+     */
+    void schedule(T key, long deadline) {
+        long tick = Math.max(deadline / tickMs, processedTick + 1);
+        slots[(int) (tick & mask)].add(new Timeout<>(key, deadline));
+    }
+
+    /**
+     * Обработать тики до now; для истекших таймеров вызывается expired
+     */
+    void advance(long now, Consumer<T> expired) {
+        long target = now / tickMs;
+        // После долгой паузы достаточно одного полного оборота
+        long tick = Math.max(processedTick + 1, target - mask);
+        for (; tick <= target; tick++) {
+            Queue<Timeout<T>> slot = slots[(int) (tick & mask)];
+            List<Timeout<T>> later = new ArrayList<>();
+            Timeout<T> timeout;
+            while ((timeout = slot.poll()) != null) {
+                if (timeout.deadline <= now) {
+                    expired.accept(timeout.key);
+                } else {
+                    // Срок на одном из следующих оборотов
+                    later.add(timeout);
+                }
+            }
+            slot.addAll(later);
+            processedTick = tick;
+        }
+        processedTick = Math.max(processedTick, target);
+    }
+
+    /**
+     * Число запланированных таймеров (для метрик)
+     */
+    int size() {
+        int size = 0;
+        for (Queue<Timeout<T>> slot : slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+
+    private static final class Timeout<T> {
+        private final T key;
+        private final long deadline;
+
+        private Timeout(T key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+}
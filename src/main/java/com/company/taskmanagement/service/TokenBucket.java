@@ -0,0 +1,50 @@
+package com.company.taskmanagement.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Простой token bucket для ограничения частоты запросов к внешнему API
+ */
+class TokenBucket {
+
+    private final double capacity;
+    private final double nanosPerToken;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(int capacity, long period, TimeUnit unit) {
+        this.capacity = capacity;
+        this.nanosPerToken = (double) unit.toNanos(period) / capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Забрать один токен, при необходимости дождавшись пополнения
+     */
+    void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - tokens) * nanosPerToken);
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    synchronized double availableTokens() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / nanosPerToken);
+        lastRefillNanos = now;
+    }
+}
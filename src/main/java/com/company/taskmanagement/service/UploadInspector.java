@@ -0,0 +1,99 @@
+package com.company.taskmanagement.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Поток загрузки, который по ходу чтения считает размер, обрывает загрузку
+ * сверх лимита и запоминает первые байты для определения типа по сигнатуре.
+ * Оборачивает тело части multipart перед записью в BlobStore, чтобы размер,
+ * SHA-256 и проверка типа выполнялись за один проход.
+ */
+public final class UploadInspector extends FilterInputStream {
+
+    private static final int SNIFF_BYTES = 16;
+
+    private final long maxBytes;
+    private final byte[] head = new byte[SNIFF_BYTES];
+    private int headLength;
+    private long count;
+
+    public UploadInspector(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            record(new byte[]{(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            record(buffer, offset, read);
+        }
+        return read;
+    }
+
+    private void record(byte[] buffer, int offset, int length) throws IOException {
+        count += length;
+        if (count > maxBytes) {
+            throw new IOException("Размер файла превышает " + (maxBytes / (1024 * 1024)) + "MB");
+        }
+        if (headLength < SNIFF_BYTES) {
+            int copy = Math.min(length, SNIFF_BYTES - headLength);
+            System.arraycopy(buffer, offset, head, headLength, copy);
+            headLength += copy;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Тип по сигнатуре первых байт или null, если сигнатура неизвестна
+     */
+    public String sniffContentType() {
+        if (startsWith("%PDF-")) return "application/pdf";
+        if (startsWith(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'})) return "image/png";
+        if (startsWith(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF})) return "image/jpeg";
+        if (startsWith("GIF87a") || startsWith("GIF89a")) return "image/gif";
+        if (startsWith("RIFF") && headLength >= 12
+                && Arrays.equals(head, 8, 12, "WEBP".getBytes(StandardCharsets.US_ASCII), 0, 4)) return "image/webp";
+        if (startsWith("BM")) return "image/bmp";
+        if (startsWith(new byte[]{'P', 'K', 3, 4})) return "application/zip";
+        if (startsWith("Rar!")) return "application/x-rar-compressed";
+        return null;
+    }
+
+    /**
+     * Итоговый тип: сигнатура важнее заявленного клиентом, кроме zip -
+     * это контейнер для docx/xlsx, там заявленный тип точнее
+     */
+    public String resolveContentType(String declared) {
+        String sniffed = sniffContentType();
+        boolean declaredUnknown = declared == null || declared.isBlank() || "application/octet-stream".equals(declared);
+        if (sniffed == null || ("application/zip".equals(sniffed) && !declaredUnknown)) {
+            return declaredUnknown ? "application/octet-stream" : declared;
+        }
+        return sniffed;
+    }
+
+    private boolean startsWith(String signature) {
+        return startsWith(signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private boolean startsWith(byte[] signature) {
+        return headLength >= signature.length && Arrays.equals(head, 0, signature.length, signature, 0, signature.length);
+    }
+}
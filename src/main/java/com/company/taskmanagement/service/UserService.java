@@ -3,12 +3,15 @@ package com.company.taskmanagement.service;
 import com.company.taskmanagement.model.User;
 import com.company.taskmanagement.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class UserService {
@@ -16,21 +19,62 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserTaskStatsService userTaskStatsService;
+
+    @Value("${user-cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    // Кэш пользователей: текущего пользователя ищет почти каждая страница и вход.
+    // Хранятся отсоединенные копии, вызывающий получает свою копию и может ее менять
+    private final Map<String, CachedUser> usersByUsername = new ConcurrentHashMap<>();
+    private final Map<Long, CachedUser> usersById = new ConcurrentHashMap<>();
+
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
     public Optional<User> getUserById(Long id) {
-        return userRepository.findById(id);
+        CachedUser cached = usersById.get(id);
+        if (cached != null && !cached.isExpired()) {
+            return Optional.of(cached.copy());
+        }
+        return userRepository.findById(id).map(user -> cache(user).copy());
     }
 
     public Optional<User> getUserByUsername(String username) {
-        return userRepository.findByUsername(username);
+        CachedUser cached = usersByUsername.get(username);
+        if (cached != null && !cached.isExpired()) {
+            return Optional.of(cached.copy());
+        }
+        return userRepository.findByUsername(username).map(user -> {
+            CachedUser loaded = cache(user);
+            // Имя из запроса может отличаться регистром от сохраненного
+            usersByUsername.put(username, loaded);
+            return loaded.copy();
+        });
+    }
+
+    private CachedUser cache(User user) {
+        CachedUser cached = new CachedUser(user, System.nanoTime() + cacheTtlSeconds * 1_000_000_000L);
+        usersById.put(user.getId(), cached);
+        usersByUsername.put(user.getUsername(), cached);
+        return cached;
+    }
+
+    /**
+     * Убрать пользователя из кэша (под всеми именами, которыми его искали)
+     */
+    public void evict(Long id) {
+        usersById.remove(id);
+        usersByUsername.values().removeIf(cached -> cached.user.getId().equals(id));
     }
 
     public User createUser(User user) {
         // Сохраняем пароль как есть (без хэширования)
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userTaskStatsService.createFor(savedUser.getId());
+        return savedUser;
     }
 
     public User updateUser(Long id, User userDetails) {
@@ -45,13 +89,17 @@ public class UserService {
                 user.setPassword(userDetails.getPassword());
             }
 
-            return userRepository.save(user);
+            User saved = userRepository.save(user);
+            evict(id);
+            return saved;
         }).orElse(null);
     }
 
     public boolean deleteUser(Long id) {
         if (userRepository.existsById(id)) {
             userRepository.deleteById(id);
+            evict(id);
+            userTaskStatsService.deleteFor(id);
             return true;
         }
         return false;
@@ -69,4 +117,32 @@ public class UserService {
     public Set<User> getUsersByIds(Set<Long> userIds) {
         return new HashSet<>(userRepository.findAllById(userIds));
     }
+
+    /**
+     * Снимок пользователя в кэше со сроком жизни
+     */
+    private static final class CachedUser {
+        private final User user;
+        private final long expiresAtNanos;
+
+        CachedUser(User source, long expiresAtNanos) {
+            this.user = copyOf(source);
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+
+        User copy() {
+            return copyOf(user);
+        }
+
+        private static User copyOf(User source) {
+            User copy = new User(source.getUsername(), source.getPassword(), source.getRole(),
+                    source.getEmail(), source.getFullName());
+            copy.setId(source.getId());
+            return copy;
+        }
+    }
 }
\ No newline at end of file
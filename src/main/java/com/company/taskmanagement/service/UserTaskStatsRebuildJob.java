@@ -0,0 +1,32 @@
+package com.company.taskmanagement.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Сверка user_task_stats с таблицей задач: при старте и каждую ночь
+ * (после смены даты меняется число просроченных задач)
+ */
+@Service
+public class UserTaskStatsRebuildJob {
+
+    @Autowired
+    private UserTaskStatsService userTaskStatsService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "${task-stats.rebuild-cron:0 5 0 * * ?}") // Каждый день в 0:05
+    public void rebuild() {
+        try {
+            userTaskStatsService.rebuild();
+        } catch (Exception e) {
+            System.err.println("❌ Ошибка пересчета статистики задач: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.model.UserTaskStats;
+import com.company.taskmanagement.repository.ArchivedTaskRepository;
+import com.company.taskmanagement.repository.AssigneeTaskCount;
+import com.company.taskmanagement.repository.ProjectTaskRepository;
+import com.company.taskmanagement.repository.TaskCounterRow;
+import com.company.taskmanagement.repository.UserRepository;
+import com.company.taskmanagement.repository.UserTaskCounters;
+import com.company.taskmanagement.repository.UserTaskStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-модель user_task_stats: счетчики задач пользователя.
+ * Изменения задач применяются приращениями (было/стало), а плановый
+ * пересчет исправляет расхождения, в том числе просрочку по мере смены даты.
+ */
+@Service
+public class UserTaskStatsService {
+
+    @Autowired
+    private UserTaskStatsRepository statsRepository;
+
+    @Autowired
+    private ProjectTaskRepository projectTaskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ArchivedTaskRepository archivedTaskRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Состояние задачи в БД до изменения (до flush текущей транзакции)
+     */
+    @Transactional(readOnly = true)
+    public TaskCounterState snapshot(Long taskId) {
+        List<TaskCounterRow> rows = projectTaskRepository.findCounterRowsByTaskId(taskId);
+        if (rows.isEmpty()) {
+            return TaskCounterState.EMPTY;
+        }
+        TaskCounterRow first = rows.get(0);
+        Set<Long> assigneeIds = new HashSet<>();
+        for (TaskCounterRow row : rows) {
+            assigneeIds.add(row.getAssigneeId());
+        }
+        return new TaskCounterState(assigneeIds, first.getStatus(), first.isArchived(), first.getDueDate());
+    }
+
+    /**
+     * Применить изменение задачи к счетчикам всех затронутых исполнителей
+     */
+    @Transactional
+    public void applyChange(TaskCounterState before, TaskCounterState after) {
+        LocalDate today = LocalDate.now();
+        Map<Long, long[]> deltas = new HashMap<>();
+        before.addTo(deltas, -1, today);
+        after.addTo(deltas, 1, today);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Long, long[]> entry : deltas.entrySet()) {
+            long[] delta = entry.getValue();
+            if (delta[0] == 0 && delta[1] == 0 && delta[2] == 0 && delta[3] == 0) {
+                continue;
+            }
+            int updated = statsRepository.increment(entry.getKey(), delta[0], delta[1], delta[2], delta[3], now);
+            if (updated == 0) {
+                // Строки еще нет - ее создаст плановый пересчет
+                System.err.println("❌ Нет строки user_task_stats для пользователя " + entry.getKey() + ", ожидается пересчет");
+            }
+        }
+
+        // Списки задач меняются у исполнителей до и после изменения, даже если счетчики совпали
+        Set<Long> affected = new HashSet<>(before.getAssigneeIds());
+        affected.addAll(after.getAssigneeIds());
+        eventPublisher.publishEvent(TaskChangedEvent.forUsers(affected));
+    }
+
+    /**
+     * Завести пустые счетчики для нового пользователя
+     */
+    @Transactional
+    public void createFor(Long userId) {
+        if (!statsRepository.existsById(userId)) {
+            statsRepository.save(new UserTaskStats(userId));
+        }
+    }
+
+    /**
+     * Удалить счетчики пользователя
+     */
+    @Transactional
+    public void deleteFor(Long userId) {
+        if (statsRepository.existsById(userId)) {
+            statsRepository.deleteById(userId);
+        }
+    }
+
+    /**
+     * Счетчики пользователя: одно чтение по первичному ключу
+     */
+    @Transactional(readOnly = true)
+    public UserTaskCounters getCounters(Long userId) {
+        return statsRepository.findCountersByUserId(userId).orElse(null);
+    }
+
+    /**
+     * Пересчитать все счетчики из таблицы задач и исправить расхождения
+     */
+    @Transactional
+    public int rebuild() {
+        Map<Long, UserTaskCounters> actual = new HashMap<>();
+        for (UserTaskCounters counters : projectTaskRepository.countCountersPerAssignee(LocalDate.now())) {
+            actual.put(counters.getUserId(), counters);
+        }
+        // Задачи холодного архива считаются архивными
+        Map<Long, Long> coldArchived = new HashMap<>();
+        for (AssigneeTaskCount count : archivedTaskRepository.countPerAssignee()) {
+            coldArchived.put(count.getUserId(), count.getTotal());
+        }
+
+        Map<Long, UserTaskStats> stored = new HashMap<>();
+        for (UserTaskStats stats : statsRepository.findAll()) {
+            stored.put(stats.getUserId(), stats);
+        }
+
+        int corrected = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (User user : userRepository.findAll()) {
+            UserTaskStats stats = stored.remove(user.getId());
+            boolean created = stats == null;
+            if (created) {
+                stats = new UserTaskStats(user.getId());
+            }
+            boolean drifted = reconcile(stats, actual.get(user.getId()), coldArchived.getOrDefault(user.getId(), 0L));
+            if (drifted && !created) {
+                corrected++;
+            }
+            if (drifted || created) {
+                stats.setUpdatedAt(now);
+                statsRepository.save(stats);
+            }
+        }
+        // Строки удаленных пользователей
+        statsRepository.deleteAll(stored.values());
+        // Пересчет идет после массовых операций: кэш списков сбрасывается целиком
+        eventPublisher.publishEvent(TaskChangedEvent.all());
+
+        System.out.println("✅ Статистика задач пересчитана, исправлено строк: " + corrected);
+        return corrected;
+    }
+
+    /**
+     * Привести строку к фактическим значениям, вернуть true если были расхождения
+     */
+    private boolean reconcile(UserTaskStats stats, UserTaskCounters actual, long coldArchived) {
+        long active = actual != null ? actual.getActiveTasks() : 0;
+        long archived = (actual != null ? actual.getArchivedTasks() : 0) + coldArchived;
+        long completed = actual != null ? actual.getCompletedTasks() : 0;
+        long overdue = actual != null ? actual.getOverdueTasks() : 0;
+
+        boolean changed = stats.getActiveTasks() != active
+                || stats.getArchivedTasks() != archived
+                || stats.getCompletedTasks() != completed
+                || stats.getOverdueTasks() != overdue;
+
+        stats.setActiveTasks(active);
+        stats.setArchivedTasks(archived);
+        stats.setCompletedTasks(completed);
+        stats.setOverdueTasks(overdue);
+        return changed;
+    }
+
+    /**
+     * Состояние задачи, от которого зависят счетчики
+     */
+    public static final class TaskCounterState {
+
+        public static final TaskCounterState EMPTY = new TaskCounterState(Set.of(), null, false, null);
+
+        private final Set<Long> assigneeIds;
+        private final ProjectTask.TaskStatus status;
+        private final boolean archived;
+        private final LocalDate dueDate;
+
+        TaskCounterState(Set<Long> assigneeIds, ProjectTask.TaskStatus status, boolean archived, LocalDate dueDate) {
+            this.assigneeIds = assigneeIds;
+            this.status = status;
+            this.archived = archived;
+            this.dueDate = dueDate;
+        }
+
+        /**
+         * Состояние по сущности (после изменения)
+         */
+        public static TaskCounterState of(ProjectTask task) {
+            Set<Long> assigneeIds = new HashSet<>();
+            if (task.getAssignees() != null) {
+                for (User user : task.getAssignees()) {
+                    assigneeIds.add(user.getId());
+                }
+            }
+            return new TaskCounterState(assigneeIds, task.getStatus(), task.isArchived(), task.getDueDate());
+        }
+
+        // Вклад задачи в счетчики: active, archived, completed, overdue
+        private void addTo(Map<Long, long[]> deltas, int sign, LocalDate today) {
+            boolean completed = !archived && status == ProjectTask.TaskStatus.COMPLETED;
+            boolean overdue = !archived && dueDate != null && dueDate.isBefore(today)
+                    && status != ProjectTask.TaskStatus.COMPLETED
+                    && status != ProjectTask.TaskStatus.CANCELLED;
+
+            for (Long userId : assigneeIds) {
+                long[] delta = deltas.computeIfAbsent(userId, id -> new long[4]);
+                delta[0] += archived ? 0 : sign;
+                delta[1] += archived ? sign : 0;
+                delta[2] += completed ? sign : 0;
+                delta[3] += overdue ? sign : 0;
+            }
+        }
+
+        public Set<Long> getAssigneeIds() { return assigneeIds; }
+        public ProjectTask.TaskStatus getStatus() { return status; }
+        public boolean isArchived() { return archived; }
+        public LocalDate getDueDate() { return dueDate; }
+    }
+}
@@ -0,0 +1,117 @@
+package com.company.taskmanagement;
+
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Общие тестовые данные для @DataJpaTest: пользователи, задачи и счетчики запросов Hibernate.
+ * В тестах остается только то, что относится к проверяемому сценарию
+ */
+public final class TestData {
+
+    private final TestEntityManager entityManager;
+
+    public TestData(TestEntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Пользователь с ролью USER: пароль pass, почта username@test.com, имя с заглавной буквы
+     */
+    public User user(String username) {
+        return persistUser(username, "USER");
+    }
+
+    public User admin(String username) {
+        return persistUser(username, "ADMIN");
+    }
+
+    /**
+     * Задача с заголовком; остальные поля - значения по умолчанию ProjectTask
+     */
+    public TaskBuilder task(String title) {
+        return new TaskBuilder(title);
+    }
+
+    /**
+     * Статистика Hibernate, сброшенная перед измерением
+     */
+    public Statistics statistics() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private User persistUser(String username, String role) {
+        String fullName = Character.toUpperCase(username.charAt(0)) + username.substring(1);
+        return entityManager.persist(new User(username, "pass", role, username + "@test.com", fullName));
+    }
+
+    /**
+     * Построитель задачи: задаются только нужные тесту поля
+     */
+    public final class TaskBuilder {
+        private final ProjectTask task = new ProjectTask();
+
+        private TaskBuilder(String title) {
+            task.setTitle(title);
+        }
+
+        public TaskBuilder description(String description) {
+            task.setDescription(description);
+            return this;
+        }
+
+        public TaskBuilder status(ProjectTask.TaskStatus status) {
+            task.setStatus(status);
+            return this;
+        }
+
+        public TaskBuilder createdAt(LocalDate createdAt) {
+            task.setCreatedAt(createdAt);
+            return this;
+        }
+
+        public TaskBuilder dueDate(LocalDate dueDate) {
+            task.setDueDate(dueDate);
+            return this;
+        }
+
+        public TaskBuilder completedDate(LocalDate completedDate) {
+            task.setCompletedDate(completedDate);
+            return this;
+        }
+
+        public TaskBuilder archived() {
+            task.setArchived(true);
+            return this;
+        }
+
+        public TaskBuilder archived(LocalDate archivedDate) {
+            task.setArchived(true);
+            task.setArchivedDate(archivedDate);
+            return this;
+        }
+
+        public TaskBuilder assignees(User... assignees) {
+            task.setAssignees(new HashSet<>(List.of(assignees)));
+            return this;
+        }
+
+        public ProjectTask persist() {
+            return entityManager.persist(task);
+        }
+
+        public ProjectTask persistAndFlush() {
+            return entityManager.persistAndFlush(task);
+        }
+    }
+}
@@ -3,6 +3,12 @@ package com.company.taskmanagement.model;
 import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -85,4 +91,83 @@ class ModelTest {
         assertEquals(1, user.getTasks().size());
         assertTrue(task.getAssignees().contains(user));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testChatReactionCountsPerUser() {
+        ChatMessage message = new ChatMessage("alice", "Привет");
+        message.setId(1L);
+
+        ReactionDelta first = message.addReaction("bob", "👍");
+        assertTrue(first.isChanged());
+        assertEquals(1, first.getCount());
+
+        // Повторная реакция того же пользователя не увеличивает счетчик
+        ReactionDelta repeated = message.addReaction("bob", "👍");
+        assertFalse(repeated.isChanged());
+        assertEquals(1, repeated.getCount());
+
+        message.addReaction("carol", "👍");
+        message.addReaction("carol", "🚀");
+        assertEquals(Map.of("👍", 2, "🚀", 1), message.getReactions());
+        assertEquals(List.of("👍", "🚀"), message.reactionsOf("carol"));
+
+        ReactionDelta removed = message.removeReaction("bob", "👍");
+        assertTrue(removed.isChanged());
+        assertFalse(removed.isActive());
+        assertEquals(1, removed.getCount());
+        assertFalse(message.removeReaction("bob", "👍").isChanged());
+
+        assertNull(message.addReaction("bob", "🙂"), "Неизвестный emoji не принимается");
+    }
+
+    @Test
+    void testChatReactionsConcurrentUpdates() throws Exception {
+        ChatMessage message = new ChatMessage("alice", "Привет");
+        message.setId(1L);
+        int users = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int i = 0; i < users; i++) {
+            String username = "user" + i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    // Каждый ставит все реакции дважды и снимает одну
+                    for (String emoji : MessageReactions.EMOJIS) {
+                        message.addReaction(username, emoji);
+                        message.addReaction(username, emoji);
+                    }
+                    message.removeReaction(username, "👎");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Map<String, Integer> counts = message.getReactions();
+        assertNull(counts.get("👎"));
+        assertEquals(users, counts.get("👍"));
+        assertEquals(users, counts.get("🎉"));
+        assertEquals(MessageReactions.EMOJIS.size() - 1, message.reactionsOf("user7").size());
+    }
+
+    @Test
+    void testChatFileLinksAreKeyedByMessage() {
+        // Один и тот же файл, отправленный под разными именами, хранится одним blob
+        ChatMessage report = ChatMessage.file("alice", "report.pdf", null, 10L, "application/pdf");
+        ChatMessage copy = ChatMessage.file("bob", "copy.bin", null, 10L, "application/octet-stream");
+        report.setBlobHash("ab".repeat(32));
+        copy.setBlobHash("ab".repeat(32));
+        report.setId(1L);
+        copy.setId(2L);
+
+        assertEquals("/api/chat/files/1", report.getFileUrl());
+        assertEquals("/api/chat/files/2", copy.getFileUrl());
+        assertEquals("report.pdf", report.getFileName());
+        assertEquals("application/octet-stream", copy.getFileType());
+    }
+}
@@ -0,0 +1,112 @@
+package com.company.taskmanagement.repository;
+
+import com.company.taskmanagement.model.ProjectTask;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Планы горячих запросов ProjectTaskRepository: SQL, который строит Hibernate,
+ * проверяется через EXPLAIN и не должен читать tasks или task_assignees целиком
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.company.taskmanagement.repository.ProjectTaskQueryPlanTest$SqlCapture")
+@ActiveProfiles("test")
+class ProjectTaskQueryPlanTest {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 50);
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 1);
+
+    @Autowired
+    private ProjectTaskRepository projectTaskRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * Запоминает SQL последних выполненных запросов
+     */
+    public static class SqlCapture implements StatementInspector {
+        private static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            synchronized (STATEMENTS) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+
+        static String capture(Runnable call) {
+            synchronized (STATEMENTS) {
+                STATEMENTS.clear();
+            }
+            call.run();
+            synchronized (STATEMENTS) {
+                assertFalse(STATEMENTS.isEmpty(), "Запрос не выполнен");
+                return STATEMENTS.get(STATEMENTS.size() - 1);
+            }
+        }
+    }
+
+    private String explain(Runnable call) throws SQLException {
+        String sql = SqlCapture.capture(call);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            // План строится при подготовке запроса, значения параметров на него не влияют
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+            try (ResultSet plan = statement.executeQuery()) {
+                assertTrue(plan.next());
+                return plan.getString(1);
+            }
+        }
+    }
+
+    private void assertUsesIndexes(String plan) {
+        assertFalse(plan.contains("tableScan"), () -> "Полное чтение таблицы:\n" + plan);
+    }
+
+    @Test
+    void testArchivedPagesUseIndex() throws SQLException {
+        assertUsesIndexes(explain(() -> projectTaskRepository.findPageIdsByArchived(true, 0L, PAGE)));
+        assertUsesIndexes(explain(() -> projectTaskRepository.countActiveTasks()));
+        assertUsesIndexes(explain(() -> projectTaskRepository.countArchivedTasks()));
+    }
+
+    @Test
+    void testAssigneeQueriesUseIndex() throws SQLException {
+        assertUsesIndexes(explain(() -> projectTaskRepository.findPageIdsByAssigneeIdAndArchived(1L, false, 0L, PAGE)));
+        assertUsesIndexes(explain(() -> projectTaskRepository.findByAssigneeIdAndArchivedFalse(1L)));
+        assertUsesIndexes(explain(() -> projectTaskRepository.countArchivedTasksByUserId(1L)));
+        assertUsesIndexes(explain(() -> projectTaskRepository.countGroupedByStatusAndArchivedForAssignee(1L)));
+    }
+
+    @Test
+    void testDateThresholdQueriesUseIndex() throws SQLException {
+        String autoArchive = explain(() -> projectTaskRepository.findAutoArchiveIds(
+                ProjectTask.TaskStatus.COMPLETED, DATE, 0L, PAGE));
+        assertUsesIndexes(autoArchive);
+        assertTrue(autoArchive.contains("IDX_TASKS_STATUS_ARCHIVED_COMPLETED"), autoArchive);
+
+        assertUsesIndexes(explain(() -> projectTaskRepository.findColdArchiveCandidateIds(DATE, PAGE)));
+        assertUsesIndexes(explain(() -> projectTaskRepository.findArchivedTasksBeforeDate(DATE)));
+        assertUsesIndexes(explain(() -> projectTaskRepository.findActiveTasksWithDueDateBefore(DATE)));
+    }
+}
@@ -0,0 +1,216 @@
+package com.company.taskmanagement.repository;
+
+import com.company.taskmanagement.TestData;
+import com.company.taskmanagement.model.FileAttachment;
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.User;
+import org.hibernate.Hibernate;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class ProjectTaskRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProjectTaskRepository projectTaskRepository;
+
+    private TestData data;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(entityManager);
+        alice = data.user("alice");
+        bob = data.user("bob");
+    }
+
+    @Test
+    void testReportTaskIdsFilteredByDateAndAssignee() {
+        LocalDate today = LocalDate.now();
+        ProjectTask inRange = data.task("В периоде").createdAt(today.minusDays(2)).assignees(alice).persist();
+        data.task("Вне периода").createdAt(today.minusDays(60)).assignees(alice).persist();
+        ProjectTask completedInRange = data.task("Завершена в периоде").createdAt(today.minusDays(60))
+                .completedDate(today.minusDays(1)).assignees(bob).persist();
+        entityManager.flush();
+
+        List<Long> all = projectTaskRepository.findReportTaskIds(
+                today.minusDays(7), today, null, 0L, PageRequest.of(0, 100));
+        assertEquals(List.of(inRange.getId(), completedInRange.getId()), all);
+
+        List<Long> aliceOnly = projectTaskRepository.findReportTaskIds(
+                today.minusDays(7), today, alice.getId(), 0L, PageRequest.of(0, 100));
+        assertEquals(List.of(inRange.getId()), aliceOnly);
+    }
+
+    @Test
+    void testReportTaskIdsKeysetPaging() {
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 5; i++) {
+            data.task("Задача " + i).assignees(alice).persist();
+        }
+        entityManager.flush();
+
+        List<Long> firstPage = projectTaskRepository.findReportTaskIds(
+                today, today, null, 0L, PageRequest.of(0, 3));
+        List<Long> secondPage = projectTaskRepository.findReportTaskIds(
+                today, today, null, firstPage.get(firstPage.size() - 1), PageRequest.of(0, 3));
+
+        assertEquals(3, firstPage.size());
+        assertEquals(2, secondPage.size());
+        assertTrue(secondPage.get(0) > firstPage.get(2));
+    }
+
+    @Test
+    void testFindAllWithAssigneesByIdIn() {
+        ProjectTask task = data.task("С исполнителями").assignees(alice, bob).persist();
+        entityManager.flush();
+        entityManager.clear();
+
+        List<ProjectTask> loaded = projectTaskRepository.findAllWithAssigneesByIdIn(List.of(task.getId()));
+
+        assertEquals(1, loaded.size());
+        assertTrue(Hibernate.isInitialized(loaded.get(0).getAssignees()));
+        assertEquals(2, loaded.get(0).getAssignees().size());
+    }
+
+    @Test
+    void testKeysetPageByArchivedAndAssignee() {
+        ProjectTask first = data.task("Первая").assignees(alice).persist();
+        ProjectTask second = data.task("Вторая").assignees(bob).persist();
+        ProjectTask third = data.task("Третья").assignees(alice).persist();
+        ProjectTask archived = data.task("Архивная").archived().assignees(alice).persist();
+        entityManager.flush();
+
+        List<Long> page = projectTaskRepository.findPageIdsByArchived(false, first.getId(), PageRequest.of(0, 10));
+        assertEquals(List.of(second.getId(), third.getId()), page);
+
+        List<Long> alicePage = projectTaskRepository.findPageIdsByAssigneeIdAndArchived(
+                alice.getId(), false, 0L, PageRequest.of(0, 10));
+        assertEquals(List.of(first.getId(), third.getId()), alicePage);
+
+        List<Long> aliceArchive = projectTaskRepository.findPageIdsByAssigneeIdAndArchived(
+                alice.getId(), true, 0L, PageRequest.of(0, 10));
+        assertEquals(List.of(archived.getId()), aliceArchive);
+    }
+
+    @Test
+    void testListingLoadsAssigneesWithoutNPlusOne() {
+        for (int i = 0; i < 10; i++) {
+            data.task("Задача " + i).assignees(alice, bob).persist();
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = data.statistics();
+        List<ProjectTask> tasks = projectTaskRepository.findByArchivedFalse();
+        tasks.forEach(task -> task.getAssignees().forEach(User::getFullName));
+
+        assertEquals(10, tasks.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testAssigneeFilterKeepsAllAssignees() {
+        data.task("Общая").assignees(alice, bob).persist();
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = data.statistics();
+        List<ProjectTask> tasks = projectTaskRepository.findByAssigneeIdAndArchivedFalse(alice.getId());
+
+        assertEquals(1, tasks.size());
+        assertEquals(2, tasks.get(0).getAssignees().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testKeysetPageLoadsInTwoQueries() {
+        for (int i = 0; i < 20; i++) {
+            data.task("Задача " + i).assignees(alice).persist();
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = data.statistics();
+        List<Long> ids = projectTaskRepository.findPageIdsByArchived(false, 0L, PageRequest.of(0, 15));
+        List<ProjectTask> tasks = projectTaskRepository.findAllWithAssigneesByIdIn(ids);
+        tasks.forEach(task -> task.getAssignees().forEach(User::getFullName));
+
+        assertEquals(15, tasks.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testTaskWithDetailsLoadsAssigneesAndAttachments() {
+        ProjectTask task = data.task("С файлом").assignees(alice).persist();
+        FileAttachment attachment = new FileAttachment();
+        attachment.setFilename("stored-plan.txt");
+        attachment.setOriginalFilename("plan.txt");
+        attachment.setFilePath("uploads/stored-plan.txt");
+        attachment.setFileSize(10L);
+        attachment.setContentType("text/plain");
+        attachment.setTask(task);
+        entityManager.persist(attachment);
+        entityManager.flush();
+        entityManager.clear();
+
+        ProjectTask loaded = projectTaskRepository.findWithAssigneesAndAttachmentsById(task.getId()).orElseThrow();
+
+        assertTrue(Hibernate.isInitialized(loaded.getAssignees()));
+        assertTrue(Hibernate.isInitialized(loaded.getAttachments()));
+        assertEquals(1, loaded.getAttachments().size());
+    }
+
+    @Test
+    void testAutoArchiveUsesCompletedDateInChunks() {
+        LocalDate today = LocalDate.now();
+        ProjectTask old1 = data.task("Старая 1").assignees(alice).persist();
+        ProjectTask old2 = data.task("Старая 2").assignees(alice).persist();
+        ProjectTask old3 = data.task("Старая 3").assignees(bob).persist();
+        ProjectTask recent = data.task("Свежая").createdAt(today.minusDays(90)).assignees(bob).persist();
+        ProjectTask open = data.task("В работе").createdAt(today.minusDays(90)).assignees(bob).persist();
+        for (ProjectTask task : List.of(old1, old2, old3, recent)) {
+            task.setStatus(ProjectTask.TaskStatus.COMPLETED);
+            task.setCompletedDate(today.minusDays(40));
+        }
+        recent.setCompletedDate(today.minusDays(5));
+        open.setCompletedDate(today.minusDays(40));
+        entityManager.flush();
+
+        LocalDate threshold = today.minusDays(30);
+        List<Long> firstChunk = projectTaskRepository.findAutoArchiveIds(
+                ProjectTask.TaskStatus.COMPLETED, threshold, 0L, PageRequest.of(0, 2));
+        assertEquals(List.of(old1.getId(), old2.getId()), firstChunk);
+        List<Long> secondChunk = projectTaskRepository.findAutoArchiveIds(
+                ProjectTask.TaskStatus.COMPLETED, threshold, old2.getId(), PageRequest.of(0, 2));
+        assertEquals(List.of(old3.getId()), secondChunk);
+
+        // Задача, вернувшаяся в работу после выборки id, не архивируется
+        int updated = projectTaskRepository.archiveByIds(
+                List.of(old1.getId(), old2.getId(), open.getId()), ProjectTask.TaskStatus.COMPLETED, threshold, today);
+        assertEquals(2, updated);
+        entityManager.clear();
+
+        assertTrue(projectTaskRepository.findById(old1.getId()).orElseThrow().isArchived());
+        assertEquals(today, projectTaskRepository.findById(old2.getId()).orElseThrow().getArchivedDate());
+        assertFalse(projectTaskRepository.findById(open.getId()).orElseThrow().isArchived());
+        assertEquals(List.of(old3.getId()), projectTaskRepository.findAutoArchiveIds(
+                ProjectTask.TaskStatus.COMPLETED, threshold, 0L, PageRequest.of(0, 10)));
+    }
+}
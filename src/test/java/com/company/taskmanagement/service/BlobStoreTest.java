@@ -0,0 +1,187 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.TestData;
+import com.company.taskmanagement.model.FileAttachment;
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.StoredBlob;
+import com.company.taskmanagement.repository.FileAttachmentRepository;
+import com.company.taskmanagement.repository.ProjectTaskRepository;
+import com.company.taskmanagement.repository.StoredBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({FileStorageService.class, BlobStore.class})
+class BlobStoreTest {
+
+    @TempDir
+    Path uploadDir;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    @Autowired
+    private FileAttachmentRepository fileAttachmentRepository;
+
+    @Autowired
+    private ProjectTaskRepository projectTaskRepository;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(entityManager);
+        ReflectionTestUtils.setField(blobStore, "uploadDir", uploadDir.toString());
+    }
+
+    private ProjectTask persistTask() {
+        return data.task("Задача").persist();
+    }
+
+    private MockMultipartFile pdf(String name, String content) {
+        return new MockMultipartFile("file", name, "application/pdf", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long blobFiles() throws Exception {
+        try (Stream<Path> files = Files.walk(uploadDir.resolve("blobs"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private int refCount(String hash) {
+        // Вставки вложений отложены до flush (id из последовательности)
+        entityManager.flush();
+        entityManager.clear();
+        return storedBlobRepository.findById(hash).map(StoredBlob::getRefCount).orElse(0);
+    }
+
+    @Test
+    void testSameContentStoredOnce() throws Exception {
+        FileAttachment first = fileStorageService.storeFileForTask(pdf("spec.pdf", "спецификация"), persistTask().getId());
+        FileAttachment second = fileStorageService.storeFileForTask(pdf("spec-copy.pdf", "спецификация"), persistTask().getId());
+        FileAttachment other = fileStorageService.storeFileForTask(pdf("other.pdf", "другой файл"), persistTask().getId());
+
+        assertEquals(first.getBlobHash(), second.getBlobHash());
+        assertEquals(first.getFilePath(), second.getFilePath());
+        assertNotEquals(first.getBlobHash(), other.getBlobHash());
+        assertEquals("spec-copy.pdf", second.getOriginalFilename());
+        assertEquals(2, refCount(first.getBlobHash()));
+        assertEquals(2, blobFiles());
+        assertEquals("спецификация", Files.readString(Path.of(first.getFilePath())));
+
+        BlobStore.DedupStats stats = blobStore.getStats();
+        assertEquals(2, stats.getBlobs());
+        assertEquals(stats.getStoredBytes() + first.getFileSize(), stats.getReferencedBytes());
+    }
+
+    @Test
+    void testStreamedUploadSniffsTypeAndDedups() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3};
+        FileAttachment streamed = fileStorageService.storeStreamForTask(persistTask().getId(),
+                "photo.png", "application/octet-stream", new ByteArrayInputStream(png));
+        FileAttachment uploaded = fileStorageService.storeFileForTask(
+                new MockMultipartFile("file", "copy.png", "image/png", png), persistTask().getId());
+
+        assertEquals("image/png", streamed.getContentType());
+        assertEquals(png.length, streamed.getFileSize());
+        assertEquals(streamed.getBlobHash(), uploaded.getBlobHash());
+        assertEquals(2, refCount(streamed.getBlobHash()));
+        assertArrayEquals(png, Files.readAllBytes(Path.of(streamed.getFilePath())));
+    }
+
+    @Test
+    void testStreamedUploadRejectsDisallowedType() throws Exception {
+        Long taskId = persistTask().getId();
+        byte[] exe = {'M', 'Z', 0, 0, 1, 2};
+
+        assertThrows(IOException.class, () -> fileStorageService.storeStreamForTask(taskId,
+                "setup.exe", "application/x-msdownload", new ByteArrayInputStream(exe)));
+        assertEquals(0, storedBlobRepository.count());
+        assertTrue(fileAttachmentRepository.findByTaskIdOrderByUploadedAtDesc(taskId).isEmpty());
+    }
+
+    @Test
+    void testStreamedUploadOverLimitLeavesNoFiles() throws Exception {
+        Long taskId = persistTask().getId();
+        InputStream huge = new InputStream() {
+            private long remaining = FileStorageService.MAX_FILE_SIZE + 1;
+
+            @Override
+            public int read() {
+                return remaining-- > 0 ? 'x' : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (remaining <= 0) return -1;
+                int n = (int) Math.min(len, remaining);
+                Arrays.fill(b, off, off + n, (byte) 'x');
+                remaining -= n;
+                return n;
+            }
+        };
+
+        assertThrows(IOException.class,
+                () -> fileStorageService.storeStreamForTask(taskId, "big.txt", "text/plain", huge));
+        assertEquals(0, blobFiles());
+    }
+
+    @Test
+    void testBlobDeletedWithLastReference() throws Exception {
+        ProjectTask task = persistTask();
+        FileAttachment first = fileStorageService.storeFileForTask(pdf("a.pdf", "общий файл"), task.getId());
+        FileAttachment second = fileStorageService.storeFileForTask(pdf("b.pdf", "общий файл"), persistTask().getId());
+        String hash = first.getBlobHash();
+        Path blob = Path.of(first.getFilePath());
+
+        fileStorageService.deleteFile(first.getId());
+        assertEquals(1, refCount(hash));
+        assertTrue(Files.exists(blob));
+
+        fileStorageService.deleteAllTaskFiles(second.getTask().getId());
+        assertFalse(storedBlobRepository.existsById(hash));
+        // Файл удаляется только после коммита транзакции
+        assertTrue(Files.exists(blob));
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        assertFalse(Files.exists(blob));
+
+        // Убираем закоммиченные данные
+        TestTransaction.start();
+        fileAttachmentRepository.deleteAll();
+        projectTaskRepository.deleteAll();
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+    }
+}
@@ -0,0 +1,134 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.ChatMessage;
+import com.company.taskmanagement.model.ReactionDelta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatEventBroadcasterTest {
+
+    private TestBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new TestBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(broadcaster, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(broadcaster, "queueCapacity", 4);
+        ReflectionTestUtils.setField(broadcaster, "dispatchThreads", 2);
+        broadcaster.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.stop();
+    }
+
+    private ChatMessage message(long id, String text) {
+        ChatMessage message = new ChatMessage("alice", text);
+        message.setId(id);
+        return message;
+    }
+
+    @Test
+    void testEventsDeliveredToAllSubscribers() throws Exception {
+        RecordingEmitter first = broadcaster.subscribeWith(() -> new RecordingEmitter(null));
+        RecordingEmitter second = broadcaster.subscribeWith(() -> new RecordingEmitter(null));
+
+        broadcaster.messageCreated(message(1, "Привет"));
+        broadcaster.reactionChanged(new ReactionDelta(1L, "👍", 1, true, true));
+
+        assertTrue(first.awaitEvents(2));
+        assertTrue(second.awaitEvents(2));
+        String frame = first.frames.get(0);
+        assertTrue(frame.contains("event:" + ChatEventBroadcaster.MESSAGE_EVENT));
+        assertTrue(frame.contains("\"text\":\"Привет\""));
+        assertTrue(first.frames.get(1).contains("event:" + ChatEventBroadcaster.REACTION_EVENT));
+    }
+
+    @Test
+    void testSlowSubscriberIsDisconnectedWithoutBlockingOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = broadcaster.subscribeWith(() -> new RecordingEmitter(release));
+        RecordingEmitter fast = broadcaster.subscribeWith(() -> new RecordingEmitter(null));
+
+        // Быстрый клиент успевает за каждым событием, медленный застрял на первом
+        for (int i = 1; i <= 10; i++) {
+            broadcaster.messageCreated(message(i, "Сообщение " + i));
+            assertTrue(fast.awaitEvents(i));
+        }
+
+        assertEquals(1, broadcaster.getSubscriberCount());
+        assertTrue(broadcaster.getStats().getDropped() >= 1);
+        assertTrue(slow.completed);
+        release.countDown();
+    }
+
+    static class TestBroadcaster extends ChatEventBroadcaster {
+        private Supplier<RecordingEmitter> factory;
+
+        RecordingEmitter subscribeWith(Supplier<RecordingEmitter> factory) {
+            this.factory = factory;
+            return (RecordingEmitter) subscribe("alice");
+        }
+
+        @Override
+        SseEmitter createEmitter(long timeout) {
+            return factory.get();
+        }
+    }
+
+    static class RecordingEmitter extends SseEmitter {
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+        private final CountDownLatch block;
+        private volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch block) {
+            this.block = block;
+        }
+
+        @Override
+        public synchronized void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+            if (block != null) {
+                try {
+                    block.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder frame = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType item : items) {
+                frame.append(item.getData());
+            }
+            frames.add(frame.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        boolean awaitEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (frames.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return frames.size() >= count;
+        }
+    }
+}
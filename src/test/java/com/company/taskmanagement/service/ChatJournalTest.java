@@ -0,0 +1,223 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.ChatMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private ChatJournal journal;
+
+    // Снятые ссылки на файлы вместо обращения к БД
+    private final List<String> released = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journal = openJournal();
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    private ChatJournal openJournal() throws IOException {
+        ChatJournal opened = new ChatJournal();
+        ReflectionTestUtils.setField(opened, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(opened, "blobStore", new BlobStore() {
+            @Override
+            public void release(String hash) {
+                released.add(hash);
+            }
+        });
+        ReflectionTestUtils.setField(opened, "directory", directory.toString());
+        ReflectionTestUtils.setField(opened, "segmentBytes", 1024L);
+        ReflectionTestUtils.setField(opened, "fsyncIntervalMs", 10L);
+        ReflectionTestUtils.setField(opened, "indexInterval", 4);
+        ReflectionTestUtils.setField(opened, "maxSegments", 1000);
+        opened.open();
+        return opened;
+    }
+
+    private ChatMessage message(long id) {
+        ChatMessage message = new ChatMessage("alice", "message " + id);
+        message.setId(id);
+        message.setTimestamp(LocalDateTime.of(2024, 1, 1, 12, 0));
+        return message;
+    }
+
+    private ChatMessage fileMessage(long id, String hash) {
+        ChatMessage message = message(id);
+        message.setBlobHash(hash);
+        return message;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void testReadAfterAcrossSegments() throws IOException {
+        for (long id = 1; id <= 100; id++) {
+            journal.append(message(id));
+        }
+
+        assertTrue(segmentCount() > 1, "Сегменты должны ротироваться по размеру");
+        assertEquals(100, journal.getLastId());
+
+        List<ChatMessage> page = journal.readAfter(37, Long.MAX_VALUE, 10);
+        assertEquals(10, page.size());
+        assertEquals(38L, page.get(0).getId());
+        assertEquals(47L, page.get(9).getId());
+        assertEquals("message 38", page.get(0).getText());
+
+        List<ChatMessage> bounded = journal.readAfter(90, 95, 100);
+        assertEquals(List.of(91L, 92L, 93L, 94L), bounded.stream().map(ChatMessage::getId).toList());
+
+        List<ChatMessage> last = journal.readLast(3);
+        assertEquals(List.of(98L, 99L, 100L), last.stream().map(ChatMessage::getId).toList());
+    }
+
+    @Test
+    void testRecoveryAfterRestart() throws IOException {
+        for (long id = 1; id <= 50; id++) {
+            journal.append(message(id));
+        }
+        journal.close();
+
+        journal = openJournal();
+        assertEquals(50, journal.getLastId());
+        assertEquals(50, journal.readAfter(0, Long.MAX_VALUE, 1000).size());
+
+        journal.append(message(51));
+        assertEquals(51L, journal.readLast(1).get(0).getId());
+    }
+
+    @Test
+    void testTornTailIsTruncated() throws IOException {
+        for (long id = 1; id <= 5; id++) {
+            journal.append(message(id));
+        }
+        journal.close();
+
+        // Имитируем запись, оборванную на середине: заголовок есть, данных нет
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+        long validSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(20).putInt(500).putInt(0).putLong(6).flip());
+        }
+
+        journal = openJournal();
+        assertEquals(5, journal.getLastId());
+        assertEquals(validSize, Files.size(segment));
+
+        journal.append(message(6));
+        List<ChatMessage> all = journal.readAfter(0, Long.MAX_VALUE, 100);
+        assertEquals(6, all.size());
+        assertEquals(6L, all.get(5).getId());
+    }
+
+    private void awaitLastId(long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journal.getLastId() < id && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(id, journal.getLastId());
+    }
+
+    @Test
+    void testSubmittedMessagesWrittenInIdOrder() throws InterruptedException {
+        journal.startAt(101);
+
+        // Отправители передают сообщения в другом порядке, чем получили id
+        journal.submit(message(103));
+        journal.submit(message(102));
+        Thread.sleep(50);
+        assertEquals(0, journal.getLastId(), "Без сообщения 101 писатель ждет");
+
+        journal.submit(message(101));
+        awaitLastId(103);
+
+        List<ChatMessage> all = journal.readAfter(0, Long.MAX_VALUE, 100);
+        assertEquals(List.of(101L, 102L, 103L), all.stream().map(ChatMessage::getId).toList());
+
+        // После очистки запоздавшие сообщения очищенной истории не пишутся
+        journal.clear(104);
+        journal.submit(message(104));
+        journal.submit(message(105));
+        awaitLastId(105);
+        assertEquals(List.of(105L), journal.readAfter(0, Long.MAX_VALUE, 100).stream()
+                .map(ChatMessage::getId).toList());
+    }
+
+    @Test
+    void testClearRemovesSegments() throws IOException {
+        for (long id = 1; id <= 30; id++) {
+            journal.append(message(id));
+        }
+        journal.clear(30);
+
+        assertEquals(0, segmentCount());
+        assertTrue(journal.readAfter(0, Long.MAX_VALUE, 100).isEmpty());
+
+        journal.append(message(31));
+        assertEquals(1, journal.readAfter(0, Long.MAX_VALUE, 100).size());
+    }
+
+    @Test
+    void testClearReleasesChatFiles() {
+        String hashA = "a".repeat(64);
+        String hashB = "b".repeat(64);
+        journal.append(fileMessage(1, hashA));
+        journal.append(message(2));
+
+        journal.clear(3);
+        assertEquals(List.of(hashA), released);
+
+        // Сообщение очищенной истории, дошедшее до журнала позже, тоже отдает файл
+        journal.submit(fileMessage(3, hashB));
+        assertEquals(List.of(hashA, hashB), released);
+    }
+
+    @Test
+    void testDroppedSegmentReleasesChatFiles() throws IOException {
+        journal.close();
+        String hash = "c".repeat(64);
+        journal = openJournal();
+        ReflectionTestUtils.setField(journal, "maxSegments", 2);
+
+        journal.append(fileMessage(1, hash));
+        for (long id = 2; id <= 100; id++) {
+            journal.append(message(id));
+        }
+
+        assertEquals(2, segmentCount());
+        assertEquals(List.of(hash), released);
+        assertTrue(journal.readAfter(0, 2, 1).isEmpty());
+    }
+}
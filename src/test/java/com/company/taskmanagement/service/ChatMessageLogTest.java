@@ -0,0 +1,153 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.ChatMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatMessageLogTest {
+
+    private ChatMessage message(String text) {
+        ChatMessage message = new ChatMessage();
+        message.setText(text);
+        return message;
+    }
+
+    @Test
+    void testCapacityRoundedToPowerOfTwo() {
+        assertEquals(512, new ChatMessageLog(500).capacity());
+        assertEquals(8, new ChatMessageLog(8).capacity());
+    }
+
+    @Test
+    void testIdsAssignedFromFirstId() {
+        ChatMessageLog log = new ChatMessageLog(8, 1000);
+        assertEquals(999, log.lastId());
+
+        ChatMessage first = message("первое");
+        log.append(first);
+        ChatMessage second = message("второе");
+        log.append(second);
+
+        assertEquals(1000L, first.getId());
+        assertEquals(1001L, second.getId());
+        assertEquals(1001, log.lastId());
+    }
+
+    @Test
+    void testReadAfterIdAndEviction() {
+        ChatMessageLog log = new ChatMessageLog(8, 1);
+        for (int i = 1; i <= 8; i++) {
+            assertNull(log.append(message("Сообщение " + i)));
+        }
+
+        assertEquals(List.of(6L, 7L, 8L), ids(log.readAfterId(5)));
+        assertTrue(log.readAfterId(8).isEmpty());
+        // Курсор из прошлого запуска меньше firstId - отдаем все, что есть
+        assertEquals(8, log.readAfterId(-10).size());
+
+        ChatMessage evicted = log.append(message("Сообщение 9"));
+        assertEquals(1L, evicted.getId());
+        assertEquals(8, log.size());
+        assertEquals(2L, log.readAll().get(0).getId());
+        assertEquals(List.of(2L, 3L), ids(log.readAfterId(0)).subList(0, 2));
+        assertEquals(List.of(8L, 9L), ids(log.readLast(2)));
+    }
+
+    @Test
+    void testClear() {
+        ChatMessageLog log = new ChatMessageLog(8);
+        log.append(message("1"));
+        log.append(message("2"));
+        log.clear();
+
+        assertEquals(0, log.size());
+        assertTrue(log.readAfterId(0).isEmpty());
+
+        log.append(message("3"));
+        assertEquals(List.of(3L), ids(log.readAll()));
+    }
+
+    @Test
+    void testConcurrentAppendsGetUniqueIncreasingIds() throws Exception {
+        ChatMessageLog log = new ChatMessageLog(1024, ChatMessageLog.firstIdFromClock());
+        int threads = 8;
+        int perThread = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    log.append(message("Сообщение"));
+                    log.readAfterId(log.lastId() - 10);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<Long> all = ids(log.readAll());
+        assertEquals(threads * perThread, all.size());
+        assertEquals(all.size(), new HashSet<>(all).size());
+        for (int i = 1; i < all.size(); i++) {
+            assertEquals(all.get(i - 1) + 1, all.get(i));
+        }
+    }
+
+    @Test
+    void testWriterWaitsForPreviousLapOnSameSlot() throws Exception {
+        ChatMessageLog log = new ChatMessageLog(4);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Отставший писатель: позиция 0 получена, но слот еще не занят
+        ChatMessage slow = new ChatMessage() {
+            @Override
+            public void setId(Long id) {
+                super.setId(id);
+                claimed.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<ChatMessage> slowAppend = executor.submit(() -> log.append(slow));
+        assertTrue(claimed.await(5, TimeUnit.SECONDS));
+
+        for (int i = 2; i <= 4; i++) {
+            log.append(message(String.valueOf(i)));
+        }
+        // Позиция 4 попадает в тот же слот, что и позиция 0
+        ChatMessage fast = message("5");
+        Future<ChatMessage> fastAppend = executor.submit(() -> log.append(fast));
+        Thread.sleep(100);
+        assertFalse(fastAppend.isDone(), "Писатель нового круга должен ждать публикации слота");
+
+        release.countDown();
+        assertNull(slowAppend.get(5, TimeUnit.SECONDS));
+        assertSame(slow, fastAppend.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(List.of(2L, 3L, 4L, 5L), ids(log.readAll()));
+        assertEquals(List.of(5L), ids(log.readAfterId(4)));
+    }
+
+    private List<Long> ids(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getId).toList();
+    }
+}
@@ -0,0 +1,194 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.TestData;
+import com.company.taskmanagement.model.FileAttachment;
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.StoredBlob;
+import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.repository.ArchivedTaskRepository;
+import com.company.taskmanagement.repository.FileAttachmentRepository;
+import com.company.taskmanagement.repository.ProjectTaskRepository;
+import com.company.taskmanagement.repository.StoredBlobRepository;
+import com.company.taskmanagement.repository.UserTaskStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ColdArchiveService.class, BlobStore.class, UserTaskStatsService.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ColdArchiveServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ColdArchiveService coldArchiveService;
+
+    @Autowired
+    private UserTaskStatsService userTaskStatsService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ProjectTaskRepository projectTaskRepository;
+
+    @Autowired
+    private ArchivedTaskRepository archivedTaskRepository;
+
+    @Autowired
+    private FileAttachmentRepository fileAttachmentRepository;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    @Autowired
+    private UserTaskStatsRepository userTaskStatsRepository;
+
+    private TestData data;
+    private User alice;
+    private User bob;
+    private ProjectTask oldTask;
+    private String blobHash;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(blobStore, "uploadDir", uploadDir.toString());
+        // По одной задаче в порции, без пауз
+        ReflectionTestUtils.setField(coldArchiveService, "chunkSize", 1);
+        ReflectionTestUtils.setField(coldArchiveService, "pauseMs", 0L);
+
+        data = new TestData(entityManager);
+        alice = data.user("alice");
+        bob = data.user("bob");
+
+        LocalDate today = LocalDate.now();
+        oldTask = data.task("Старая").description("Подробное описание").archived(today.minusDays(200))
+                .assignees(alice, bob).persist();
+        data.task("Недавняя").archived(today.minusDays(10)).assignees(bob).persist();
+        data.task("Активная").assignees(alice).persist();
+
+        StoredBlob blob = blobStore.store(new ByteArrayInputStream("отчет".getBytes(StandardCharsets.UTF_8)));
+        blobHash = blob.getSha256();
+        FileAttachment attachment = new FileAttachment();
+        attachment.setFilename(blobHash);
+        attachment.setOriginalFilename("report.txt");
+        attachment.setFilePath(blobStore.pathFor(blobHash).toString());
+        attachment.setFileSize(blob.getSize());
+        attachment.setContentType("text/plain");
+        attachment.setBlobHash(blobHash);
+        attachment.setTask(oldTask);
+        entityManager.persist(attachment);
+        entityManager.flush();
+    }
+
+    private int refCount() {
+        entityManager.flush();
+        entityManager.clear();
+        return storedBlobRepository.findById(blobHash).map(StoredBlob::getRefCount).orElse(0);
+    }
+
+    @Test
+    void testMovesOnlyOldArchivedTasks() {
+        assertEquals(1, coldArchiveService.moveOldArchivedTasks());
+
+        assertEquals(2, projectTaskRepository.count());
+        assertFalse(projectTaskRepository.existsById(oldTask.getId()));
+        assertEquals(1, archivedTaskRepository.count());
+        assertEquals(0, fileAttachmentRepository.count());
+        // Ссылка на файл перешла к записи архива
+        assertEquals(1, refCount());
+
+        List<ProjectTask> aliceArchive = coldArchiveService.getUserArchivedTasks(alice.getId());
+        assertEquals(1, aliceArchive.size());
+        ProjectTask cold = aliceArchive.get(0);
+        assertEquals(oldTask.getId(), cold.getId());
+        assertTrue(cold.isColdStorage());
+        assertTrue(cold.isArchived());
+        assertEquals(LocalDate.now().minusDays(200), cold.getArchivedDate());
+        assertEquals("Подробное описание", cold.getDescription());
+        assertEquals(2, cold.getAssignees().size());
+        assertEquals("report.txt", cold.getAttachments().iterator().next().getOriginalFilename());
+
+        assertEquals(1, coldArchiveService.countForUser(bob.getId()));
+        assertEquals(List.of(oldTask.getId()), coldArchiveService.findPageIds(bob.getId(), 0L,
+                PageRequest.of(0, 10)));
+
+        // Пересчет учитывает холодный архив
+        userTaskStatsService.rebuild();
+        assertEquals(2, userTaskStatsRepository.findById(bob.getId()).orElseThrow().getArchivedTasks());
+        assertEquals(1, userTaskStatsRepository.findById(alice.getId()).orElseThrow().getArchivedTasks());
+    }
+
+    @Test
+    void testColdTaskReadableWithAttachmentBlob() {
+        coldArchiveService.moveOldArchivedTasks();
+
+        ProjectTask cold = coldArchiveService.getTask(oldTask.getId()).orElseThrow();
+        assertTrue(cold.isColdStorage());
+        FileAttachment attachment = cold.getAttachments().iterator().next();
+        assertNotNull(attachment.getId());
+        assertEquals(blobHash, attachment.getBlobHash());
+        assertTrue(Files.isRegularFile(blobStore.pathFor(attachment.getBlobHash())));
+        assertTrue(coldArchiveService.getTask(-1L).isEmpty());
+
+        LocalDate archived = LocalDate.now().minusDays(200);
+        assertEquals(List.of(oldTask.getId()), coldArchiveService.findReportIds(archived, archived,
+                alice.getId(), 0L, PageRequest.of(0, 10)));
+        assertEquals(List.of(), coldArchiveService.findReportIds(archived.plusDays(1), archived.plusDays(1),
+                null, 0L, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void testRestoreReturnsTaskWithAttachments() {
+        coldArchiveService.moveOldArchivedTasks();
+        userTaskStatsService.rebuild();
+
+        ProjectTask restored = coldArchiveService.restore(oldTask.getId());
+
+        assertNotNull(restored);
+        assertFalse(restored.isArchived());
+        assertEquals(0, archivedTaskRepository.count());
+        assertEquals(3, projectTaskRepository.count());
+        List<FileAttachment> attachments = fileAttachmentRepository.findByTaskId(restored.getId());
+        assertEquals(1, attachments.size());
+        assertEquals(blobHash, attachments.get(0).getBlobHash());
+        assertEquals(1, refCount());
+        assertEquals(0, userTaskStatsRepository.findById(alice.getId()).orElseThrow().getArchivedTasks());
+        assertEquals(2, userTaskStatsRepository.findById(alice.getId()).orElseThrow().getActiveTasks());
+    }
+
+    @Test
+    void testDeleteReleasesFiles() {
+        coldArchiveService.moveOldArchivedTasks();
+
+        assertTrue(coldArchiveService.delete(oldTask.getId()));
+        assertFalse(coldArchiveService.delete(oldTask.getId()));
+
+        assertEquals(0, archivedTaskRepository.count());
+        assertEquals(0, refCount());
+    }
+}
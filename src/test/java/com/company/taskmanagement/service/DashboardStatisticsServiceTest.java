@@ -0,0 +1,134 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.TestData;
+import com.company.taskmanagement.model.ArchivedTask;
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.User;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({DashboardStatisticsService.class, TaskListCache.class})
+class DashboardStatisticsServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DashboardStatisticsService dashboardStatisticsService;
+
+    @Autowired
+    private TaskListCache taskListCache;
+
+    private TestData data;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        // Кэш общий для всех тестов контекста
+        taskListCache.clear();
+        data = new TestData(entityManager);
+        alice = data.user("alice");
+        bob = data.user("bob");
+
+        data.task("Ожидает").assignees(alice).persist();
+        data.task("Ожидает вдвоем").assignees(alice, bob).persist();
+        data.task("В работе").status(ProjectTask.TaskStatus.IN_PROGRESS).assignees(bob).persist();
+        data.task("Завершена").status(ProjectTask.TaskStatus.COMPLETED).assignees(alice).persist();
+        data.task("В архиве").status(ProjectTask.TaskStatus.COMPLETED).archived().assignees(alice).persist();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testGlobalStatistics() {
+        Statistics statistics = data.statistics();
+
+        DashboardStatisticsService.DashboardStatistics stats = dashboardStatisticsService.getGlobalStatistics();
+
+        assertEquals(2, stats.getTotalUsers());
+        assertEquals(5, stats.getTotalTasks());
+        assertEquals(4, stats.getActiveTasks());
+        assertEquals(1, stats.getArchivedTasks());
+        assertEquals(2, stats.getCompletedTasks());
+        assertEquals(2, stats.getPendingTasks());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testUserStatistics() {
+        Statistics statistics = data.statistics();
+
+        DashboardStatisticsService.DashboardStatistics stats = dashboardStatisticsService.getUserStatistics(alice.getId());
+
+        assertEquals(4, stats.getTotalTasks());
+        assertEquals(3, stats.getActiveTasks());
+        assertEquals(1, stats.getArchivedTasks());
+        assertEquals(2, stats.getCompletedTasks());
+        assertEquals(2, stats.getPendingTasks());
+        assertEquals(0, stats.countByStatus(ProjectTask.TaskStatus.IN_PROGRESS));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testColdArchiveCountedInSameQuery() {
+        ArchivedTask cold = new ArchivedTask();
+        cold.setId(1000L);
+        cold.setArchiveMonth(ArchivedTask.monthOf(LocalDate.now().minusMonths(8)));
+        cold.setTitle("Из холодного архива");
+        cold.setStatus(ProjectTask.TaskStatus.COMPLETED);
+        cold.setPriority(ProjectTask.TaskPriority.LOW);
+        cold.setCreatedAt(LocalDate.now().minusMonths(10));
+        cold.setArchivedDate(LocalDate.now().minusMonths(8));
+        cold.getAssigneeIds().add(alice.getId());
+        cold.setPayload(new byte[0]);
+        entityManager.persist(cold);
+        entityManager.flush();
+        Statistics statistics = data.statistics();
+
+        DashboardStatisticsService.DashboardStatistics stats = dashboardStatisticsService.getUserStatistics(alice.getId());
+
+        assertEquals(5, stats.getTotalTasks());
+        assertEquals(2, stats.getArchivedTasks());
+        assertEquals(3, stats.countByStatus(ProjectTask.TaskStatus.COMPLETED));
+        assertEquals(0, dashboardStatisticsService.getUserStatistics(bob.getId()).getArchivedTasks());
+        assertEquals(6, dashboardStatisticsService.getGlobalStatistics().getTotalTasks());
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testRepeatedReadsServedFromCacheUntilTasksChange() {
+        dashboardStatisticsService.getUserStatistics(alice.getId());
+        dashboardStatisticsService.getUserStatistics(bob.getId());
+        dashboardStatisticsService.getGlobalStatistics();
+        Statistics statistics = data.statistics();
+
+        assertEquals(4, dashboardStatisticsService.getUserStatistics(alice.getId()).getTotalTasks());
+        // Число пользователей не кэшируется
+        assertEquals(2, dashboardStatisticsService.getGlobalStatistics().getTotalUsers());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        data.task("Новая").assignees(bob).persist();
+        entityManager.flush();
+        taskListCache.onTaskChanged(TaskChangedEvent.forUsers(Set.of(bob.getId())));
+        statistics.clear();
+
+        assertEquals(4, dashboardStatisticsService.getUserStatistics(alice.getId()).getTotalTasks());
+        assertEquals(3, dashboardStatisticsService.getUserStatistics(bob.getId()).getTotalTasks());
+        assertEquals(6, dashboardStatisticsService.getGlobalStatistics().getTotalTasks());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+}
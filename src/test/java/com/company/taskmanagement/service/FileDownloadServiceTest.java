@@ -0,0 +1,132 @@
+package com.company.taskmanagement.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileDownloadServiceTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private final FileDownloadService service = new FileDownloadService();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = directory.resolve("stored.txt");
+        Files.writeString(file, CONTENT);
+    }
+
+    private MockHttpServletResponse download(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.serve(file, "text/plain", "отчет.txt", request, response);
+        return response;
+    }
+
+    private MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/files/download/1");
+    }
+
+    @Test
+    void testFullDownloadWithValidators() throws Exception {
+        MockHttpServletResponse response = download(get());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+        assertEquals(CONTENT.length(), response.getContentLengthLong());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("text/plain", response.getContentType());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertTrue(response.getHeader(HttpHeaders.CONTENT_DISPOSITION).contains("filename*=UTF-8''"));
+    }
+
+    @Test
+    void testNotModifiedByEtag() throws Exception {
+        String etag = download(get()).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void testSingleRange() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("56789", response.getContentAsString());
+        assertEquals("bytes 5-9/20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(5, response.getContentLengthLong());
+    }
+
+    @Test
+    void testSuffixAndOpenEndedRanges() throws Exception {
+        MockHttpServletRequest suffix = get();
+        suffix.addHeader(HttpHeaders.RANGE, "bytes=-3");
+        assertEquals("hij", download(suffix).getContentAsString());
+
+        MockHttpServletRequest openEnded = get();
+        openEnded.addHeader(HttpHeaders.RANGE, "bytes=15-");
+        assertEquals("fghij", download(openEnded).getContentAsString());
+    }
+
+    @Test
+    void testUnsatisfiableRange() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-200");
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */20", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void testStaleIfRangeReturnsWholeFile() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-9");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"old-version\"");
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+    }
+
+    @Test
+    void testSendfileDelegatedToContainer() throws Exception {
+        MockHttpServletRequest request = get();
+        request.setAttribute(FileDownloadService.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length, "Тело отправляет контейнер");
+        assertEquals(file.toRealPath().toString(), request.getAttribute(FileDownloadService.SENDFILE_FILENAME));
+        assertEquals(10L, request.getAttribute(FileDownloadService.SENDFILE_START));
+        assertEquals(20L, request.getAttribute(FileDownloadService.SENDFILE_END));
+    }
+
+    @Test
+    void testMissingFile() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.serve(directory.resolve("missing.bin"), null, "missing.bin", get(), response);
+
+        assertEquals(404, response.getStatus());
+    }
+}
@@ -0,0 +1,44 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.TestData;
+import com.company.taskmanagement.model.ProjectTask;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(IdSequenceAligner.class)
+class IdSequenceAlignerTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private IdSequenceAligner idSequenceAligner;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testRealSequenceRestartedAfterExistingRows() {
+        ProjectTask task = new TestData(entityManager).task("Старая задача").persistAndFlush();
+        entityManager.clear();
+        // Строка с id, выданным еще AUTO_INCREMENT
+        jdbcTemplate.update("UPDATE tasks SET id = 100000 WHERE id = ?", task.getId());
+
+        idSequenceAligner.align();
+        long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR tasks_seq", Long.class);
+        assertTrue(next >= 100000 + ProjectTask.ID_ALLOCATION_SIZE, "Последовательность должна обогнать MAX(id): " + next);
+
+        // Повторное выравнивание не отматывает последовательность назад
+        idSequenceAligner.align();
+        assertTrue(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR tasks_seq", Long.class) > next);
+    }
+}
@@ -0,0 +1,98 @@
+package com.company.taskmanagement.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartStreamParserTest {
+
+    private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+    private static byte[] body(byte[] fileContent) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(("preamble\r\n--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"comment\"\r\n\r\n" +
+                "Привет\r\n--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"C:\\docs\\отчет.pdf\"\r\n" +
+                "Content-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(fileContent);
+        out.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    // Поток, отдающий данные маленькими порциями, чтобы граница попадала на стык чтений
+    private static InputStream trickle(byte[] data) {
+        return new ByteArrayInputStream(data) {
+            private final Random random = new Random(42);
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1 + random.nextInt(7)));
+            }
+        };
+    }
+
+    @Test
+    void testBoundaryOf() {
+        assertEquals("abc", MultipartStreamParser.boundaryOf("multipart/form-data; boundary=abc"));
+        assertEquals("a b", MultipartStreamParser.boundaryOf("multipart/form-data; charset=UTF-8; boundary=\"a b\""));
+        assertNull(MultipartStreamParser.boundaryOf("application/json"));
+        assertNull(MultipartStreamParser.boundaryOf(null));
+    }
+
+    @Test
+    void testReadsFieldsAndFile() throws IOException {
+        // Содержимое с переводами строк и "почти границей" внутри
+        byte[] content = ("%PDF-1.7\r\n--" + BOUNDARY.substring(0, 10) + "\r\nконец").getBytes(StandardCharsets.UTF_8);
+        MultipartStreamParser parser = new MultipartStreamParser(trickle(body(content)), BOUNDARY);
+
+        MultipartStreamParser.Part field = parser.next();
+        assertEquals("comment", field.getName());
+        assertNull(field.getFilename());
+        assertEquals("Привет", new String(field.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+
+        MultipartStreamParser.Part file = parser.next();
+        assertEquals("file", file.getName());
+        assertEquals("отчет.pdf", file.getFilename());
+        assertEquals("application/pdf", file.getContentType());
+        assertArrayEquals(content, file.getInputStream().readAllBytes());
+
+        assertNull(parser.next());
+        assertNull(parser.next());
+    }
+
+    @Test
+    void testUnreadPartIsSkipped() throws IOException {
+        byte[] content = new byte[200_000];
+        new Random(7).nextBytes(content);
+        MultipartStreamParser parser = new MultipartStreamParser(new ByteArrayInputStream(body(content)), BOUNDARY);
+
+        parser.next();
+        MultipartStreamParser.Part file = parser.next();
+        InputStream in = file.getInputStream();
+        in.readNBytes(1000);
+
+        assertNull(parser.next());
+        // После перехода к следующей части старый поток больше не отдает данных
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void testTruncatedBodyFails() throws IOException {
+        byte[] full = body("данные".getBytes(StandardCharsets.UTF_8));
+        byte[] truncated = Arrays.copyOf(full, full.length - BOUNDARY.length() - 8);
+        MultipartStreamParser parser = new MultipartStreamParser(new ByteArrayInputStream(truncated), BOUNDARY);
+
+        parser.next();
+        MultipartStreamParser.Part file = parser.next();
+        assertThrows(IOException.class, () -> file.getInputStream().readAllBytes());
+    }
+}
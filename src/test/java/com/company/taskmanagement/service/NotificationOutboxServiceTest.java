@@ -0,0 +1,99 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.NotificationOutbox;
+import com.company.taskmanagement.repository.NotificationOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(NotificationOutboxService.class)
+@TestPropertySource(properties = {
+        "telegram.outbox.handoff-grace-seconds=0",
+        "telegram.outbox.max-attempts=2"
+})
+class NotificationOutboxServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private NotificationOutboxService outboxService;
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    private NotificationOutbox reload(Long id) {
+        entityManager.flush();
+        entityManager.clear();
+        return outboxRepository.findById(id).orElseThrow();
+    }
+
+    @Test
+    void testClaimedEntryIsNotClaimedTwice() {
+        NotificationOutbox entry = outboxService.record("новая задача");
+
+        List<NotificationOutbox> claimed = outboxService.claimBatch(10);
+        assertEquals(1, claimed.size());
+        assertEquals(NotificationOutbox.OutboxStatus.SENDING, reload(entry.getId()).getStatus());
+
+        assertTrue(outboxService.claimBatch(10).isEmpty());
+        assertFalse(outboxService.claim(entry.getId()));
+    }
+
+    @Test
+    void testFastPathClaimAndMarkSent() {
+        NotificationOutbox entry = outboxService.record("обновление");
+
+        assertTrue(outboxService.claim(entry.getId()));
+        outboxService.markSent(List.of(entry.getId()));
+
+        NotificationOutbox sent = reload(entry.getId());
+        assertEquals(NotificationOutbox.OutboxStatus.SENT, sent.getStatus());
+        assertEquals(1, sent.getAttempts());
+        assertNotNull(sent.getSentAt());
+        assertTrue(outboxService.claimBatch(10).isEmpty());
+    }
+
+    @Test
+    void testFailedEntryIsRescheduledThenMarkedFailed() {
+        NotificationOutbox entry = outboxService.record("завершение");
+
+        assertTrue(outboxService.claim(entry.getId()));
+        outboxService.markForRetry(List.of(entry.getId()), "503 Service Unavailable");
+
+        NotificationOutbox retried = reload(entry.getId());
+        assertEquals(NotificationOutbox.OutboxStatus.PENDING, retried.getStatus());
+        assertTrue(retried.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals("503 Service Unavailable", retried.getLastError());
+
+        assertTrue(outboxService.claim(entry.getId()));
+        outboxService.markForRetry(List.of(entry.getId()), "503 Service Unavailable");
+        assertEquals(NotificationOutbox.OutboxStatus.FAILED, reload(entry.getId()).getStatus());
+    }
+
+    @Test
+    void testExpiredLeaseIsReclaimed() {
+        NotificationOutbox entry = outboxService.record("зависшая отправка");
+        assertTrue(outboxService.claim(entry.getId()));
+
+        NotificationOutbox stuck = reload(entry.getId());
+        stuck.setLockedUntil(LocalDateTime.now().minusMinutes(1));
+        outboxRepository.save(stuck);
+        entityManager.flush();
+
+        List<NotificationOutbox> claimed = outboxService.claimBatch(10);
+        assertEquals(1, claimed.size());
+        assertEquals(2, claimed.get(0).getAttempts());
+    }
+}
@@ -0,0 +1,86 @@
+package com.company.taskmanagement.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresenceTrackerTest {
+
+    private static final long START = 1_000_000L;
+    private static final long TIMEOUT = 10_000L;
+
+    private PresenceTracker tracker;
+    private final List<PresenceTracker.PresenceChange> events = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        tracker = new PresenceTracker();
+        ReflectionTestUtils.setField(tracker, "chatEventBroadcaster", new ChatEventBroadcaster() {
+            @Override
+            public void presenceChanged(PresenceTracker.PresenceChange change) {
+                events.add(change);
+            }
+        });
+        ReflectionTestUtils.setField(tracker, "timeoutMs", TIMEOUT);
+        ReflectionTestUtils.setField(tracker, "tickMs", 1000L);
+        // Колесо меньше таймаута: срок приходится на следующий оборот
+        ReflectionTestUtils.setField(tracker, "wheel", new TimerWheel<>(4, 1000L, START));
+    }
+
+    @Test
+    void testUserExpiresAfterTimeout() {
+        tracker.heartbeat("alice", START);
+
+        assertTrue(tracker.isOnline("alice"));
+        assertEquals(1, tracker.getOnlineCount());
+        assertTrue(events.get(0).isOnline());
+
+        tracker.expire(START + TIMEOUT - 1000);
+        assertTrue(tracker.isOnline("alice"));
+
+        tracker.expire(START + TIMEOUT);
+        assertFalse(tracker.isOnline("alice"));
+        assertEquals(0, tracker.getOnlineCount());
+        assertEquals(2, events.size());
+        assertFalse(events.get(1).isOnline());
+        assertEquals(0, events.get(1).getOnlineCount());
+    }
+
+    @Test
+    void testHeartbeatExtendsPresenceWithoutNewEvents() {
+        tracker.heartbeat("alice", START);
+        for (long now = START + 1000; now <= START + 3 * TIMEOUT; now += 1000) {
+            if (now % 5000 == 0) {
+                tracker.heartbeat("alice", now);
+            }
+            tracker.expire(now);
+            assertTrue(tracker.isOnline("alice"), "Пользователь с heartbeat должен оставаться онлайн");
+        }
+
+        assertEquals(1, events.size(), "Повторные heartbeat не создают событий");
+
+        tracker.expire(START + 5 * TIMEOUT);
+        assertFalse(tracker.isOnline("alice"));
+    }
+
+    @Test
+    void testReconnectIgnoresStaleTimer() {
+        tracker.heartbeat("alice", START);
+        tracker.disconnect("alice");
+        tracker.heartbeat("alice", START + 5000);
+
+        // Таймер первой сессии не должен выкинуть вторую
+        tracker.expire(START + TIMEOUT);
+        assertTrue(tracker.isOnline("alice"));
+
+        tracker.expire(START + 5000 + TIMEOUT);
+        assertFalse(tracker.isOnline("alice"));
+        assertEquals(List.of(true, false, true, false),
+                events.stream().map(PresenceTracker.PresenceChange::isOnline).toList());
+    }
+}
@@ -0,0 +1,124 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.TestData;
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.repository.ProjectTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ProjectTaskService.class, UserService.class, UserTaskStatsService.class, FileStorageService.class,
+        BlobStore.class, TelegramGroupNotificationService.class, NotificationOutboxService.class})
+class ProjectTaskServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProjectTaskService projectTaskService;
+
+    @Autowired
+    private ProjectTaskRepository projectTaskRepository;
+
+    private TestData data;
+    private User alice;
+    private User bob;
+    private ProjectTask task;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(entityManager);
+        alice = data.user("alice");
+        bob = data.user("bob");
+
+        task = data.task("Отчет").description("Квартальный отчет").dueDate(LocalDate.now().plusDays(7))
+                .assignees(alice).persistAndFlush();
+        entityManager.clear();
+    }
+
+    private ProjectTask reload() {
+        entityManager.flush();
+        entityManager.clear();
+        return projectTaskRepository.findWithAssigneesAndAttachmentsById(task.getId()).orElseThrow();
+    }
+
+    @Test
+    void testPatchChangesOnlyGivenFields() {
+        ProjectTaskService.TaskPatch patch = new ProjectTaskService.TaskPatch();
+        patch.setStatus(ProjectTask.TaskStatus.COMPLETED);
+        patch.setDueDate(null);
+        patch.setAssigneeIds(Set.of(alice.getId(), bob.getId()));
+
+        ProjectTask patched = projectTaskService.patchTask(task.getId(), 0L, patch);
+
+        assertEquals(1, patched.getVersion());
+        ProjectTask stored = reload();
+        assertEquals("Отчет", stored.getTitle());
+        assertEquals("Квартальный отчет", stored.getDescription());
+        assertEquals(ProjectTask.TaskStatus.COMPLETED, stored.getStatus());
+        assertEquals(LocalDate.now(), stored.getCompletedDate());
+        assertNull(stored.getDueDate());
+        assertEquals(2, stored.getAssignees().size());
+    }
+
+    @Test
+    void testStaleVersionIsRejected() {
+        ProjectTaskService.TaskPatch patch = new ProjectTaskService.TaskPatch();
+        patch.setTitle("Первая правка");
+        projectTaskService.patchTask(task.getId(), 0L, patch);
+
+        // Второй редактор открыл задачу до первой правки
+        ProjectTaskService.TaskPatch stale = new ProjectTaskService.TaskPatch();
+        stale.setTitle("Вторая правка");
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> projectTaskService.patchTask(task.getId(), 0L, stale));
+
+        ProjectTask details = new ProjectTask();
+        details.setTitle("Правка из формы");
+        details.setAssignees(new HashSet<>(Set.of(alice)));
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> projectTaskService.updateTask(task.getId(), 0L, details));
+
+        assertEquals("Первая правка", reload().getTitle());
+    }
+
+    @Test
+    void testOnlyAssigneesAndAdminsCanEdit() {
+        User admin = data.admin("admin");
+
+        assertTrue(projectTaskService.canEdit(task.getId(), alice));
+        assertFalse(projectTaskService.canEdit(task.getId(), bob));
+        assertTrue(projectTaskService.canEdit(task.getId(), admin));
+        assertFalse(projectTaskService.canEdit(task.getId(), null));
+    }
+
+    @Test
+    void testConcurrentCommitDetectedOnFlush() {
+        // Задача уже прочитана с версией 0, а другая транзакция успела ее изменить
+        projectTaskRepository.findById(task.getId()).orElseThrow();
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE tasks SET title = 'Чужая правка', version = version + 1 WHERE id = :id")
+                .setParameter("id", task.getId())
+                .executeUpdate();
+
+        ProjectTaskService.TaskPatch patch = new ProjectTaskService.TaskPatch();
+        patch.setPriority(ProjectTask.TaskPriority.URGENT);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> projectTaskService.patchTask(task.getId(), 0L, patch));
+    }
+}
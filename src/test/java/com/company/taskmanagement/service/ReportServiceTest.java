@@ -0,0 +1,100 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.TestData;
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ReportService.class, UserService.class, UserTaskStatsService.class, ColdArchiveService.class, BlobStore.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ReportServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ColdArchiveService coldArchiveService;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(entityManager);
+    }
+
+    @Test
+    void testCsvReportStreamedWithEscapingAndDates() throws Exception {
+        User user = data.user("ivan");
+        data.task("Отчет, \"квартал\"")
+                .status(ProjectTask.TaskStatus.COMPLETED)
+                .createdAt(LocalDate.of(2024, 3, 5))
+                .dueDate(LocalDate.of(2024, 3, 9))
+                .completedDate(LocalDate.of(2024, 3, 7))
+                .assignees(user)
+                .persistAndFlush();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeCsvReport(out, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31), null);
+        String csv = out.toString(StandardCharsets.UTF_8);
+
+        assertTrue(csv.startsWith("\uFEFF"), "Отчет должен начинаться с BOM");
+        assertTrue(csv.contains("Активная,Завершено,ivan,\"Отчет, \"\"квартал\"\"\",Средний,05.03.2024,09.03.2024,07.03.2024,Не указана,Нет\n"));
+        assertTrue(csv.contains("Период:,01.03.2024 - 31.03.2024\n"));
+        assertTrue(csv.contains("Всего задач:,1\n"));
+    }
+
+    @Test
+    void testReportIncludesColdArchive() throws Exception {
+        User user = data.user("petr");
+        User other = data.user("olga");
+
+        ProjectTask hot = data.task("Горячая").createdAt(LocalDate.of(2024, 3, 2)).assignees(user).persist();
+        ProjectTask cold = data.task("Холодная").createdAt(LocalDate.of(2024, 3, 3))
+                .archived(LocalDate.of(2024, 3, 20)).assignees(user).persist();
+        data.task("Чужая холодная").createdAt(LocalDate.of(2024, 3, 4))
+                .archived(LocalDate.of(2024, 3, 21)).assignees(other).persist();
+        entityManager.flush();
+
+        assertEquals(2, coldArchiveService.moveOldArchivedTasks());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeCsvReport(out, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31), user.getId());
+        String csv = out.toString(StandardCharsets.UTF_8);
+
+        assertTrue(csv.contains("Активная,Ожидание,petr,Горячая,"));
+        assertTrue(csv.contains("Архив,Ожидание,petr,Холодная,Средний,03.03.2024,Не указана,20.03.2024,20.03.2024,Нет\n"));
+        assertFalse(csv.contains("Чужая холодная"));
+        assertTrue(csv.contains("Всего задач:,2\n"));
+        // Задачи выводятся по id независимо от таблицы
+        assertTrue(hot.getId() < cold.getId());
+        assertTrue(csv.indexOf("Горячая") < csv.indexOf("Холодная"));
+    }
+
+    @Test
+    void testEmptyReport() throws Exception {
+        byte[] report = reportService.generateExcelReport(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 31), null);
+        String csv = new String(report, StandardCharsets.UTF_8);
+
+        assertTrue(csv.contains("Нет данных за указанный период"));
+        assertTrue(csv.contains("Всего задач:,0\n"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.TestData;
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.repository.ProjectTaskRepository;
+import com.company.taskmanagement.repository.TaskVersionRow;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(TaskApiService.class)
+class TaskApiServiceTest {
+
+    private static final LocalDate DUE_DATE = LocalDate.of(2030, 1, 1);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TaskApiService taskApiService;
+
+    @Autowired
+    private ProjectTaskRepository projectTaskRepository;
+
+    private TestData data;
+    private User alice;
+    private User bob;
+    private ProjectTask first;
+    private ProjectTask second;
+    private ProjectTask third;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(entityManager);
+        alice = data.user("alice");
+        bob = data.user("bob");
+
+        first = data.task("Первая").dueDate(DUE_DATE).assignees(alice, bob).persist();
+        second = data.task("Вторая").status(ProjectTask.TaskStatus.IN_PROGRESS).dueDate(DUE_DATE).assignees(bob).persist();
+        third = data.task("Третья").dueDate(DUE_DATE).assignees(alice).persist();
+        data.task("Архивная").status(ProjectTask.TaskStatus.COMPLETED).archived().assignees(alice).persist();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private List<Long> ids(KeysetPage<TaskApiService.TaskSummary> page) {
+        return page.getContent().stream().map(TaskApiService.TaskSummary::getId).toList();
+    }
+
+    @Test
+    void testKeysetPagesWithFilters() {
+        Statistics statistics = data.statistics();
+
+        KeysetPage<TaskVersionRow> versions = taskApiService.findPage(false, null, null, null, null, 2);
+        KeysetPage<TaskApiService.TaskSummary> page = taskApiService.load(versions);
+
+        assertEquals(List.of(first.getId(), second.getId()), ids(page));
+        assertEquals(second.getId(), page.getNextCursor());
+        assertEquals(Set.of(alice.getId(), bob.getId()), page.getContent().get(0).getAssigneeIds());
+        assertEquals(DUE_DATE, page.getContent().get(0).getDueDate());
+        // Страница версий и проекции задач, сущности не загружаются
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        KeysetPage<TaskApiService.TaskSummary> next = taskApiService.load(
+                taskApiService.findPage(false, null, null, null, page.getNextCursor(), 2));
+        assertEquals(List.of(third.getId()), ids(next));
+        assertFalse(next.hasNext());
+
+        assertEquals(List.of(first.getId(), third.getId()), ids(taskApiService.load(
+                taskApiService.findPage(false, ProjectTask.TaskStatus.PENDING, null, null, null, 10))));
+        assertEquals(List.of(first.getId(), third.getId()), ids(taskApiService.load(
+                taskApiService.findPage(false, null, ProjectTask.TaskPriority.MEDIUM, alice.getId(), null, 10))));
+        assertEquals(1, taskApiService.findPage(true, null, null, alice.getId(), null, 10).getContent().size());
+    }
+
+    @Test
+    void testETagsChangeOnlyWithTasks() {
+        String pageETag = taskApiService.pageETag(taskApiService.findPage(false, null, null, null, null, 10));
+        String taskETag = taskApiService.taskETag(taskApiService.getTask(second.getId()).orElseThrow());
+
+        assertEquals(pageETag, taskApiService.pageETag(taskApiService.findPage(false, null, null, null, null, 10)));
+        assertTrue(pageETag.startsWith("\"") && pageETag.endsWith("\""));
+
+        // Смена исполнителей тоже увеличивает версию задачи
+        ProjectTask task = projectTaskRepository.findById(second.getId()).orElseThrow();
+        task.getAssignees().add(entityManager.find(User.class, alice.getId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        TaskApiService.TaskSummary changed = taskApiService.getTask(second.getId()).orElseThrow();
+        assertNotEquals(taskETag, taskApiService.taskETag(changed));
+        assertEquals(Set.of(alice.getId(), bob.getId()), changed.getAssigneeIds());
+        assertNotEquals(pageETag, taskApiService.pageETag(taskApiService.findPage(false, null, null, null, null, 10)));
+        assertTrue(taskApiService.getTask(-1L).isEmpty());
+    }
+}
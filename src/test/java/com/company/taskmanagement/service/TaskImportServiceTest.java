@@ -0,0 +1,172 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.model.FileAttachment;
+import com.company.taskmanagement.model.StoredBlob;
+import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.repository.FileAttachmentRepository;
+import com.company.taskmanagement.repository.ProjectTaskRepository;
+import com.company.taskmanagement.repository.StoredBlobRepository;
+import com.company.taskmanagement.repository.UserRepository;
+import com.company.taskmanagement.repository.UserTaskStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({TaskImportService.class, BlobStore.class, UserTaskStatsService.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+// Импорт сам управляет транзакциями, а файлы пишутся в других потоках - данные коммитятся
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskImportServiceTest {
+
+    private static final byte[] PDF = "%PDF-1.4 спецификация".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 7, 7, 7};
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTaskStatsRepository userTaskStatsRepository;
+
+    @Autowired
+    private TaskImportService taskImportService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ProjectTaskRepository projectTaskRepository;
+
+    @Autowired
+    private FileAttachmentRepository fileAttachmentRepository;
+
+    @Autowired
+    private StoredBlobRepository storedBlobRepository;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(blobStore, "uploadDir", tempDir.resolve("uploads").toString());
+        // Маленькие порции, чтобы импорт прошел несколько транзакций
+        ReflectionTestUtils.setField(taskImportService, "chunkSize", 2);
+        userRepository.save(new User("alice", "pass", "USER", "alice@test.com", "Alice"));
+        userRepository.save(new User("bob", "pass", "USER", "bob@test.com", "Bob"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fileAttachmentRepository.deleteAll();
+        projectTaskRepository.deleteAll();
+        storedBlobRepository.deleteAll();
+        userTaskStatsRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private Path archive() throws Exception {
+        Path zip = tempDir.resolve("attachments.zip");
+        try (OutputStream out = Files.newOutputStream(zip); ZipOutputStream zipOut = new ZipOutputStream(out)) {
+            zipOut.putNextEntry(new ZipEntry("docs/spec.pdf"));
+            zipOut.write(PDF);
+            zipOut.putNextEntry(new ZipEntry("screen.png"));
+            zipOut.write(PNG);
+            zipOut.putNextEntry(new ZipEntry("setup.exe"));
+            zipOut.write(new byte[]{'M', 'Z', 0, 1});
+        }
+        return zip;
+    }
+
+    private int refCount(byte[] content) {
+        return storedBlobRepository.findAll().stream()
+                .filter(blob -> blob.getSize() == content.length)
+                .mapToInt(StoredBlob::getRefCount).sum();
+    }
+
+    @Test
+    void testCsvImportWithAttachments() throws Exception {
+        String csv = "title,description,status,priority,dueDate,assignees,attachments\n" +
+                "Первая,\"Описание, с запятой\",in_progress,high,2030-01-15,alice,docs/spec.pdf\n" +
+                "Вторая,,,,,alice;bob,docs/spec.pdf;screen.png\n" +
+                "Без исполнителя,,,,,nobody,\n" +
+                "Плохой статус,,DONE,,,alice,\n" +
+                "Нет файла,,,,,bob,missing.pdf\n" +
+                "Запрещенный тип,,,,,bob,setup.exe\n" +
+                "Третья,,COMPLETED,,,bob,\n";
+        List<TaskImportService.ImportRow> rows = taskImportService.parseRows("tasks.csv",
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(7, rows.size());
+        assertEquals("Описание, с запятой", rows.get(0).getDescription());
+        assertEquals(List.of("alice", "bob"), rows.get(1).getAssignees());
+
+        TaskImportService.ImportJob job = new TaskImportService.ImportJob("job", rows.size());
+        taskImportService.run(job, rows, archive());
+
+        assertEquals(TaskImportService.ImportJob.State.COMPLETED, job.getState());
+        assertEquals(3, job.getCreatedTasks());
+        assertEquals(4, job.getFailedRows());
+        assertEquals(7, job.getProcessedRows());
+        assertEquals(100, job.getProgressPercent());
+        assertEquals(3, job.getCreatedAttachments());
+        assertEquals(2, job.getStoredFiles());
+        assertEquals(4, job.getErrors().size());
+        assertTrue(job.getErrors().get(0).startsWith("Строка 3:"));
+
+        assertEquals(3, projectTaskRepository.count());
+        List<FileAttachment> attachments = fileAttachmentRepository.findAll();
+        assertEquals(3, attachments.size());
+        assertTrue(attachments.stream().anyMatch(a -> a.getOriginalFilename().equals("spec.pdf")
+                && a.getContentType().equals("application/pdf")));
+        assertTrue(attachments.stream().anyMatch(a -> a.getContentType().equals("image/png")));
+
+        // Ссылки импорта сняты, остались только ссылки вложений; запрещенный файл удален
+        assertEquals(2, refCount(PDF));
+        assertEquals(1, refCount(PNG));
+        assertEquals(2, storedBlobRepository.count());
+        assertFalse(Files.exists(tempDir.resolve("attachments.zip")));
+    }
+
+    @Test
+    void testJsonRows() throws Exception {
+        String json = "[{\"title\":\"Из JSON\",\"priority\":\"URGENT\",\"assignees\":[\"bob\"]}," +
+                "{\"title\":\"Вторая\",\"assignees\":[\"alice\"],\"unknown\":1}]";
+        List<TaskImportService.ImportRow> rows = taskImportService.parseRows("tasks.json",
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, rows.size());
+
+        TaskImportService.ImportJob job = new TaskImportService.ImportJob("job", rows.size());
+        taskImportService.run(job, rows, null);
+
+        assertEquals(2, job.getCreatedTasks());
+        assertEquals(0, job.getFailedRows());
+        assertEquals(2, projectTaskRepository.count());
+    }
+
+    @Test
+    void testReadCsvQuotedFields() {
+        List<List<String>> records = TaskImportService.readCsv("a,\"b \"\"c\"\"\",\"multi\r\nline\"\r\n\r\nx,y");
+        assertEquals(List.of(List.of("a", "b \"c\"", "multi\r\nline"), List.of("x", "y")), records);
+    }
+}
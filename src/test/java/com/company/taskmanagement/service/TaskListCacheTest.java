@@ -0,0 +1,98 @@
+package com.company.taskmanagement.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskListCacheTest {
+
+    private TaskListCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new TaskListCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 3);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+    }
+
+    private List<Long> load(Long... ids) {
+        loads.incrementAndGet();
+        return List.of(ids);
+    }
+
+    @Test
+    void testRepeatedReadIsHit() {
+        assertEquals(List.of(1L, 2L), cache.get(1L, "active", () -> load(1L, 2L)));
+        assertEquals(List.of(1L, 2L), cache.get(1L, "active", () -> load(9L)));
+
+        assertEquals(1, loads.get());
+        TaskListCache.CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRatio());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void testChangeInvalidatesOnlyAffectedUsersAndGlobal() {
+        cache.get(1L, "active", () -> load(1L));
+        cache.get(2L, "active", () -> load(2L));
+        cache.get(null, "active", () -> load(1L, 2L));
+
+        cache.onTaskChanged(TaskChangedEvent.forUsers(Set.of(1L)));
+
+        assertEquals(List.of(1L, 3L), cache.get(1L, "active", () -> load(1L, 3L)));
+        assertEquals(List.of(2L), cache.get(2L, "active", () -> load(9L)));
+        assertEquals(List.of(1L, 2L, 3L), cache.get(null, "active", () -> load(1L, 2L, 3L)));
+        assertEquals(5, loads.get());
+
+        cache.onTaskChanged(TaskChangedEvent.all());
+        assertEquals(0, cache.getStats().getSize());
+        assertEquals(List.of(), cache.get(2L, "active", () -> load()));
+        assertEquals(2, cache.getStats().getInvalidations());
+    }
+
+    @Test
+    void testLoadRacingWithChangeIsNotServed() {
+        // Изменение закоммичено, пока шел запрос: прочитанный список уже устарел
+        cache.get(1L, "active", () -> {
+            cache.onTaskChanged(TaskChangedEvent.forUsers(Set.of(1L)));
+            return load(1L);
+        });
+
+        assertEquals(List.of(1L, 2L), cache.get(1L, "active", () -> load(1L, 2L)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testSizeIsBoundedByLeastRecentlyUsed() {
+        cache.get(1L, "a", () -> load(1L));
+        cache.get(2L, "a", () -> load(2L));
+        cache.get(3L, "a", () -> load(3L));
+        // Обращение к первой записи делает вытесняемой вторую
+        cache.get(1L, "a", () -> load(9L));
+        cache.get(4L, "a", () -> load(4L));
+
+        assertEquals(3, cache.getStats().getSize());
+        assertEquals(1, cache.getStats().getEvictions());
+        assertEquals(List.of(1L), cache.get(1L, "a", () -> load(9L)));
+        assertEquals(List.of(20L), cache.get(2L, "a", () -> load(20L)));
+    }
+
+    @Test
+    void testExpiredEntryIsReloaded() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+
+        cache.get(1L, "active", () -> load(1L));
+        cache.get(1L, "active", () -> load(1L));
+
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,142 @@
+package com.company.taskmanagement.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelegramNotificationDispatcherTest {
+
+    private HttpServer stubServer;
+    private final List<String> receivedBodies = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile CountDownLatch requestArrived;
+    private volatile CountDownLatch releaseRequests;
+
+    private TelegramNotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Локальная заглушка Telegram Bot API
+        stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubServer.createContext("/bottest-token/sendMessage", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (requestArrived != null) {
+                requestArrived.countDown();
+                try {
+                    releaseRequests.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            int status = failuresLeft.getAndDecrement() > 0 ? 500 : 200;
+            if (status == 200) {
+                receivedBodies.add(body);
+            }
+            byte[] response = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        stubServer.start();
+
+        TelegramGroupNotificationService telegramService = new TelegramGroupNotificationService();
+        ReflectionTestUtils.setField(telegramService, "botToken", "test-token");
+        ReflectionTestUtils.setField(telegramService, "groupChatId", "-100");
+        ReflectionTestUtils.setField(telegramService, "apiBaseUrl",
+                "http://127.0.0.1:" + stubServer.getAddress().getPort());
+        ReflectionTestUtils.setField(telegramService, "connectTimeoutMs", 1000);
+        ReflectionTestUtils.setField(telegramService, "readTimeoutMs", 10000);
+        telegramService.init();
+
+        dispatcher = new TelegramNotificationDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "telegramService", telegramService);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 100);
+        ReflectionTestUtils.setField(dispatcher, "workerCount", 1);
+        ReflectionTestUtils.setField(dispatcher, "coalesceWindowMs", 300L);
+        ReflectionTestUtils.setField(dispatcher, "maxBatch", 10);
+        ReflectionTestUtils.setField(dispatcher, "ratePerMinute", 600);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffMs", 10L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMs", 100L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+        stubServer.stop(0);
+    }
+
+    @Test
+    void testBurstIsCoalescedIntoOneMessage() throws Exception {
+        dispatcher.start();
+        dispatcher.enqueue(new TaskNotificationEvent("первое"));
+        dispatcher.enqueue(new TaskNotificationEvent("второе"));
+        dispatcher.enqueue(new TaskNotificationEvent("третье"));
+
+        waitUntil(() -> dispatcher.getStats().getDelivered() == 3);
+
+        assertEquals(1, receivedBodies.size());
+        assertTrue(receivedBodies.get(0).contains("первое"));
+        assertTrue(receivedBodies.get(0).contains("третье"));
+        assertEquals(1, dispatcher.getStats().getBatchesSent());
+        assertEquals(0, dispatcher.getStats().getQueueDepth());
+    }
+
+    @Test
+    void testFailedDeliveryIsRetried() throws Exception {
+        failuresLeft.set(2);
+        dispatcher.start();
+        dispatcher.enqueue(new TaskNotificationEvent("повтор"));
+
+        waitUntil(() -> dispatcher.getStats().getDelivered() == 1);
+
+        assertEquals(2, dispatcher.getStats().getRetries());
+        assertEquals(0, dispatcher.getStats().getFailed());
+        assertEquals(1, receivedBodies.size());
+    }
+
+    @Test
+    void testQueueOverflowIsRejected() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 1);
+        ReflectionTestUtils.setField(dispatcher, "maxBatch", 1);
+        ReflectionTestUtils.setField(dispatcher, "coalesceWindowMs", 0L);
+        requestArrived = new CountDownLatch(1);
+        releaseRequests = new CountDownLatch(1);
+        dispatcher.start();
+
+        // Первое уведомление забирает воркер и зависает на медленном API
+        assertTrue(dispatcher.enqueue(new TaskNotificationEvent("1")));
+        assertTrue(requestArrived.await(5, TimeUnit.SECONDS));
+
+        assertTrue(dispatcher.enqueue(new TaskNotificationEvent("2")));
+        assertFalse(dispatcher.enqueue(new TaskNotificationEvent("3")));
+        assertEquals(1, dispatcher.getStats().getRejected());
+        assertEquals(1, dispatcher.getStats().getQueueDepth());
+
+        releaseRequests.countDown();
+        waitUntil(() -> dispatcher.getStats().getDelivered() == 2);
+    }
+
+    private void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Условие не выполнено за отведенное время");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.TestData;
+import com.company.taskmanagement.model.User;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({UserService.class, UserTaskStatsService.class})
+class UserServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserService userService;
+
+    private TestData data;
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        // Сервис общий для всех тестов контекста - кэш остается от предыдущего теста
+        ((Map<?, ?>) ReflectionTestUtils.getField(userService, "usersByUsername")).clear();
+        ((Map<?, ?>) ReflectionTestUtils.getField(userService, "usersById")).clear();
+        data = new TestData(entityManager);
+        alice = data.user("alice");
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testRepeatedLookupsServedFromCache() {
+        Statistics statistics = data.statistics();
+
+        User first = userService.getUserByUsername("alice").orElseThrow();
+        User second = userService.getUserByUsername("alice").orElseThrow();
+        entityManager.clear();
+        User byId = userService.getUserById(alice.getId()).orElseThrow();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(alice.getId(), second.getId());
+        assertEquals("Alice", byId.getFullName());
+
+        // Каждый вызов получает свою копию
+        first.setFullName("Изменено");
+        assertEquals("Alice", userService.getUserByUsername("alice").orElseThrow().getFullName());
+        assertTrue(userService.getUserByUsername("nobody").isEmpty());
+    }
+
+    @Test
+    void testUpdateAndDeleteEvict() {
+        userService.getUserByUsername("alice");
+
+        User changes = new User("alice2", "", "ADMIN", "alice@test.com", "Alice Admin");
+        userService.updateUser(alice.getId(), changes);
+
+        assertTrue(userService.getUserByUsername("alice").isEmpty());
+        User updated = userService.getUserByUsername("alice2").orElseThrow();
+        assertEquals("ADMIN", updated.getRole());
+        assertEquals("pass", updated.getPassword());
+
+        assertTrue(userService.deleteUser(alice.getId()));
+        assertTrue(userService.getUserByUsername("alice2").isEmpty());
+        assertTrue(userService.getUserById(alice.getId()).isEmpty());
+    }
+}
@@ -0,0 +1,104 @@
+package com.company.taskmanagement.service;
+
+import com.company.taskmanagement.TestData;
+import com.company.taskmanagement.model.ProjectTask;
+import com.company.taskmanagement.model.User;
+import com.company.taskmanagement.model.UserTaskStats;
+import com.company.taskmanagement.repository.UserTaskCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(UserTaskStatsService.class)
+class UserTaskStatsServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserTaskStatsService userTaskStatsService;
+
+    private TestData data;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(entityManager);
+        alice = data.user("alice");
+        bob = data.user("bob");
+        userTaskStatsService.rebuild();
+    }
+
+    @Test
+    void testIncrementalUpdatesFollowTaskLifecycle() {
+        ProjectTask task = data.task("Задача").dueDate(LocalDate.now().minusDays(1))
+                .assignees(alice).persistAndFlush();
+        userTaskStatsService.applyChange(UserTaskStatsService.TaskCounterState.EMPTY,
+                UserTaskStatsService.TaskCounterState.of(task));
+        assertCounters(alice, 1, 0, 0, 1);
+
+        // Изменение еще не сохранено: snapshot должен вернуть состояние из БД
+        task.setStatus(ProjectTask.TaskStatus.COMPLETED);
+        task.getAssignees().add(bob);
+        UserTaskStatsService.TaskCounterState before = userTaskStatsService.snapshot(task.getId());
+        assertEquals(ProjectTask.TaskStatus.PENDING, before.getStatus());
+        assertEquals(Set.of(alice.getId()), before.getAssigneeIds());
+
+        entityManager.flush();
+        userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.of(task));
+        assertCounters(alice, 1, 0, 1, 0);
+        assertCounters(bob, 1, 0, 1, 0);
+
+        before = userTaskStatsService.snapshot(task.getId());
+        task.setArchived(true);
+        entityManager.flush();
+        userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.of(task));
+        assertCounters(alice, 0, 1, 0, 0);
+
+        before = userTaskStatsService.snapshot(task.getId());
+        entityManager.remove(task);
+        entityManager.flush();
+        userTaskStatsService.applyChange(before, UserTaskStatsService.TaskCounterState.EMPTY);
+        assertCounters(alice, 0, 0, 0, 0);
+        assertCounters(bob, 0, 0, 0, 0);
+    }
+
+    @Test
+    void testRebuildCorrectsDrift() {
+        data.task("В работе").status(ProjectTask.TaskStatus.IN_PROGRESS).dueDate(LocalDate.now().minusDays(3))
+                .assignees(alice, bob).persistAndFlush();
+        data.task("Завершена").status(ProjectTask.TaskStatus.COMPLETED).assignees(alice).persistAndFlush();
+
+        UserTaskStats stale = entityManager.find(UserTaskStats.class, alice.getId());
+        stale.setActiveTasks(42);
+        entityManager.flush();
+
+        int corrected = userTaskStatsService.rebuild();
+        entityManager.flush();
+
+        assertEquals(2, corrected);
+        assertCounters(alice, 2, 0, 1, 1);
+        assertCounters(bob, 1, 0, 0, 1);
+    }
+
+    private void assertCounters(User user, long active, long archived, long completed, long overdue) {
+        UserTaskCounters counters = userTaskStatsService.getCounters(user.getId());
+        assertNotNull(counters);
+        assertEquals(active, counters.getActiveTasks(), "active");
+        assertEquals(archived, counters.getArchivedTasks(), "archived");
+        assertEquals(completed, counters.getCompletedTasks(), "completed");
+        assertEquals(overdue, counters.getOverdueTasks(), "overdue");
+    }
+}